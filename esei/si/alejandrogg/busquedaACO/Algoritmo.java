@@ -27,20 +27,21 @@ public interface Algoritmo {
      * acción depende del algoritmo, pero normalmente implica actualizar la cantidad de feromona
      * depositada en la carretera correspondiente. En general, debe de asumirse que este método puede
      * realizar cualquier acción en su implementación.
-     * @param hormiga La hormiga que ha recorrido un arco (carretera). Las implementaciones pueden
-     * asumir que este parámetro no es nulo.
+     * @param hormiga El identificador de la hormiga que ha recorrido un arco (carretera). Los
+     * identificadores son enteros densos, empezando en 0, y las implementaciones pueden asumir
+     * que este parámetro no es negativo.
      * @param carretera La carretera que ha tomado la hormiga. Las implementaciones pueden asumir que
      * este parámetro no es nulo.
      */
-    public void recorrerArco(final String hormiga, final Carretera carretera);
+    public void recorrerArco(final int hormiga, final Carretera carretera);
 
     /**
      * Notifica al algoritmo de que una hormiga ha terminado de realizar un camino, bien porque
      * ha llegado al destino, o bien porque no puede seguir avanzando. La respuesta a esta acción
      * depende del algoritmo. En general, debe de asumirse que este método puede realizar cualquier
      * acción en su implementación.
-     * @param hormiga La hormiga que acaba de terminar un camino. Las implementaciones pueden
-     * asumir que este parámetro no es nulo.
+     * @param hormiga El identificador de la hormiga que acaba de terminar un camino. Las
+     * implementaciones pueden asumir que este parámetro no es negativo.
      * @param camino El camino realizado por la hormiga, en forma de lista de ciudades (nodos) por
      * las que pasó. Las implementaciones pueden asumir que este parámetro no es nulo, pero no que
      * los términos contenidos en la lista sean válidos. Tampoco pueden asumir que el acceso
@@ -48,15 +49,22 @@ public interface Algoritmo {
      * @throws IllegalArgumentException Si algún término contenido en la lista no es un átomo que
      * represente una localidad.
      */
-    public void notificarCaminoEncontrado(final String hormiga, final List<Term> camino);
+    public void notificarCaminoEncontrado(final int hormiga, final List<Term> camino);
 
     /**
      * Informa al algoritmo de que una hormiga ha dejado de formar parte del sistema o, más generalmente,
      * que no debe de ser tenida en cuenta a efectos del algoritmo. Las implementaciones son libres
      * de utilizar esta información para lo que deseen, o de incluso ignorarla.
-     * @param hormiga La hormiga que ha dejado de formar parte del sistema.
+     * @param hormiga El identificador de la hormiga que ha dejado de formar parte del sistema, o
+     * un número negativo si nunca llegó a registrarse.
      */
-    public void notificarMuerteHormiga(final String hormiga);
+    public void notificarMuerteHormiga(final int hormiga);
+
+    /**
+     * Libera los recursos asociados a este algoritmo, como los hilos de ejecución que use. Tras
+     * invocar este método, no se debe de notificar al algoritmo de más sucesos.
+     */
+    public void detener();
 
     /**
      * Avanza a la siguiente iteración del SMA. Este método debe de ser invocado en cuanto se hayan
@@ -83,6 +91,16 @@ public interface Algoritmo {
      */
     public int getCiclo();
 
+    /**
+     * Obtiene la entropía de Shannon, en bits, de los caminos encontrados por las hormigas en el último
+     * ciclo completado, como medida de la diversidad de la colonia: vale 0 si todas las hormigas hicieron
+     * el mismo camino, y crece con el número de caminos distintos y lo repartidas que estén las hormigas
+     * entre ellos.
+     * @return La devandicha entropía, o NaN si todavía no se ha completado ningún ciclo en el que las
+     * hormigas encontrasen caminos.
+     */
+    public double getEntropiaCaminos();
+
     /**
      * Obtiene el número máximo de ciclos que el algoritmo ejecutará.
      * @return El devandicho número.
@@ -0,0 +1,164 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Almacena el nivel de feromona depositado en cada carretera de un grafo de carreteras,
+ * en un array de números reales indexado por el identificador de la carretera. De esta
+ * forma, evaporar y depositar feromona no requiere reservar memoria para cada valor, y las
+ * operaciones sobre todas las carreteras se reducen a recorrer un array.
+ *
+ * Las operaciones sobre una única carretera son atómicas, y sus efectos son inmediatamente
+ * visibles para otros hilos. Las operaciones en bloque, en cambio, no son atómicas para el
+ * conjunto: otro hilo podría ver el resultado de la operación aplicado a unas carreteras y no a
+ * otras mientras se ejecutan.
+ *
+ * El almacén lleva la cuenta de su versión, que se incrementa tras cada modificación, de
+ * forma que se puedan reutilizar cálculos derivados de los niveles de feromona mientras
+ * estos no cambien.
+ *
+ * @author Alejandro González García
+ */
+public final class AlmacenFeromona {
+    /**
+     * El manejador de variables que permite acceder atómicamente a los elementos de
+     * {@link nivelesFeromona}.
+     */
+    private static final VarHandle NIVEL = MethodHandles.arrayElementVarHandle(double[].class);
+
+    /**
+     * El nivel de feromona de cada carretera, indexado por su identificador.
+     */
+    private final double[] nivelesFeromona;
+    /**
+     * El número de operaciones de modificación completadas sobre este almacén.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Crea un nuevo almacén de feromona para un número de carreteras dado, con todas ellas
+     * con el nivel de feromona inicial.
+     * @param numeroCarreteras El número de carreteras, cuyos identificadores deben de estar
+     * en el intervalo [0, numeroCarreteras).
+     * @throws IllegalArgumentException Si el número de carreteras es negativo.
+     */
+    public AlmacenFeromona(final int numeroCarreteras) {
+        if (numeroCarreteras < 0) {
+            throw new IllegalArgumentException("Un almacén de feromona no puede tener un número negativo de carreteras.");
+        }
+
+        this.nivelesFeromona = new double[numeroCarreteras];
+        Arrays.fill(nivelesFeromona, Mundo.FEROMONA_INICIAL);
+
+        // Publicar los valores iniciales a otros hilos, que los leerán con semántica volátil
+        VarHandle.releaseFence();
+    }
+
+    /**
+     * Obtiene el número de carreteras de las que este almacén guarda su nivel de feromona.
+     * @return El devandicho número.
+     */
+    public int numeroCarreteras() {
+        return nivelesFeromona.length;
+    }
+
+    /**
+     * Obtiene el nivel de feromona depositado actualmente en una carretera.
+     * @param idCarretera El identificador de la carretera.
+     * @return El devandicho nivel de feromona.
+     * @throws ArrayIndexOutOfBoundsException Si el identificador no corresponde a ninguna carretera.
+     */
+    public double get(final int idCarretera) {
+        return (double) NIVEL.getVolatile(nivelesFeromona, idCarretera);
+    }
+
+    /**
+     * Suma de manera atómica una cantidad al nivel de feromona de una carretera.
+     * @param idCarretera El identificador de la carretera.
+     * @param delta La cantidad a sumar.
+     * @return El nuevo nivel de feromona de la carretera.
+     * @throws ArrayIndexOutOfBoundsException Si el identificador no corresponde a ninguna carretera.
+     */
+    public double sumar(final int idCarretera, final double delta) {
+        final double toret = (double) NIVEL.getAndAdd(nivelesFeromona, idCarretera, delta) + delta;
+
+        version.incrementAndGet();
+
+        return toret;
+    }
+
+    /**
+     * Establece de manera atómica el nivel de feromona de una carretera a partir de un cálculo
+     * realizado sobre el nivel de feromona anterior. Como el cálculo puede reintentarse si otro
+     * hilo modifica el nivel concurrentemente, la operación no debe de tener efectos colaterales.
+     * @param idCarretera El identificador de la carretera.
+     * @param operacion La operación a realizar sobre el nivel de feromona anterior.
+     * @return El nuevo nivel de feromona de la carretera.
+     * @throws ArrayIndexOutOfBoundsException Si el identificador no corresponde a ninguna carretera.
+     */
+    public double actualizar(final int idCarretera, final DoubleUnaryOperator operacion) {
+        double anterior;
+        double nuevo;
+
+        do {
+            anterior = get(idCarretera);
+            nuevo = operacion.applyAsDouble(anterior);
+        } while (!NIVEL.weakCompareAndSet(nivelesFeromona, idCarretera, anterior, nuevo));
+
+        version.incrementAndGet();
+
+        return nuevo;
+    }
+
+    /**
+     * Multiplica el nivel de feromona de todas las carreteras por un factor. Sirve para
+     * simular la evaporación de feromona en todo el grafo, al terminar cada ciclo. Como se
+     * invoca desde un único hilo mientras ningún otro modifica el almacén, no se usan operaciones
+     * atómicas de lectura y escritura: si otro hilo modificase una carretera concurrentemente, su
+     * modificación podría perderse. Otros hilos sí pueden leer niveles de feromona mientras tanto.
+     * @param factor El factor por el que multiplicar.
+     */
+    public void escalar(final double factor) {
+        for (int i = 0; i < nivelesFeromona.length; ++i) {
+            NIVEL.setRelease(nivelesFeromona, i, nivelesFeromona[i] * factor);
+        }
+
+        version.incrementAndGet();
+    }
+
+    /**
+     * Suma a cada carretera la cantidad de feromona correspondiente de un array de incrementos,
+     * indexado por identificador de carretera.
+     * @param deltas Los incrementos a sumar. Su longitud debe de ser igual al número de carreteras.
+     * @throws IllegalArgumentException Si la longitud del array de incrementos no es la esperada.
+     */
+    public void sumarTodos(final double[] deltas) {
+        if (deltas == null || deltas.length != nivelesFeromona.length) {
+            throw new IllegalArgumentException("El array de incrementos de feromona no tiene tantos elementos como carreteras.");
+        }
+
+        for (int i = 0; i < nivelesFeromona.length; ++i) {
+            if (deltas[i] != 0) {
+                NIVEL.getAndAdd(nivelesFeromona, i, deltas[i]);
+            }
+        }
+
+        version.incrementAndGet();
+    }
+
+    /**
+     * Obtiene la versión actual de este almacén, que se incrementa tras completar cada
+     * modificación. Si la versión no ha cambiado entre dos llamadas, no se ha completado ninguna
+     * modificación entre ellas.
+     * @return La devandicha versión.
+     */
+    public long version() {
+        return version.get();
+    }
+}
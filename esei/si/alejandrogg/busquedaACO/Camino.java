@@ -2,174 +2,228 @@
 
 package esei.si.alejandrogg.busquedaACO;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Spliterator;
-import java.util.Deque;
-import java.util.Queue;
 import java.util.NoSuchElementException;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.ConcurrentLinkedQueue;
-
-import esei.si.alejandrogg.busquedaACO.util.IteradorSoloLectura;
-import esei.si.alejandrogg.busquedaACO.util.SpliteratorSoloLectura;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 /**
  * Modela un camino, que es una serie de carreteras (aristas) de un mapa (grafo).
- * Una vez que se le han añadido las carreteras deseadas, un camino puede volverse inmutable,
- * lo que facilita en gran medida la realización de operaciones eficientes con él entre
- * varios hilos de ejecución. Un camino inmutable puede, además, compararse con otros caminos,
+ * Los caminos son inmutables, lo que facilita en gran medida la realización de operaciones
+ * eficientes con ellos entre varios hilos de ejecución, y pueden compararse con otros caminos,
  * según el orden natural de su distancia total.
+ *
+ * Un camino se representa mediante los identificadores de las localidades y carreteras por las
+ * que pasa, en sendos arrays de enteros, junto con su distancia total, su código de dispersión y
+ * su huella de 64 bits, que se calculan al crearlo. Su representación textual, en cambio, solo se genera si se solicita.
  * @author Alejandro González García
  */
 public final class Camino implements Comparable<Camino>, Iterable<Carretera> {
     /**
-     * El grafo de carreteras asociado a este camino, al que pertenecen las localidades y carreteras
-     * que formarán parte de este camino.
+     * El valor inicial de la huella de los caminos, antes de incorporar sus localidades.
      */
-    private final GrafoCarreteras grafoCarreteras;
+    private static final long BASE_HUELLA = 0xCBF29CE484222325L;
     /**
-     * La cola que contiene las carreteras por las que ha pasado este camino. Inicialmente está vacía.
+     * El multiplicador con el que se incorpora cada localidad a la huella de los caminos.
      */
-    private final Queue<Carretera> carreteras = new ConcurrentLinkedQueue<>();
+    private static final long PRIMO_HUELLA = 0x100000001B3L;
+
     /**
-     * La cola que contiene las localidades por las que ha pasado este camino, en orden FIFO.
-     * Inicialmente esta vacía, y su tamaño crece en múltiplos de dos.
+     * El grafo de carreteras asociado a este camino, al que pertenecen las localidades y carreteras
+     * que forman parte de este camino.
      */
-    private final Deque<Localidad> localidades = new ConcurrentLinkedDeque<>();
+    private final GrafoCarreteras grafoCarreteras;
     /**
-     * El {@link StringBuilder} usado internamente para ir construyendo la representación
-     * textual del camino según se va inicializando. De esta forma, sucesivas llamadas a
-     * {@link toString} no tienen que recomputar esta representación.
+     * Los identificadores de las localidades por las que pasa este camino, en orden.
      */
-    private StringBuilder sb = new StringBuilder();
+    private final int[] localidades;
     /**
-     * La representación textual final del camino, para usar una vez esté inicializado.
+     * Los identificadores de las carreteras por las que pasa este camino, en orden. La carretera
+     * i conecta la localidad i con la localidad i + 1.
      */
-    private volatile String caminoComoCadena = null;
+    private final int[] carreteras;
     /**
-     * Toma el valor verdadero si y solo si el camino ya se ha construido totalmente; es decir,
-     * si el responsable de crearlo ha añadido todas las carreteras que forman parte de él, y
-     * no se espera que nadie más lo haga.
+     * La distancia total del camino, para evitar tener que computarla repetidamente.
      */
-    private volatile boolean construido = false;
+    private final double distanciaTotal;
     /**
-     * La distancia total actual del camino ya construido, para evitar tener que computarla repetidamente.
+     * El código de dispersión del camino, para evitar tener que computarlo más de una vez.
      */
-    private volatile int distanciaTotalActual = 0;
+    private final int codigoDispersion;
     /**
-     * El código de dispersión actual del camino, para evitar tener que computarlo más de una vez.
+     * La huella del camino, un código de dispersión de 64 bits de sus localidades.
      */
-    private volatile int codigoDispersion = 1;
+    private final long huella;
     /**
-     * El número de localidades que forman parte del camino actualmente, para evitar tener que invocar
-     * el método size() en {@link localidades}, que tiene complejidad O(n).
+     * La representación textual del camino, o nulo si todavía no se ha generado. Varios hilos
+     * pueden generarla a la vez sin sincronizarse, pues todos obtienen la misma cadena, que es
+     * inmutable.
      */
-    private volatile int numLocalidades = 0;
+    private String caminoComoCadena = null;
 
     /**
-     * Crea un nuevo camino, asociado a un determinado grafo de carreteras.
+     * Crea un nuevo camino, que pasa por las localidades especificadas en orden.
      * @param grafoCarreteras El grafo de carreteras asociado al camino.
+     * @param idsLocalidades Los identificadores de las localidades por las que pasa el camino.
+     * Solo se consideran los primeros elementos del array, que se copian, de modo que quien
+     * invoca este constructor puede seguir usándolo.
+     * @param numeroLocalidades El número de elementos del array a considerar.
+     * @throws IllegalArgumentException Si el grafo o el array son nulos, el número de localidades
+     * es menor que 2 o mayor que la longitud del array, algún identificador no se corresponde con
+     * una localidad del grafo, o no existe una carretera que conecte dos localidades consecutivas.
      */
-    public Camino(final GrafoCarreteras grafoCarreteras) {
+    public Camino(final GrafoCarreteras grafoCarreteras, final int[] idsLocalidades, final int numeroLocalidades) {
         if (grafoCarreteras == null) {
             throw new IllegalArgumentException("El grafo de carreteras asociado a un camino no puede ser nulo.");
         }
+        if (idsLocalidades == null || numeroLocalidades < 2 || numeroLocalidades > idsLocalidades.length) {
+            throw new IllegalArgumentException("Un camino debe de pasar por al menos dos localidades.");
+        }
+
         this.grafoCarreteras = grafoCarreteras;
+        this.localidades = Arrays.copyOf(idsLocalidades, numeroLocalidades);
+        this.carreteras = new int[numeroLocalidades - 1];
+
+        double distancia = 0;
+        int hash = 1;
+        Localidad anterior = localidad(localidades[0]);
+        for (int i = 0; i < carreteras.length; ++i) {
+            final Localidad actual = localidad(localidades[i + 1]);
+            final Carretera carretera = grafoCarreteras.getCarretera(anterior, actual);
+            if (carretera == null) {
+                throw new IllegalArgumentException("No existe una carretera que conecte las localidades especificadas.");
+            }
+
+            carreteras[i] = carretera.getId();
+            distancia += carretera.getDistancia();
+            hash = 31 * hash + carretera.getId();
+            anterior = actual;
+        }
+
+        this.distanciaTotal = distancia;
+        this.codigoDispersion = hash;
+        this.huella = calcularHuella(localidades, localidades.length);
     }
 
     /**
-     * Añade una carretera al final de este camino, teniendo en cuenta que se ha tomado una carretera
-     * en un orden determinado, desde una localidad A hacia otra B. Esta operación tendrá éxito solo si
-     * el camino no se ha terminado de construir todavía, y asume que solo un hilo la emplea, al menos hasta
-     * que el camino se termine de construir. Para garantizar esta última asunción, basta con mantener
-     * la referencia a este objeto como variable local de un método hasta que se termine de construir.
-     * @param a La localidad desde la que se inicia el tramo del camino a añadir.
-     * @param b La localidad donde termina el tramo del camino a añadir.
-     * @throws IllegalArgumentException Si no hay una carretera que conecte ambas localidades.
-     * @throws IllegalStateException Si el camino ya se ha terminado de construir, pero se intenta añadir
-     * una nueva carretera a él.
+     * Calcula la huella que tendría un camino que pasase por las localidades especificadas en orden,
+     * sin crearlo. Así, es posible buscar un camino por su huella sin consultar el grafo de carreteras.
+     * @param idsLocalidades Los identificadores de las localidades por las que pasa el camino.
+     * @param numeroLocalidades El número de elementos del array a considerar.
+     * @return La devandicha huella, que coincide con la que devolvería {@link huella} para tal camino.
+     * @throws IllegalArgumentException Si el array es nulo, o el número de localidades es menor que 1
+     * o mayor que su longitud.
      */
-    public void addCarretera(final Localidad a, final Localidad b) {
-        final Carretera carretera = grafoCarreteras.getCarretera(a, b);
-        if (carretera == null) {
-            throw new IllegalArgumentException("No existe una carretera que conecte las localidades especificadas.");
-        }
-        if (construido) {
-            throw new IllegalStateException("No se puede añadir una carretera a un camino ya construido.");
+    public static long calcularHuella(final int[] idsLocalidades, final int numeroLocalidades) {
+        if (idsLocalidades == null || numeroLocalidades < 1 || numeroLocalidades > idsLocalidades.length) {
+            throw new IllegalArgumentException("No se puede calcular la huella de un camino sin localidades.");
         }
 
-        // Añadir la carretera a la cola, actualizar el código de dispersión del camino,
-        // e incrementar la distancia total actual
-        carreteras.add(carretera);
-        codigoDispersion = 31 * codigoDispersion + carretera.hashCode(); // https://docs.oracle.com/javase/8/docs/api/java/util/List.html#hashCode--
-        distanciaTotalActual += carretera.getDistancia();
-
-        // Solo añadir la primera localidad si la lista está vacía, para evitar localidades
-        // repetidas
-        if (localidades.isEmpty()) {
-            localidades.add(a);
-            sb.append(a.getNombre()).append(", ");
-            ++numLocalidades;
+        long huella = BASE_HUELLA ^ idsLocalidades[0];
+        for (int i = 1; i < numeroLocalidades; ++i) {
+            huella = (huella * PRIMO_HUELLA) ^ idsLocalidades[i];
         }
-        localidades.add(b);
-        sb.append(b.getNombre()).append(", ");
-        ++numLocalidades;
+
+        return mezclar(huella * PRIMO_HUELLA);
+    }
+
+    /**
+     * Mezcla los bits de un entero largo, de modo que cada bit del resultado dependa de todos
+     * los de la entrada (función de finalización de MurmurHash3).
+     * @param h El entero largo a mezclar.
+     * @return El entero largo mezclado.
+     */
+    private static long mezclar(final long h) {
+        long toret = h;
+
+        toret = (toret ^ (toret >>> 33)) * 0xFF51AFD7ED558CCDL;
+        toret = (toret ^ (toret >>> 33)) * 0xC4CEB9FE1A85EC53L;
+
+        return toret ^ (toret >>> 33);
     }
 
     /**
-     * Marca este camino como construido. Un camino ya construido no permite la adición de nuevas
-     * carreteras a él, volviéndose esencialmente de solo lectura, garantizando la coherencia de
-     * la información si varios hilos acceden al camino (pues todos ellos verán la última versión
-     * de los datos), y permitiendo operaciones de lectura sobre él. Este método está diseñado para
-     * ser llamado por el mismo que ha estado invocando {@link addCarretera}.
+     * Obtiene una localidad del grafo de carreteras asociado a este camino, a partir de su identificador.
+     * @param id El identificador de la localidad.
+     * @return La devandicha localidad.
+     * @throws IllegalArgumentException Si no existe una localidad con ese identificador.
      */
-    public void terminarConstruccion() {
-        // Eliminar coma sobrante
+    private Localidad localidad(final int id) {
+        final Localidad toret;
+
         try {
-            sb.delete(sb.length() - 2, sb.length());
-        } catch (StringIndexOutOfBoundsException ignorar) {}
+            toret = grafoCarreteras.localidad(id);
+        } catch (IndexOutOfBoundsException exc) {
+            throw new IllegalArgumentException("No existe una localidad con el identificador " + id + ".", exc);
+        }
 
-        caminoComoCadena = sb.toString();
-        sb = null; // Ya no necesitamos seguir construyendo la cadena
-        construido = true;
+        return toret;
     }
 
     /**
-     * Obtiene la última localidad que forma parte de este camino construido. En caso de que el
-     * camino no tenga todavía localidades, se devuelve el valor nulo.
+     * Obtiene la última localidad que forma parte de este camino.
      * @return La devandicha localidad.
-     * @throws IllegalStateException Si el camino todavía no se ha terminado de construir.
      */
     public Localidad getUltimaLocalidad() {
-        if (construido) {
-            try {
-                return localidades.getLast();
-            } catch (NoSuchElementException | IndexOutOfBoundsException exc) {
-                return null;
-            }
-        } else {
-            throw new IllegalStateException("No se puede obtener la última localidad de un camino todavía no construido.");
-        }
+        return grafoCarreteras.localidad(localidades[localidades.length - 1]);
+    }
+
+    /**
+     * Obtiene el número de carreteras por las que pasa este camino.
+     * @return El devandicho número.
+     */
+    public int numeroCarreteras() {
+        return carreteras.length;
+    }
+
+    /**
+     * Obtiene el identificador de una de las carreteras por las que pasa este camino.
+     * @param i La posición de la carretera en el camino, empezando en 0.
+     * @return El identificador de la carretera.
+     * @throws IndexOutOfBoundsException Si la posición no está en el intervalo [0, {@link numeroCarreteras}).
+     */
+    public int idCarretera(final int i) {
+        return carreteras[i];
     }
 
     /**
-     * Calcula la distancia total abarcada por este camino, si está ya construido.
+     * Obtiene la huella de este camino: un código de dispersión de 64 bits de la secuencia de
+     * localidades por las que pasa. Dos caminos iguales tienen la misma huella, y es muy
+     * improbable que dos caminos distintos la compartan.
      * @implNote. La implementación de este método tiene complejidad O(1).
-     * @return La devandicha distancia.
-     * @throws IllegalStateException Si el camino todavía no se ha terminado de construir.
+     * @return La devandicha huella.
      */
-    public int distanciaTotal() {
-        if (!construido) {
-            throw new IllegalStateException("No se puede obtener la distancia total de un camino todavía no construido.");
-        }
+    public long huella() {
+        return huella;
+    }
 
-        return distanciaTotalActual;
+    /**
+     * Comprueba si este camino pasa exactamente por las localidades especificadas, en orden.
+     * @implNote. La implementación de este método tiene complejidad O(n), siendo n el número de
+     * localidades por las que pasa el camino, y no consulta el grafo de carreteras.
+     * @param idsLocalidades Los identificadores de las localidades a comprobar. Se asume que es no nulo.
+     * @param numeroLocalidades El número de elementos del array a considerar.
+     * @return Verdadero si y solo si el camino pasa por esas localidades y solo por ellas, falso en
+     * caso contrario.
+     */
+    public boolean pasaPor(final int[] idsLocalidades, final int numeroLocalidades) {
+        return numeroLocalidades == localidades.length &&
+            Arrays.equals(localidades, 0, localidades.length, idsLocalidades, 0, numeroLocalidades);
+    }
+
+    /**
+     * Calcula la distancia total abarcada por este camino.
+     * @implNote. La implementación de este método tiene complejidad O(1).
+     * @return La devandicha distancia.
+     */
+    public double distanciaTotal() {
+        return distanciaTotal;
     }
 
     /**
      * {@inheritDoc}
      * @implNote. La implementación de este método tiene complejidad O(1).
-     * @throws IllegalStateException Si algún camino implicado no está construido.
      */
     @Override
     public int compareTo(final Camino otro) {
@@ -177,43 +231,27 @@ public final class Camino implements Comparable<Camino>, Iterable<Carretera> {
             throw new NullPointerException("No se puede comparar un camino con otro nulo.");
         }
 
-        return distanciaTotal() - otro.distanciaTotal();
+        return Double.compare(distanciaTotal, otro.distanciaTotal);
     }
 
     /**
      * {@inheritDoc}
-     * @implNote. La implementación de este método tiene complejidad O(n) en el peor caso,
-     * siendo n el número de localidades por las que pasa el camino, por lo que solo se
-     * recomienda usar este método si es estrictamente necesario. No obstante, si es obvio
-     * que los caminos no pueden ser iguales por tener longitudes diferentes, la complejidad
-     * se reduce a O(1).
-     * @throws IllegalStateException Si algún camino implicado no está construido.
+     * @implNote. La implementación de este método compara los arrays de identificadores de
+     * localidades, lo que tiene complejidad O(n) en el peor caso, siendo n el número de localidades
+     * por las que pasa el camino. No obstante, si es obvio que los caminos no pueden ser iguales
+     * por tener distinta huella, código de dispersión o distancia total, la complejidad se reduce a O(1).
      */
     @Override
     public boolean equals(final Object otro) {
-        boolean toret = otro instanceof Camino;
-        Camino otroCamino;
+        boolean toret = otro == this;
 
-        if (toret) {
-            otroCamino = (Camino) otro;
-
-            if (!construido || !otroCamino.construido) {
-                throw new IllegalStateException("No se puede comparar la igualdad de dos caminos cuando al menos uno no está construido.");
-            }
+        if (!toret && otro instanceof Camino) {
+            final Camino otroCamino = (Camino) otro;
 
-            // Si no tienen el mismo tamaño, ni de lejos son iguales
-            toret = numLocalidades == otroCamino.numLocalidades;
-            if (toret) {
-                // TODO: quizás optimizar esto con Spliterator
-                final Iterator<Localidad> iter1 = localidades.iterator();
-                final Iterator<Localidad> iter2 = localidades.iterator();
-
-                while (toret && iter1.hasNext()) {
-                    final Localidad l1 = iter1.next();
-                    final Localidad l2 = iter2.next();
-                    toret = l1.equals(l2);
-                }
-            }
+            toret = huella == otroCamino.huella &&
+                codigoDispersion == otroCamino.codigoDispersion &&
+                distanciaTotal == otroCamino.distanciaTotal &&
+                Arrays.equals(localidades, otroCamino.localidades);
         }
 
         return toret;
@@ -222,55 +260,63 @@ public final class Camino implements Comparable<Camino>, Iterable<Carretera> {
     /**
      * {@inheritDoc}
      * @implNote. La implementación de este método tiene complejidad O(1).
-     * @throws IllegalStateException Si el camino no está construido.
      */
     @Override
     public int hashCode() {
-        if (!construido) {
-            throw new IllegalStateException("No se puede obtener la clave de dispersión de un camino no construido.");
-        }
-
         return codigoDispersion;
     }
 
-    /**
-     * {@inheritDoc}
-     * @throws IllegalStateException Si el camino no está construido.
-     */
     @Override
     public Iterator<Carretera> iterator() {
-        if (!construido) {
-            throw new IllegalStateException("No se puede obtener un iterador sobre un camino no construido.");
-        }
+        return new Iterator<Carretera>() {
+            /**
+             * La posición de la siguiente carretera a devolver.
+             */
+            private int i = 0;
 
-        return new IteradorSoloLectura<>(carreteras.iterator());
+            @Override
+            public boolean hasNext() {
+                return i < carreteras.length;
+            }
+
+            @Override
+            public Carretera next() {
+                if (i >= carreteras.length) {
+                    throw new NoSuchElementException();
+                }
+
+                return grafoCarreteras.carretera(carreteras[i++]);
+            }
+        };
     }
 
-    /**
-     * {@inheritDoc}
-     * @throws IllegalStateException Si el camino no está construido.
-     */
     @Override
     public Spliterator<Carretera> spliterator() {
-        if (!construido) {
-            throw new IllegalStateException("No se puede obtener un iterador sobre un camino no construido.");
-        }
-
-        return new SpliteratorSoloLectura<>(carreteras.spliterator());
+        return Spliterators.spliterator(iterator(), carreteras.length, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
     }
 
     /**
      * {@inheritDoc}
-     * @implNote. La implementación de este método tiene complejidad O(1).
+     * @implNote. La representación textual se genera en la primera invocación de este método,
+     * y se reutiliza en las siguientes.
      */
     @Override
     public String toString() {
-        String toret = "Inicializando...";
+        String toret = caminoComoCadena;
+
+        if (toret == null) {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < localidades.length; ++i) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(grafoCarreteras.localidad(localidades[i]).getNombre());
+            }
 
-        if (construido) {
-            toret = caminoComoCadena;
+            toret = sb.toString();
+            caminoComoCadena = toret;
         }
 
         return toret;
     }
-}
\ No newline at end of file
+}
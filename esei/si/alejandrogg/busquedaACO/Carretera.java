@@ -2,16 +2,19 @@
 
 package esei.si.alejandrogg.busquedaACO;
 
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.UnaryOperator;
-
 /**
  * Modela una carretera, que se trata de un nombre más semántico para un arco
  * etiquetado y no dirigido de un grafo, sobre el que hormigas pueden depositar
- * feromonas (que se puede considerar como otro parámetro de la etiqueta).
+ * feromonas (que se puede considerar como otro parámetro de la etiqueta). El nivel
+ * de feromona de cada carretera no se guarda en ella, sino en el {@link AlmacenFeromona}
+ * del grafo de carreteras al que pertenece, indexado por su identificador.
  * @author Alejandro González García
  */
 public final class Carretera {
+	/**
+	 * El identificador de esta carretera, que es único en el grafo de carreteras al que pertenece.
+	 */
+	private final int id;
 	/**
 	 * La localidad que está en un extremo de la carretera.
 	 */
@@ -36,32 +39,33 @@ public final class Carretera {
 	 * Tal imagen está asociada con su vista.
 	 */
 	private final int infoY;
-	/**
-	 * La cantidad de feromona depositada en esta carretera por las hormigas
-	 * (agentes).
-	 */
-	private final AtomicReference<Double> nivelFeromona = new AtomicReference<>(Mundo.FEROMONA_INICIAL);
 
 	/**
 	 * Crea una nueva carretera.
+	 * @param id El identificador de la carretera, que debe de ser único en su grafo de carreteras.
+	 * Los identificadores de las carreteras de un grafo deben de ser consecutivos, empezando en 0.
 	 * @param a La localidad que está en un extremo de la carretera.
 	 * @param b La localidad que está en otro extremo de la carretera.
 	 * @param distancia La distancia entre ambas localidades implicadas (etiqueta del grafo).
 	 * @param infoX La coordenada X (abscisa) del punto donde se mostrará información de esta carretera.
 	 * @param infoY La coordenada Y (ordenada) del punto donde se mostrará información de esta carretera.
 	 * @throws NullPointerException Si alguno de los parámetros a o b son nulos.
-	 * @throws IllegalArgumentException Si la distancia es menor que 0.
+	 * @throws IllegalArgumentException Si el identificador o la distancia son menores que 0.
 	 */
-	public Carretera(final Localidad a, final Localidad b, final double distancia, final int infoX, final int infoY) {
+	public Carretera(final int id, final Localidad a, final Localidad b, final double distancia, final int infoX, final int infoY) {
 		if (a == null || b == null) {
 			throw new NullPointerException("Las localidades que conforman una carretera no pueden ser nulas.");
 		}
+		if (id < 0) {
+			throw new IllegalArgumentException("El identificador de una carretera no puede ser menor que 0.");
+		}
 		if (distancia < 0) {
 			throw new IllegalArgumentException("La distancia no puede ser menor que 0.");
 		}
 		if (infoX < 0 || infoY < 0) {
 			throw new IllegalArgumentException("Alguna coordenada es negativa, cuando no puede serlo.");
 		}
+		this.id = id;
 		this.a = a;
 		this.b = b;
 		this.distancia = distancia;
@@ -69,6 +73,24 @@ public final class Carretera {
 		this.infoY = infoY;
 	}
 
+	/**
+	 * Obtiene la localidad que está en un extremo de la carretera. A diferencia de
+	 * {@link getLocalidades}, no reserva memoria.
+	 * @return La devandicha localidad.
+	 */
+	public Localidad getLocalidadA() {
+		return a;
+	}
+
+	/**
+	 * Obtiene la localidad que está en el otro extremo de la carretera. A diferencia de
+	 * {@link getLocalidades}, no reserva memoria.
+	 * @return La devandicha localidad.
+	 */
+	public Localidad getLocalidadB() {
+		return b;
+	}
+
 	/**
 	 * Obtiene las dos localidades por las que pasa esta carretera.
 	 * @return Las devandichas localidades.
@@ -82,7 +104,7 @@ public final class Carretera {
 	 * de una localidad a la otra usando esta carretera.
 	 * @return La devandicha distancia.
 	 */
-	double getDistancia() {
+	public double getDistancia() {
 		return distancia;
 	}
 
@@ -90,7 +112,7 @@ public final class Carretera {
 	 * Obtiene la coordenada X (abscisa) del punto donde se mostrará información de esta carretera.
 	 * @return La devandicha coordenada.
 	 */
-	int getInfoX() {
+	public int getInfoX() {
 		return infoX;
 	}
 
@@ -98,33 +120,17 @@ public final class Carretera {
 	 * Obtiene la coordenada Y (ordenada) del punto donde se mostrará información de esta carretera.
 	 * @return La devandicha coordenada.
 	 */
-	int getInfoY() {
+	public int getInfoY() {
 		return infoY;
 	}
 
-    /**
-     * Establece el nivel de feromona depositado actualmente en esta carretera, a partir
-     * de un cálculo realizado sobre el nivel de feromona anterior. Dicho cálculo se
-     * realiza de manera atómica: ningún otro hilo podrá ver resultados de la operación
-     * hasta que se complete, y se garantiza que otros hilos lo verán en cuanto se complete.
-     * @param gestorPercepciones El gestor de percepciones a usar para informar a las hormigas
-     * del cambio del nivel de feromona. Si es nulo, no se informará a las hormigas de ello.
-     * @param operacion La operación a realizar sobre el nivel de feromona anterior.
-     */
-    public void actualizarNivelFeromona(final GestorPercepciones gestorPercepciones, final UnaryOperator<Double> operacion) {
-        if (gestorPercepciones != null) {
-            gestorPercepciones.actualizarNivelFeromona(this, nivelFeromona.updateAndGet(operacion));
-        } else {
-            nivelFeromona.updateAndGet(operacion);
-        }
-    }
-
 	/**
-	 * Obtiene el nivel de feromona depositada actualmente en esta carretera.
-	 * @return El descrito dato.
+	 * Obtiene el identificador de esta carretera, que es único en el grafo de carreteras
+	 * al que pertenece.
+	 * @return El devandicho identificador.
 	 */
-	double getNivelFeromona() {
-		return nivelFeromona.get();
+	public int getId() {
+		return id;
 	}
 
     /**
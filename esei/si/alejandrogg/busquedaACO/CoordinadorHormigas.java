@@ -2,15 +2,19 @@
 
 package esei.si.alejandrogg.busquedaACO;
 
-import java.util.Set;
-import java.util.HashSet;
 import java.util.logging.Level;
 import java.util.function.Consumer;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
+import esei.si.alejandrogg.busquedaACO.util.LargosAtomicosPaginados;
+
 import static java.lang.System.currentTimeMillis;
 
 /**
@@ -55,21 +59,40 @@ public final class CoordinadorHormigas {
      */
     private final Condition condicionLlegada = candadoLlegadaHormigas.newCondition();
     /**
-     * El candado que utilizamos para establecer relaciones pasa-antes necesarias
-     * para la atomicidad y visibilidad de la llegada de las respuestas de las hormigas.
-     * Aunque la clase Phaser de Java provee funcionalidades similares, por simplicidad
-     * es deseable no tener que gestionar también la visibilidad de la referencia al Phaser
-     * creado, de forma que se pueda saber en todo momento cuántas hormigas quedan por
-     * responder, y si se está esperando por la respuesta de hormigas, con tan solo consultar
-     * el valor de un entero. Además, así también podríamos reducir el número de candados
-     * que los hilos tienen que adquirir para hacer su cometido.
+     * El estado de la espera por la respuesta de las hormigas, que combina en un único entero largo,
+     * para poder modificarlos atómicamente a la vez sin candados, el número de la espera actual
+     * o de la última (su época), en los 32 bits más significativos, y el número de hormigas que
+     * quedan por responder, en los 32 bits menos significativos. Este número es negativo si no se
+     * está esperando a que las hormigas respondan.
+     */
+    private final AtomicLong estadoEsperaRespuesta = new AtomicLong(estadoEspera(0, Integer.MIN_VALUE));
+    /**
+     * Candado que serializa la llegada y muerte de hormigas con el inicio de cada espera por su
+     * respuesta, de modo que toda hormiga que llegue o muera se tenga en cuenta exactamente una vez:
+     * o en el número de hormigas con el que empieza la espera, o modificando el número de hormigas
+     * que quedan por responder. Las respuestas de las hormigas no lo adquieren.
+     */
+    private final Lock candadoMiembrosEspera = new ReentrantLock();
+    /**
+     * El número de hormigas presentes en el sistema, según los eventos de llegada y muerte recibidos.
+     * Los accesos a esta variable deben de sincronizarse con el candado {@link candadoMiembrosEspera}.
+     */
+    private int hormigasPresentes = 0;
+    /**
+     * La época de la última espera en la que respondió cada hormiga, indexada por su identificador.
+     * Se usa para no contar más de una vez respuestas múltiples, sin tener que vaciar nada al empezar
+     * cada espera: basta con que avance la época.
      */
-    private final Lock candadoEsperaRespuesta = new ReentrantLock();
+    private final LargosAtomicosPaginados epocaRespuestaHormiga = new LargosAtomicosPaginados(0);
     /**
-     * La condición que la última hormiga en responder indicará que ha ocurrido, para notificar
-     * a quien espera por la respuesta de todas las hormigas de que su espera se ha completado.
+     * El número de respuestas contadas durante la espera actual. Solo se usa para informar al usuario.
      */
-    private final Condition condicionEsperaRespuesta = candadoEsperaRespuesta.newCondition();
+    private final LongAdder respuestasContadas = new LongAdder();
+    /**
+     * El hilo que espera por la respuesta de las hormigas, al que despierta la última en responder,
+     * o nulo si no se está esperando.
+     */
+    private volatile Thread hiloEsperaRespuesta = null;
 
     /**
      * Tarea cuyo código se ejecutará cuando llegue una hormiga al sistema.
@@ -93,17 +116,15 @@ public final class CoordinadorHormigas {
      */
     private volatile boolean esperandoHormigas = false;
     /**
-     * El conjunto de hormigas que enviaron una respuesta durante la espera actual por respuestas.
-     * Se usa para no contar más de una vez respuestas múltiples. Los accesos a este TAD deben
-     * de sincronizarse con el candado {@link candadoEsperaRespuesta}.
+     * Indica si, durante la espera actual por respuestas, las hormigas pueden ejecutar su respuesta
+     * inmediatamente mediante {@link respuestaInmediataHormiga}.
      */
-    private final Set<String> hormigasQueRespondieron = new HashSet<>();
+    private volatile boolean respuestasInmediatasAdmitidas = false;
     /**
-     * El número de hormigas que quedan por responder en el momento presente.
-     * Este número es negativo si no se está esperando a que las hormigas respondan.
-     * Los accesos a esta variable deben de sincronizarse con el candado {@link candadoEsperaRespuesta}.
+     * El número de respuestas inmediatas que se están ejecutando. La espera por respuestas no
+     * termina hasta que es cero.
      */
-    private int hormigasEsperandoRespuesta = Integer.MIN_VALUE;
+    private final AtomicInteger respuestasInmediatasEnCurso = new AtomicInteger();
 
     /**
      * Crea un nuevo coordinador de hormigas, con sus tareas asociadas a ejecutar
@@ -301,69 +322,105 @@ public final class CoordinadorHormigas {
      * @throws IllegalArgumentException Si el parámetro tareaNotificacionRespuesta es nulo.
      */
     void esperarRespuestaHormigas(final Runnable tareaNotificacionRespuesta, final short segundosEspera) {
+        esperarRespuestaHormigas(tareaNotificacionRespuesta, segundosEspera, false);
+    }
+
+    /**
+     * Espera a que todas las hormigas de las que se tiene constancia en el SMA terminen
+     * su reacción a la percepción de paso de tiempo, como {@link esperarRespuestaHormigas(Runnable, short)},
+     * pero permitiendo opcionalmente que las hormigas ejecuten su respuesta inmediatamente durante la
+     * espera, mediante {@link respuestaInmediataHormiga}. En tal caso, la espera no termina hasta que
+     * todas las respuestas inmediatas admitidas se terminan de ejecutar, aunque pase el tiempo máximo.
+     * @param tareaNotificacionRespuesta La tarea que se responsabiliza de enviar la percepción de
+     * que el entorno está listo para esperar por la respuesta de las hormigas. Se ejecutará en
+     * el mismo hilo que ha llamado a este método.
+     * @param segundosEspera Los segundos a esperar como máximo a que todas las hormigas
+     * respondan. Un valor menor o igual que 0 significa esperar indefinidamente.
+     * @param admitirRespuestasInmediatas Si es verdadero, se admiten respuestas inmediatas durante
+     * la espera. En caso contrario, {@link respuestaInmediataHormiga} no las admite.
+     * @throws IllegalStateException Si se vuelve a intentar esperar por la respuesta de hormigas
+     * mientras tal espera está teniendo lugar.
+     * @throws IllegalArgumentException Si el parámetro tareaNotificacionRespuesta es nulo.
+     */
+    void esperarRespuestaHormigas(final Runnable tareaNotificacionRespuesta, final short segundosEspera, final boolean admitirRespuestasInmediatas) {
         if (tareaNotificacionRespuesta == null) {
             throw new IllegalArgumentException("La tarea de notificación de que el SMA está listo para esperar por la respuesta de hormigas no puede ser nula.");
         }
 
-        candadoEsperaRespuesta.lock();
+        // Comprobar que no estamos ya esperando por la respuesta de hormigas
+        final long estadoAnterior = estadoEsperaRespuesta.get();
+        if (hormigasPorResponder(estadoAnterior) >= 0) {
+            throw new IllegalStateException("No se puede esperar por la respuesta de las hormigas mientras tal espera está ya teniendo lugar.");
+        }
+
+        // Avisar al usuario del inicio de la espera
+        mundo.getLogger().log(Level.INFO, "Esperando a que todas las hormigas ejecuten su respuesta...");
+
+        // Inicialmente, esperaremos por la respuesta de tantas hormigas como haya.
+        // Las acciones de las hormigas (llegada, muerte y respuesta) influirán en el
+        // número de hormigas por las que se espera la respuesta. Las respuestas de
+        // esperas anteriores dejan de contar al avanzar la época
+        final int epoca = epoca(estadoAnterior) + 1;
+        respuestasContadas.reset();
+        respuestasInmediatasAdmitidas = admitirRespuestasInmediatas;
+        hiloEsperaRespuesta = Thread.currentThread();
+        candadoMiembrosEspera.lock();
         try {
-            // Comprobar que no estamos ya esperando por la respuesta de hormigas
-            if (hormigasEsperandoRespuesta >= 0) {
-                throw new IllegalStateException("No se puede esperar por la respuesta de las hormigas mientras tal espera está ya teniendo lugar.");
-            }
+            estadoEsperaRespuesta.set(estadoEspera(epoca, hormigasPresentes));
+        } finally {
+            candadoMiembrosEspera.unlock();
+        }
 
-            // Avisar al usuario del inicio de la espera
-            mundo.getLogger().log(Level.INFO, "Esperando a que todas las hormigas ejecuten su respuesta...");
+        // Solo tiene sentido esperar si hay al menos una hormiga
+        final long inicioEspera = currentTimeMillis();
+        if (hormigasPorResponder(estadoEsperaRespuesta.get()) > 0) {
+            // Notificar a los agentes hormigas que estamos listos para atender sus respuestas.
+            // Si hiciésemos esta notificación antes de establecer la época, no garantizaríamos
+            // que viesen el inicio de la espera
+            tareaNotificacionRespuesta.run();
 
-            // Inicialmente, esperaremos por la respuesta de tantas hormigas como haya.
-            // Las acciones de las hormigas (llegada, muerte y respuesta) influirán en el
-            // número de hormigas por las que se espera la respuesta
-            hormigasEsperandoRespuesta = mundo.getNHormigas();
+            // Cuando todas las hormigas hayan terminado, terminar la espera. La última en
+            // responder nos despierta
+            if (segundosEspera > 0) {
+                final long finEspera = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundosEspera);
+                long tiempoRestante = finEspera - System.nanoTime();
 
-            // Solo tiene sentido esperar si hay al menos una hormiga
-            final long inicioEspera = currentTimeMillis();
-            if (hormigasEsperandoRespuesta > 0) {
-                // Notificar a los agentes hormigas que estamos listos para atender sus respuestas.
-                // Si hiciésemos esta notificación en otro momento, fuera de esta sección crítica, no garantizaríamos
-                // que viesen el inicio de la espera
-                tareaNotificacionRespuesta.run();
+                while (hormigasPorResponder(estadoEsperaRespuesta.get()) > 0 && tiempoRestante > 0) {
+                    LockSupport.parkNanos(this, tiempoRestante);
 
-                // Cuando todas las hormigas hayan terminado, terminar la espera
-                if (segundosEspera > 0) {
-                    long inicioIteracionEspera;
-                    long tiempoRestante = segundosEspera * 1000;
+                    // Ignorar interrupciones, como si fuesen despertares espurios
+                    Thread.interrupted();
 
-                    while (hormigasEsperandoRespuesta > 0 && tiempoRestante > 0) {
-                        inicioIteracionEspera = currentTimeMillis();
+                    tiempoRestante = finEspera - System.nanoTime();
+                }
+            } else {
+                boolean interrumpido = false;
 
-                        try {
-                            condicionEsperaRespuesta.await(tiempoRestante, TimeUnit.MILLISECONDS);
-                        } catch (InterruptedException ignorar) {}
+                while (!interrumpido && hormigasPorResponder(estadoEsperaRespuesta.get()) > 0) {
+                    LockSupport.park(this);
+                    interrumpido = Thread.interrupted();
+                }
 
-                        // Descontar el tiempo transcurrido esperando del tiempo restante
-                        tiempoRestante -= currentTimeMillis() - inicioIteracionEspera;
-                    }
-                } else {
-                    try {
-                        while (hormigasEsperandoRespuesta > 0) {
-                            condicionEsperaRespuesta.await();
-                        }
-                    } catch (InterruptedException exc) {
-                        mundo.getLogger().log(Level.WARNING, "Se ha interrumpido la espera por la respuesta de las hormigas antes de que se completase. No se garantiza que se hayan recibido todas las respuestas posibles, y el resultado podría ser inconsistente.");
-                    }
+                if (interrumpido) {
+                    mundo.getLogger().log(Level.WARNING, "Se ha interrumpido la espera por la respuesta de las hormigas antes de que se completase. No se garantiza que se hayan recibido todas las respuestas posibles, y el resultado podría ser inconsistente.");
                 }
-            } else {
-                mundo.getLogger().log(Level.INFO, "No hay hormigas por las que esperar.");
             }
+        } else {
+            mundo.getLogger().log(Level.INFO, "No hay hormigas por las que esperar.");
+        }
 
-            mundo.getLogger().log(Level.INFO, "Espera por respuesta de " + hormigasQueRespondieron.size() + " hormiga/s completada en " + ((currentTimeMillis() - inicioEspera) / 1000.0) + " s.");
-
-            // Ya no estamos esperando por la respuesta de hormigas
-            hormigasEsperandoRespuesta = Integer.MIN_VALUE;
-            hormigasQueRespondieron.clear();
-        } finally {
-            candadoEsperaRespuesta.unlock();
+        // No admitir más respuestas inmediatas, y esperar a que terminen las que estén en curso,
+        // para que no se ejecuten concurrentemente con lo que se haga tras la espera
+        respuestasInmediatasAdmitidas = false;
+        while (respuestasInmediatasEnCurso.get() > 0) {
+            LockSupport.park(this);
         }
+
+        mundo.getLogger().log(Level.INFO, "Espera por respuesta de " + respuestasContadas.sum() + " hormiga/s completada en " + ((currentTimeMillis() - inicioEspera) / 1000.0) + " s.");
+
+        // Ya no estamos esperando por la respuesta de hormigas
+        estadoEsperaRespuesta.set(estadoEspera(epoca, Integer.MIN_VALUE));
+        hiloEsperaRespuesta = null;
     }
 
     /**
@@ -393,15 +450,22 @@ public final class CoordinadorHormigas {
             }
         }
 
+        // Obtener un identificador para la hormiga, y reservar su espacio para registrar respuestas
+        final int id = mundo.getRegistroHormigas().registrar(nombre);
+        epocaRespuestaHormiga.asegurarCapacidad(id + 1);
+
         // Si hay una espera por la respuesta de hormigas en curso, registrarnos
-        // como participante
-        candadoEsperaRespuesta.lock();
+        // como participante. Si no, contaremos en la siguiente
+        candadoMiembrosEspera.lock();
         try {
-            if (hormigasEsperandoRespuesta >= 0) {
-                ++hormigasEsperandoRespuesta;
-            }
+            ++hormigasPresentes;
+
+            long estado;
+            do {
+                estado = estadoEsperaRespuesta.get();
+            } while (hormigasPorResponder(estado) >= 0 && !estadoEsperaRespuesta.compareAndSet(estado, estado + 1));
         } finally {
-            candadoEsperaRespuesta.unlock();
+            candadoMiembrosEspera.unlock();
         }
 
         // Realizar la tarea de llegada de hormiga
@@ -415,17 +479,18 @@ public final class CoordinadorHormigas {
      */
     public void muerteHormiga(final String nombre) {
         // Si hay una espera por la respuesta de hormigas en curso, cancelar
-        // nuestra participación en la respuesta
-        candadoEsperaRespuesta.lock();
+        // nuestra participación en la respuesta, salvo que ya hubiésemos respondido
+        final int id = mundo.getRegistroHormigas().identificador(nombre);
+        candadoMiembrosEspera.lock();
         try {
-            if (hormigasEsperandoRespuesta > 0) {
-                // Avisar a quien espera por la respuesta de todas las hormigas si esta fue la última
-                if (--hormigasEsperandoRespuesta == 0) {
-                    condicionEsperaRespuesta.signal();
-                }
+            --hormigasPresentes;
+
+            final long estado = estadoEsperaRespuesta.get();
+            if (hormigasPorResponder(estado) > 0 && id >= 0 && marcarRespuesta(id, epoca(estado))) {
+                descontarRespuesta(epoca(estado));
             }
         } finally {
-            candadoEsperaRespuesta.unlock();
+            candadoMiembrosEspera.unlock();
         }
 
         // Realizar la tarea de muerte de hormiga
@@ -438,26 +503,156 @@ public final class CoordinadorHormigas {
      * @param nombre El nombre de la hormiga que responde a la percepción.
      */
     public void respuestaHormiga(final String nombre) {
+        respuestaHormiga(mundo.getRegistroHormigas().identificador(nombre));
+    }
+
+    /**
+     * Maneja el evento de respuesta de una hormiga a la percepción de paso del tiempo,
+     * enviando las notificaciones pertinentes. Este método no bloquea: varias hormigas
+     * pueden responder a la vez sin esperar unas por otras.
+     * @param hormiga El identificador de la hormiga que responde a la percepción.
+     */
+    void respuestaHormiga(final int hormiga) {
         // En principio, solo tiene sentido que las hormigas envíen respuestas si estamos esperando
         // por hormigas
-        candadoEsperaRespuesta.lock();
-        try {
-            if (hormigasEsperandoRespuesta > 0) {
-                // Solo contar una respuesta por espera
-                if (!hormigasQueRespondieron.contains(nombre)) {
-                    hormigasQueRespondieron.add(nombre);
-
-                    // Avisar a quien espera por la respuesta de todas las hormigas si esta fue la última
-                    if (--hormigasEsperandoRespuesta == 0) {
-                        condicionEsperaRespuesta.signal();
+        final long estado = estadoEsperaRespuesta.get();
+        if (hormigasPorResponder(estado) > 0 && hormiga >= 0) {
+            // Solo contar una respuesta por espera
+            if (marcarRespuesta(hormiga, epoca(estado))) {
+                respuestasContadas.increment();
+                descontarRespuesta(epoca(estado));
+            }
+        } else {
+            // Esto no debería de ocurrir: se espera recibir la respuesta solo si estamos esperando la respuesta de al menos una hormiga
+            mundo.getLogger().log(Level.WARNING, "La hormiga " + mundo.getRegistroHormigas().nombre(hormiga) + " ha respondido, pero el entorno no esperaba que lo hiciese en este momento. Esto puede ser síntoma de algún problema.");
+        }
+    }
+
+    /**
+     * Ejecuta inmediatamente, en el hilo actual, la respuesta de una hormiga a la percepción de paso del
+     * tiempo, y la cuenta como tal, si la espera por respuestas en curso las admite y la hormiga todavía
+     * no ha respondido. Varias hormigas pueden ejecutar su respuesta inmediata a la vez; la espera por
+     * respuestas no termina hasta que todas se han ejecutado.
+     * @param hormiga El identificador de la hormiga que responde a la percepción.
+     * @param respuesta La respuesta a ejecutar. Si lanza una excepción, la respuesta se cuenta igualmente,
+     * y la excepción se propaga a quien llama a este método.
+     * @return Verdadero si la respuesta se ha ejecutado y contado, falso si no se admitía y, por tanto, no
+     * se ha ejecutado.
+     * @throws IllegalArgumentException Si la respuesta es nula.
+     */
+    boolean respuestaInmediataHormiga(final int hormiga, final Runnable respuesta) {
+        if (respuesta == null) {
+            throw new IllegalArgumentException("No se puede ejecutar una respuesta inmediata nula.");
+        }
+
+        boolean toret = false;
+
+        if (respuestasInmediatasAdmitidas && hormiga >= 0) {
+            // Registrarnos como respuesta en curso antes de volver a comprobar que se admiten:
+            // así, o quien espera nos ve en curso y espera por nosotros, o nosotros vemos que ya
+            // no se admiten respuestas inmediatas
+            respuestasInmediatasEnCurso.incrementAndGet();
+            try {
+                final long estado = estadoEsperaRespuesta.get();
+                final int epoca = epoca(estado);
+
+                // Impedir que la hormiga vuelva a responder mientras ejecutamos su respuesta
+                toret = respuestasInmediatasAdmitidas && hormigasPorResponder(estado) > 0 && marcarRespuesta(hormiga, epoca);
+
+                if (toret) {
+                    respuestasContadas.increment();
+                    try {
+                        respuesta.run();
+                    } finally {
+                        descontarRespuesta(epoca);
                     }
                 }
-            } else {
-                // Esto no debería de ocurrir: se espera recibir la respuesta solo si estamos esperando la respuesta de al menos una hormiga
-                mundo.getLogger().log(Level.WARNING, "La hormiga " + nombre + " ha respondido, pero el entorno no esperaba que lo hiciese en este momento. Esto puede ser síntoma de algún problema.");
+            } finally {
+                if (respuestasInmediatasEnCurso.decrementAndGet() == 0) {
+                    despertarEsperaRespuesta();
+                }
             }
-        } finally {
-            candadoEsperaRespuesta.unlock();
         }
+
+        return toret;
+    }
+
+    /**
+     * Marca que una hormiga ha respondido durante una espera, si no lo había hecho ya.
+     * @param hormiga El identificador de la hormiga.
+     * @param epoca La época de la espera.
+     * @return Verdadero si la hormiga no había respondido durante la espera, y se ha marcado
+     * su respuesta, falso en caso contrario.
+     */
+    private boolean marcarRespuesta(final int hormiga, final int epoca) {
+        long epocaAnterior;
+        boolean toret;
+
+        do {
+            epocaAnterior = epocaRespuestaHormiga.get(hormiga);
+            toret = epocaAnterior < epoca;
+        } while (toret && !epocaRespuestaHormiga.compareAndSet(hormiga, epocaAnterior, epoca));
+
+        return toret;
+    }
+
+    /**
+     * Descuenta una hormiga de las que quedan por responder en una espera, si sigue en curso y
+     * queda alguna, despertando a quien espera si era la última.
+     * @param epoca La época de la espera.
+     */
+    private void descontarRespuesta(final int epoca) {
+        long estado;
+        int porResponder;
+        boolean descontada = false;
+
+        do {
+            estado = estadoEsperaRespuesta.get();
+            porResponder = hormigasPorResponder(estado);
+        } while (epoca(estado) == epoca && porResponder > 0 && !(descontada = estadoEsperaRespuesta.compareAndSet(estado, estado - 1)));
+
+        // Avisar a quien espera por la respuesta de todas las hormigas si esta fue la última
+        if (descontada && porResponder == 1) {
+            despertarEsperaRespuesta();
+        }
+    }
+
+    /**
+     * Despierta al hilo que espera por la respuesta de las hormigas, si lo hay.
+     */
+    private void despertarEsperaRespuesta() {
+        final Thread hilo = hiloEsperaRespuesta;
+
+        if (hilo != null) {
+            LockSupport.unpark(hilo);
+        }
+    }
+
+    /**
+     * Combina una época y un número de hormigas por responder en un estado de espera.
+     * @param epoca La época de la espera.
+     * @param hormigasPorResponder El número de hormigas que quedan por responder.
+     * @return El devandicho estado.
+     */
+    private static long estadoEspera(final int epoca, final int hormigasPorResponder) {
+        return ((long) epoca << 32) | (hormigasPorResponder & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Obtiene la época de un estado de espera.
+     * @param estado El estado de espera.
+     * @return La época de la espera.
+     */
+    private static int epoca(final long estado) {
+        return (int) (estado >>> 32);
+    }
+
+    /**
+     * Obtiene el número de hormigas que quedan por responder de un estado de espera.
+     * @param estado El estado de espera.
+     * @return El devandicho número, negativo si no se está esperando.
+     */
+    private static int hormigasPorResponder(final long estado) {
+        return (int) estado;
     }
 }
\ No newline at end of file
@@ -2,23 +2,36 @@
 
 package esei.si.alejandrogg.busquedaACO;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.text.Normalizer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
 
 import jason.asSyntax.ASSyntax;
 import jason.asSyntax.Atom;
 import jason.asSyntax.Literal;
+import jason.bb.BeliefBase;
 
 /**
  * Esta clase es una fabricación pura, cuyas responsabilidades versan sobre el mantenimiento
  * de las percepciones de los agentes en coordinación con el entorno, {@link Mundo}.
  *
+ * Las percepciones de las carreteras y de los nombres de las localidades no son comunes a
+ * todos los agentes: cada hormiga solo percibe las carreteras incidentes en la localidad donde
+ * está, y los nombres de esa localidad y de sus vecinas. Así, la memoria de las bases de creencias
+ * y el trabajo de revisarlas dependen del grado de las localidades, y no del tamaño del mapa.
+ * Además, estas percepciones, y las de importancia de feromona y distancia, se pueden consultar
+ * directamente, para que las bases de creencias de los agentes no necesiten guardar copias de ellas.
+ * Por ello, se crean ya anotadas con su fuente, source(percept).
+ *
  * Esta clase no debe de invocar métodos en su instancia de {@link Mundo} asociada que puedan
  * requerir de información no inicializada. Para más información acerca de qué está inicializado
  * y qué no cuando se crea este gestor, véase la implementación de {@link Mundo}.
@@ -37,14 +50,6 @@ public final class GestorPercepciones {
      * un átomo válido.
      */
     private static final Pattern regexCaracteresProhibidos = Pattern.compile("[^a-zA-Z0-9_]");
-    /**
-     * El literal que unifica con el usado para notificar a los agentes del paso del tiempo en el sistema.
-     */
-    private static final Literal literalPasoTiempoUnif = ASSyntax.createLiteral("pasoTiempo", ASSyntax.createVar());
-    /**
-     * El literal que unifica con el usado para notificar a los agentes de la llegada de un nuevo ciclo.
-     */
-    private static final Literal literalSiguienteCicloUnif = ASSyntax.createLiteral("siguienteCiclo", ASSyntax.createVar());
 
     /**
      * La instancia del entorno asociada con este gestor.
@@ -66,6 +71,35 @@ public final class GestorPercepciones {
      * ven un entorno consistente.
      */
     private final Object candadoActualizacionFeromona = new Object();
+    /**
+     * El último nivel de feromona de cada carretera del que se ha informado a los agentes,
+     * indexado por su identificador. Permite publicar solo las carreteras cuyo nivel ha cambiado.
+     * Los accesos a este array deben de sincronizarse con el candado {@link candadoActualizacionFeromona}.
+     */
+    private final double[] nivelesFeromonaPublicados;
+    /**
+     * El número de veces que se ha publicado algún cambio en el nivel de feromona de las carreteras.
+     * Solo se modifica con el candado {@link candadoActualizacionFeromona}.
+     */
+    private volatile long publicacionesFeromona = 0;
+    /**
+     * La percepción carretera(A, B, Distancia, IntFeromona) de cada carretera, indexada por
+     * su identificador.
+     */
+    private final AtomicReferenceArray<Literal> percepcionesCarreteras;
+    /**
+     * La percepción localidadANombre(Localidad, Nombre) de cada localidad, indexada por su
+     * identificador.
+     */
+    private final Literal[] percepcionesNombres;
+    /**
+     * La percepción importanciaFeromona(Alfa).
+     */
+    private final Literal percepcionImportanciaFeromona;
+    /**
+     * La percepción importanciaDistancia(Beta).
+     */
+    private final Literal percepcionImportanciaDistancia;
     /**
      * Se utiliza para asignar a las percepciones que sean necesarias un identificador lo más unívoco
      * posible. Esto sirve para que Jason pueda diferenciar diferentes percepciones de paso de tiempo,
@@ -87,13 +121,19 @@ public final class GestorPercepciones {
         }
         this.mundo = mundo;
 
+        // Indexar las percepciones que se reemplazan durante la simulación por los argumentos
+        // que las identifican, para poder reemplazarlas con un coste constante
+        mundo.indexarPercepciones("pasoTiempo", 1, 0);
+        mundo.indexarPercepciones("siguienteCiclo", 1, 0);
+
         final Set<Localidad> localidades = mundo.getGrafoCarreteras().localidades();
         final Set<String> funtoresUsados = new HashSet<>((int) (localidades.size() / 0.75) + 1, 0.75f);
 
         // De paso que guardamos los átomos asociados a cada localidad en memoria, para no tener que computarlos
         // frecuentemente, también comprobamos que los funtores asociados sean unívocos, para garantizar el
-        // correcto funcionamiento del sistema. Y, naturalmente, también añadimos percepciones para el mapeo
-        // átomo-nombre
+        // correcto funcionamiento del sistema. Y, naturalmente, también creamos las percepciones para el
+        // mapeo átomo-nombre
+        this.percepcionesNombres = new Literal[mundo.getGrafoCarreteras().numeroLocalidades()];
         final Map<Localidad, Atom> atomosLocalidades = new HashMap<>((int) (localidades.size() / 0.75) + 1, 0.75f);
         final Map<String, Localidad> localidadesAtomos = new HashMap<>((int) (localidades.size() / 0.75) + 1, 0.75f);
         for (final Localidad l : localidades) {
@@ -104,11 +144,9 @@ public final class GestorPercepciones {
                 throw new IllegalArgumentException("No se pudo generar un átomo unívoco para identificar la localidad " + l.getNombre());
             }
 
-            mundo.addPercept(
-                ASSyntax.createLiteral("localidadANombre",
-                    at, ASSyntax.createString(l.getNombre())
-                )
-            );
+            percepcionesNombres[l.getId()] = ASSyntax.createLiteral("localidadANombre",
+                at, ASSyntax.createString(l.getNombre())
+            ).addAnnot(BeliefBase.TPercept);
 
             atomosLocalidades.put(l, at);
             localidadesAtomos.put(func, l);
@@ -122,14 +160,11 @@ public final class GestorPercepciones {
 
         // Crear percepciones del tipo:
         // carretera(A, B, Distancia, IntFeromona)
+        this.nivelesFeromonaPublicados = new double[mundo.getGrafoCarreteras().numeroCarreteras()];
+        this.percepcionesCarreteras = new AtomicReferenceArray<>(nivelesFeromonaPublicados.length);
+        Arrays.fill(nivelesFeromonaPublicados, Mundo.FEROMONA_INICIAL);
         for (final Carretera c : mundo.getGrafoCarreteras().carreteras()) {
-            final Localidad[] nodosCarretera = c.getLocalidades();
-            mundo.addPercept(
-                ASSyntax.createLiteral("carretera",
-                    atomosLocalidades.get(nodosCarretera[0]), atomosLocalidades.get(nodosCarretera[1]),
-                    ASSyntax.createNumber(c.getDistancia()), ASSyntax.createNumber(Mundo.FEROMONA_INICIAL)
-                )
-            );
+            reemplazarPercepcionCarretera(c, Mundo.FEROMONA_INICIAL);
         }
 
         // Crear percepciones del tipo:
@@ -149,16 +184,14 @@ public final class GestorPercepciones {
         // Crear percepciones del tipo:
         // importanciaFeromona(Alfa)
         // importanciaDistancia(Beta)
-        mundo.addPercept(
-            ASSyntax.createLiteral("importanciaFeromona",
-                ASSyntax.createNumber(mundo.getAlfa())
-            )
-        );
-        mundo.addPercept(
-            ASSyntax.createLiteral("importanciaDistancia",
-                ASSyntax.createNumber(mundo.getBeta())
-            )
-        );
+        this.percepcionImportanciaFeromona = ASSyntax.createLiteral("importanciaFeromona",
+            ASSyntax.createNumber(mundo.getAlfa())
+        ).addAnnot(BeliefBase.TPercept);
+        this.percepcionImportanciaDistancia = ASSyntax.createLiteral("importanciaDistancia",
+            ASSyntax.createNumber(mundo.getBeta())
+        ).addAnnot(BeliefBase.TPercept);
+        mundo.addPercept(percepcionImportanciaFeromona);
+        mundo.addPercept(percepcionImportanciaDistancia);
 
         // Aunque no están documentadas las implicaciones de llamar a este método
         // de Jason por ninguna parte, un examen del código fuente indica que invoca
@@ -177,8 +210,7 @@ public final class GestorPercepciones {
      * por varios hilos de ejecución en paralelo.
      */
     void percibirPasoTiempo() {
-        mundo.removePerceptsByUnif(literalPasoTiempoUnif);
-        mundo.addPercept(ASSyntax.createLiteral("pasoTiempo", ASSyntax.createNumber(idPercepcion.intValue())));
+        mundo.reemplazarPercepcion(ASSyntax.createLiteral("pasoTiempo", ASSyntax.createNumber(idPercepcion.intValue())));
 
         mundo.informAgsEnvironmentChanged();
 
@@ -186,31 +218,37 @@ public final class GestorPercepciones {
     }
 
     /**
-     * Informa a todos los agentes del nuevo nivel de feromona que hay en una carretera determinada.
+     * Informa a todos los agentes, en un único lote, del nivel de feromona de las carreteras
+     * que ha variado desde la última vez que se llamó a este método. Se reemplaza una sola
+     * percepción por cada carretera cuyo nivel ha cambiado, y se avisa a los agentes de los
+     * cambios una única vez, en vez de una vez por carretera. Está concebido para ser llamado
+     * por los algoritmos una vez han terminado de actualizar el nivel de feromona de un ciclo.
      * Este método es seguro para ser ejecutado por varios hilos concurrentemente.
-     * @param carretera La carretera cuyo nivel de feromona ha variado.
-     * @param nuevoNivel El nuevo nivel de feromona de la carretera. El paso por parámetro de este
-     * valor implica evitar tener que volver a consultárselo a la carretera, y ayuda a reducir contención
-     * de hilos.
      */
-    void actualizarNivelFeromona(final Carretera carretera, final double nuevoNivel) {
-        final Localidad[] nodosCarretera = carretera.getLocalidades();
-        final double distancia = carretera.getDistancia();
+    public void publicarCambiosFeromona() {
+        final GrafoCarreteras grafoCarreteras = mundo.getGrafoCarreteras();
+        final AlmacenFeromona almacenFeromona = grafoCarreteras.getAlmacenFeromona();
+        boolean hayCambios = false;
 
-        mundo.removePerceptsByUnif(
-            ASSyntax.createLiteral("carretera",
-                atomosLocalidades.get(nodosCarretera[0]), atomosLocalidades.get(nodosCarretera[1]),
-                ASSyntax.createNumber(distancia), ASSyntax.createVar()
-            )
-        );
-        mundo.addPercept(
-            ASSyntax.createLiteral("carretera",
-                atomosLocalidades.get(nodosCarretera[0]), atomosLocalidades.get(nodosCarretera[1]),
-                ASSyntax.createNumber(distancia), ASSyntax.createNumber(nuevoNivel)
-            )
-        );
+        synchronized (candadoActualizacionFeromona) {
+            for (int i = 0; i < nivelesFeromonaPublicados.length; ++i) {
+                final double nuevoNivel = almacenFeromona.get(i);
 
-        mundo.informAgsEnvironmentChanged();
+                if (Double.compare(nuevoNivel, nivelesFeromonaPublicados[i]) != 0) {
+                    reemplazarPercepcionCarretera(grafoCarreteras.carretera(i), nuevoNivel);
+                    nivelesFeromonaPublicados[i] = nuevoNivel;
+                    hayCambios = true;
+                }
+            }
+
+            if (hayCambios) {
+                ++publicacionesFeromona;
+            }
+        }
+
+        if (hayCambios) {
+            mundo.informAgsEnvironmentChanged();
+        }
     }
 
     /**
@@ -218,8 +256,7 @@ public final class GestorPercepciones {
      * diseñado para ser ejecutado por varios hilos de ejecución en paralelo.
      */
     void siguienteCiclo() {
-        mundo.removePerceptsByUnif(literalSiguienteCicloUnif);
-        mundo.addPercept(ASSyntax.createLiteral("siguienteCiclo", ASSyntax.createNumber(idPercepcion.intValue())));
+        mundo.reemplazarPercepcion(ASSyntax.createLiteral("siguienteCiclo", ASSyntax.createNumber(idPercepcion.intValue())));
 
         mundo.informAgsEnvironmentChanged();
 
@@ -236,6 +273,211 @@ public final class GestorPercepciones {
         return localidadesAtomos.get(atomo == null ? null : atomo.getFunctor());
     }
 
+    /**
+     * Obtiene el átomo de AgentSpeak que identifica a la localidad dada en las percepciones.
+     * @param localidad La localidad cuyo átomo asociado obtener.
+     * @return El átomo que identifica a la localidad. De no pertenecer la localidad al grafo
+     * de carreteras del mundo, el valor de retorno puede ser nulo.
+     */
+    public Atom atomoLocalidad(final Localidad localidad) {
+        return atomosLocalidades.get(localidad);
+    }
+
+    /**
+     * Obtiene las percepciones del vecindario de una localidad: las carreteras incidentes en ella,
+     * y los nombres de la propia localidad y de sus vecinas. Es seguro que varios hilos ejecuten
+     * este método concurrentemente.
+     * @param localidad La localidad.
+     * @return Una lista nueva con las devandichas percepciones.
+     */
+    List<Literal> percepcionesVecindario(final Localidad localidad) {
+        final GrafoCarreteras grafoCarreteras = mundo.getGrafoCarreteras();
+        final int idLocalidad = localidad.getId();
+        final int grado = grafoCarreteras.grado(idLocalidad);
+        final List<Literal> toret = new ArrayList<>(2 * grado + 1);
+
+        toret.add(percepcionesNombres[idLocalidad]);
+        for (int i = 0; i < grado; ++i) {
+            toret.add(percepcionesCarreteras.get(grafoCarreteras.carreteraIncidente(idLocalidad, i)));
+            toret.add(percepcionesNombres[grafoCarreteras.vecino(idLocalidad, i)]);
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene el número de veces que se ha publicado algún cambio en el nivel de feromona de las
+     * carreteras. Si no varía entre dos llamadas, las percepciones de vecindario no han cambiado.
+     * @return El devandicho número.
+     */
+    long getPublicacionesFeromona() {
+        return publicacionesFeromona;
+    }
+
+    /**
+     * Obtiene las percepciones carretera(A, B, Distancia, IntFeromona) cuyo primer argumento es
+     * una localidad dada, con el último nivel de feromona publicado. Este método está concebido
+     * para ser usado por las bases de creencias de los agentes hormiga, y es seguro que varios
+     * hilos lo ejecuten concurrentemente.
+     * @param localidad El átomo que identifica a la localidad.
+     * @return Una lista nueva con las devandichas percepciones, vacía si el átomo no identifica
+     * a ninguna localidad.
+     */
+    public List<Literal> percepcionesCarreterasDesde(final Atom localidad) {
+        return percepcionesCarreterasExtremo(localidad, true);
+    }
+
+    /**
+     * Obtiene las percepciones carretera(A, B, Distancia, IntFeromona) cuyo segundo argumento es
+     * una localidad dada, con el último nivel de feromona publicado. Este método está concebido
+     * para ser usado por las bases de creencias de los agentes hormiga, y es seguro que varios
+     * hilos lo ejecuten concurrentemente.
+     * @param localidad El átomo que identifica a la localidad.
+     * @return Una lista nueva con las devandichas percepciones, vacía si el átomo no identifica
+     * a ninguna localidad.
+     */
+    public List<Literal> percepcionesCarreterasHasta(final Atom localidad) {
+        return percepcionesCarreterasExtremo(localidad, false);
+    }
+
+    /**
+     * Obtiene las percepciones carretera(A, B, Distancia, IntFeromona) de las carreteras incidentes
+     * en una localidad dada que la tienen como uno de sus extremos.
+     * @param localidad El átomo que identifica a la localidad.
+     * @param primerExtremo Si es verdadero, se obtienen las carreteras cuyo primer extremo es la
+     * localidad; si es falso, las carreteras cuyo segundo extremo es la localidad.
+     * @return Una lista nueva con las devandichas percepciones, vacía si el átomo no identifica
+     * a ninguna localidad.
+     */
+    private List<Literal> percepcionesCarreterasExtremo(final Atom localidad, final boolean primerExtremo) {
+        final Localidad l = localidadAtomo(localidad);
+        final List<Literal> toret;
+
+        if (l != null) {
+            final GrafoCarreteras grafoCarreteras = mundo.getGrafoCarreteras();
+            final int idLocalidad = l.getId();
+            final int grado = grafoCarreteras.grado(idLocalidad);
+
+            toret = new ArrayList<>(grado);
+            for (int i = 0; i < grado; ++i) {
+                final int idCarretera = grafoCarreteras.carreteraIncidente(idLocalidad, i);
+                final Carretera carretera = grafoCarreteras.carretera(idCarretera);
+                if ((primerExtremo ? carretera.getLocalidadA() : carretera.getLocalidadB()).equals(l)) {
+                    toret.add(percepcionesCarreteras.get(idCarretera));
+                }
+            }
+        } else {
+            toret = Collections.emptyList();
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene las percepciones carretera(A, B, Distancia, IntFeromona) de las carreteras incidentes
+     * en la localidad donde se encuentra una hormiga, con el último nivel de feromona publicado. Son
+     * las mismas carreteras que percibe la hormiga en su vecindario. Este método está concebido para
+     * ser usado por las bases de creencias de los agentes hormiga, y es seguro que varios hilos lo
+     * ejecuten concurrentemente.
+     * @param hormiga El nombre de la hormiga, que puede ser nulo si no se conoce.
+     * @return Una lista nueva con las devandichas percepciones, vacía si la hormiga no se conoce o
+     * no está en ninguna localidad.
+     */
+    public List<Literal> percepcionesCarreterasVecindario(final String hormiga) {
+        final Localidad localidad = hormiga == null ? null : mundo.getLocalizadorHormigas().ubicacion(hormiga);
+        final List<Literal> toret;
+
+        if (localidad != null) {
+            final GrafoCarreteras grafoCarreteras = mundo.getGrafoCarreteras();
+            final int idLocalidad = localidad.getId();
+            final int grado = grafoCarreteras.grado(idLocalidad);
+
+            toret = new ArrayList<>(grado);
+            for (int i = 0; i < grado; ++i) {
+                toret.add(percepcionesCarreteras.get(grafoCarreteras.carreteraIncidente(idLocalidad, i)));
+            }
+        } else {
+            toret = Collections.emptyList();
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene la percepción localidadANombre(Localidad, Nombre) de una localidad. Este método
+     * está concebido para ser usado por las bases de creencias de los agentes hormiga.
+     * @param localidad El átomo que identifica a la localidad.
+     * @return La devandicha percepción, o nulo si el átomo no identifica a ninguna localidad.
+     */
+    public Literal percepcionNombre(final Atom localidad) {
+        final Localidad l = localidadAtomo(localidad);
+
+        return l == null ? null : percepcionesNombres[l.getId()];
+    }
+
+    /**
+     * Obtiene las percepciones localidadANombre(Localidad, Nombre) de la localidad donde se
+     * encuentra una hormiga y de sus vecinas, que son las mismas que percibe la hormiga en su
+     * vecindario. Este método está concebido para ser usado por las bases de creencias de los
+     * agentes hormiga, y es seguro que varios hilos lo ejecuten concurrentemente.
+     * @param hormiga El nombre de la hormiga, que puede ser nulo si no se conoce.
+     * @return Una lista nueva con las devandichas percepciones, vacía si la hormiga no se conoce o
+     * no está en ninguna localidad.
+     */
+    public List<Literal> percepcionesNombresVecindario(final String hormiga) {
+        final Localidad localidad = hormiga == null ? null : mundo.getLocalizadorHormigas().ubicacion(hormiga);
+        final List<Literal> toret;
+
+        if (localidad != null) {
+            final GrafoCarreteras grafoCarreteras = mundo.getGrafoCarreteras();
+            final int idLocalidad = localidad.getId();
+            final int grado = grafoCarreteras.grado(idLocalidad);
+
+            toret = new ArrayList<>(grado + 1);
+            toret.add(percepcionesNombres[idLocalidad]);
+            for (int i = 0; i < grado; ++i) {
+                toret.add(percepcionesNombres[grafoCarreteras.vecino(idLocalidad, i)]);
+            }
+        } else {
+            toret = Collections.emptyList();
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene la percepción importanciaFeromona(Alfa). Este método está concebido para ser usado
+     * por las bases de creencias de los agentes hormiga.
+     * @return La devandicha percepción.
+     */
+    public Literal percepcionImportanciaFeromona() {
+        return percepcionImportanciaFeromona;
+    }
+
+    /**
+     * Obtiene la percepción importanciaDistancia(Beta). Este método está concebido para ser usado
+     * por las bases de creencias de los agentes hormiga.
+     * @return La devandicha percepción.
+     */
+    public Literal percepcionImportanciaDistancia() {
+        return percepcionImportanciaDistancia;
+    }
+
+    /**
+     * Reemplaza la percepción de una carretera por otra con un nuevo nivel de feromona, sin
+     * avisar a los agentes del cambio.
+     * @param carretera La carretera cuyo nivel de feromona ha variado.
+     * @param nuevoNivel El nuevo nivel de feromona de la carretera.
+     */
+    private void reemplazarPercepcionCarretera(final Carretera carretera, final double nuevoNivel) {
+        percepcionesCarreteras.set(carretera.getId(),
+            ASSyntax.createLiteral("carretera",
+                atomosLocalidades.get(carretera.getLocalidadA()), atomosLocalidades.get(carretera.getLocalidadB()),
+                ASSyntax.createNumber(carretera.getDistancia()), ASSyntax.createNumber(nuevoNivel)
+            ).addAnnot(BeliefBase.TPercept)
+        );
+    }
+
     /**
      * Obtiene el átomo identificativo de una localidad, usado en las percepciones asociadas.
      * Esta operación normaliza el nombre de la localidad de manera que pueda ser interpretado
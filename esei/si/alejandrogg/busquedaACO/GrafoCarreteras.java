@@ -33,6 +33,102 @@ public interface GrafoCarreteras {
 	 */
 	public Set<Localidad> localidades();
 
+    /**
+     * Obtiene el número de localidades (nodos) del grafo. Los identificadores de las localidades
+     * del grafo son los enteros del intervalo [0, numeroLocalidades()).
+     * @return El devandicho número.
+     */
+    public int numeroLocalidades();
+
+    /**
+     * Obtiene el número de carreteras (arcos) del grafo. Los identificadores de las carreteras
+     * del grafo son los enteros del intervalo [0, numeroCarreteras()).
+     * @return El devandicho número.
+     */
+    public int numeroCarreteras();
+
+    /**
+     * Obtiene la localidad del grafo con el identificador especificado.
+     * @param id El identificador de la localidad.
+     * @return La devandicha localidad.
+     * @throws IndexOutOfBoundsException Si no hay una localidad con ese identificador.
+     */
+    public Localidad localidad(final int id);
+
+    /**
+     * Obtiene la carretera del grafo con el identificador especificado.
+     * @param id El identificador de la carretera.
+     * @return La devandicha carretera.
+     * @throws IndexOutOfBoundsException Si no hay una carretera con ese identificador.
+     */
+    public Carretera carretera(final int id);
+
+    /**
+     * Obtiene el grado de una localidad; es decir, el número de carreteras que inciden en ella.
+     * @param idLocalidad El identificador de la localidad.
+     * @return El devandicho grado.
+     * @throws IndexOutOfBoundsException Si no hay una localidad con ese identificador.
+     */
+    public int grado(final int idLocalidad);
+
+    /**
+     * Obtiene el identificador de la i-ésima localidad adyacente a una localidad dada. La
+     * carretera que las une es la i-ésima carretera incidente de la localidad, según
+     * {@link carreteraIncidente}.
+     * @param idLocalidad El identificador de la localidad.
+     * @param i El índice de la localidad adyacente, en el intervalo [0, grado(idLocalidad)).
+     * @return El identificador de la devandicha localidad adyacente.
+     * @throws IndexOutOfBoundsException Si no hay una localidad con ese identificador, o el índice
+     * está fuera de rango.
+     */
+    public int vecino(final int idLocalidad, final int i);
+
+    /**
+     * Obtiene el identificador de la i-ésima carretera que incide en una localidad dada.
+     * @param idLocalidad El identificador de la localidad.
+     * @param i El índice de la carretera incidente, en el intervalo [0, grado(idLocalidad)).
+     * @return El identificador de la devandicha carretera.
+     * @throws IndexOutOfBoundsException Si no hay una localidad con ese identificador, o el índice
+     * está fuera de rango.
+     */
+    public int carreteraIncidente(final int idLocalidad, final int i);
+
+    /**
+     * Obtiene los identificadores de las localidades adyacentes a una localidad dada, en el mismo
+     * orden que {@link vecino}. Como el array devuelto es una copia, en bucles críticos para el
+     * rendimiento es preferible usar {@link grado} y {@link vecino}.
+     * @param idLocalidad El identificador de la localidad.
+     * @return Los identificadores de las devandichas localidades.
+     * @throws IndexOutOfBoundsException Si no hay una localidad con ese identificador.
+     */
+    public default int[] vecinos(final int idLocalidad) {
+        final int[] toret = new int[grado(idLocalidad)];
+
+        for (int i = 0; i < toret.length; ++i) {
+            toret[i] = vecino(idLocalidad, i);
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene los identificadores de las carreteras que inciden en una localidad dada, en el mismo
+     * orden que {@link carreteraIncidente}. Como el array devuelto es una copia, en bucles críticos
+     * para el rendimiento es preferible usar {@link grado} y {@link carreteraIncidente}.
+     * @param idLocalidad El identificador de la localidad.
+     * @return Los identificadores de las devandichas carreteras.
+     * @throws IndexOutOfBoundsException Si no hay una localidad con ese identificador.
+     */
+    public default int[] carreterasIncidentes(final int idLocalidad) {
+        final int[] toret = new int[grado(idLocalidad)];
+
+        for (int i = 0; i < toret.length; ++i) {
+            toret[i] = carreteraIncidente(idLocalidad, i);
+        }
+
+        return toret;
+    }
+
     /**
      * Obtiene la carretera (arista) de este grafo que va de una localidad a otra (une ambos vértices).
      * Este método debe de tratar el grafo como no dirigido, dando el mismo resultado independientemente
@@ -43,6 +139,13 @@ public interface GrafoCarreteras {
      */
     public Carretera getCarretera(final Localidad a, final Localidad b);
 
+    /**
+     * Obtiene el almacén de feromona de este grafo, que guarda el nivel de feromona depositado
+     * en cada una de sus carreteras, indexado por el identificador de la carretera.
+     * @return El devandicho almacén.
+     */
+    public AlmacenFeromona getAlmacenFeromona();
+
 	/**
 	 * Obtiene el nombre identificativo del mapa. Para que la creación de la vista
      * asociada a este grafo tenga éxito, este nombre se debe de corresponder con el
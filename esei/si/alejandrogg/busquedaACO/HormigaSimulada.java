@@ -0,0 +1,172 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+
+import jason.asSyntax.ASSyntax;
+import jason.asSyntax.Structure;
+import jason.asSyntax.Term;
+
+/**
+ * Modela una hormiga simulada directamente en Java, sin razonamiento BDI, que se comporta
+ * de la misma manera que el agente definido en hormiga.asl: ante cada paso de tiempo escoge
+ * la siguiente localidad a visitar mediante el {@link SelectorLocalidadSiguiente} del mundo,
+ * y comunica su decisión al entorno mediante las mismas acciones de entorno (irA, irAHormiguero
+ * y listaParaContinuar) que usaría el agente. De esta forma
+ * se puede ejercitar el {@link Mundo} sin la infraestructura de Jason.
+ *
+ * Una hormiga simulada no está diseñada para que varios hilos invoquen sus métodos
+ * concurrentemente. Sin embargo, sí es seguro que hilos diferentes invoquen sus métodos
+ * en instantes de tiempo diferentes, pues el {@link CoordinadorHormigas} establece una relación
+ * pasa-antes entre la respuesta de una hormiga y el siguiente instante de tiempo.
+ *
+ * @see SimulacionSinInterfaz
+ * @author Alejandro González García
+ */
+final class HormigaSimulada {
+    /**
+     * La acción de entorno que indica que la hormiga está lista para continuar.
+     */
+    private static final Structure ACCION_LISTA_PARA_CONTINUAR = ASSyntax.createStructure("listaParaContinuar");
+
+    /**
+     * El mundo en el que vive esta hormiga.
+     */
+    private final Mundo mundo;
+    /**
+     * El nombre de esta hormiga, que la identifica en el sistema.
+     */
+    private final String nombre;
+    /**
+     * Las localidades que esta hormiga ha visitado en el ciclo actual, incluyendo la de inicio.
+     */
+    private final Set<Localidad> localidadesVisitadas = new HashSet<>();
+    /**
+     * Los átomos de las localidades del camino recorrido por esta hormiga en el ciclo actual, en orden.
+     */
+    private final List<Term> camino = new ArrayList<>();
+    /**
+     * La localidad en la que se encuentra esta hormiga.
+     */
+    private Localidad estoyEn;
+    /**
+     * Toma el valor verdadero si y solo si esta hormiga ha vuelto al hormiguero en el ciclo actual.
+     */
+    private boolean enHormiguero;
+
+    /**
+     * Crea una nueva hormiga simulada, situada en la localidad de inicio del mundo.
+     * @param mundo El mundo en el que vivirá la hormiga. Debe de estar inicializado.
+     * @param nombre El nombre de la hormiga.
+     * @throws IllegalArgumentException Si algún parámetro es nulo.
+     */
+    HormigaSimulada(final Mundo mundo, final String nombre) {
+        if (mundo == null) {
+            throw new IllegalArgumentException("Una hormiga simulada no puede vivir en un mundo nulo.");
+        }
+        if (nombre == null) {
+            throw new IllegalArgumentException("Una hormiga simulada no puede tener un nombre nulo.");
+        }
+        this.mundo = mundo;
+        this.nombre = nombre;
+
+        volverAInicio();
+    }
+
+    /**
+     * Obtiene el nombre de esta hormiga.
+     * @return El devandicho nombre.
+     */
+    String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Reacciona a la percepción de paso de tiempo, avanzando a la siguiente localidad si es posible,
+     * y envía la respuesta correspondiente al entorno.
+     */
+    void pasoTiempo() {
+        Structure accion = ACCION_LISTA_PARA_CONTINUAR;
+
+        try {
+            accion = avanzar();
+        } catch (Exception exc) {
+            // Responder de todas formas, para no hacer esperar al entorno en vano
+            mundo.getLogger().log(Level.WARNING, "La hormiga simulada " + nombre + " no ha podido decidir cómo avanzar.", exc);
+        }
+
+        mundo.scheduleAction(nombre, accion, null);
+    }
+
+    /**
+     * Reacciona a la percepción de llegada de un nuevo ciclo, olvidando lo que estaba haciendo
+     * y volviendo a la localidad de inicio, y avisa al entorno de que está lista para continuar.
+     */
+    void siguienteCiclo() {
+        volverAInicio();
+
+        mundo.scheduleAction(nombre, ACCION_LISTA_PARA_CONTINUAR, null);
+    }
+
+    /**
+     * Decide la acción de entorno con la que avanzar en este instante de tiempo, actualizando
+     * el estado de la hormiga en consecuencia.
+     * @return La acción de entorno a enviar al entorno.
+     */
+    private Structure avanzar() {
+        final Structure toret;
+
+        if (!enHormiguero) {
+            final Localidad siguiente = heLlegado() ? null : mundo.getSelectorLocalidadSiguiente().localidadSiguiente(estoyEn, localidadesVisitadas);
+
+            if (siguiente != null) {
+                // Recordar la elección que he tomado, para tenerla en cuenta en el futuro
+                localidadesVisitadas.add(siguiente);
+                estoyEn = siguiente;
+                camino.add(mundo.getGestorPercepciones().atomoLocalidad(siguiente));
+
+                if (heLlegado()) {
+                    enHormiguero = true;
+                    toret = ASSyntax.createStructure("irAHormiguero", ASSyntax.createList(camino));
+                } else {
+                    toret = ASSyntax.createStructure("irA", mundo.getGestorPercepciones().atomoLocalidad(siguiente));
+                }
+            } else {
+                // No puedo seguir avanzando, así que vuelvo al hormiguero
+                enHormiguero = true;
+                toret = ASSyntax.createStructure("irAHormiguero", ASSyntax.createList(camino));
+            }
+        } else {
+            toret = ACCION_LISTA_PARA_CONTINUAR;
+        }
+
+        return toret;
+    }
+
+    /**
+     * Comprueba si la hormiga está en la localidad destino.
+     * @return Verdadero si y solo si la hormiga está en la localidad destino, falso en otro caso.
+     */
+    private boolean heLlegado() {
+        return mundo.getLocalidadDestino().equals(estoyEn);
+    }
+
+    /**
+     * Olvida el camino recorrido, y sitúa a la hormiga en la localidad de inicio.
+     */
+    private void volverAInicio() {
+        estoyEn = mundo.getLocalidadInicio();
+        enHormiguero = false;
+
+        localidadesVisitadas.clear();
+        localidadesVisitadas.add(estoyEn);
+
+        camino.clear();
+        camino.add(mundo.getGestorPercepciones().atomoLocalidad(estoyEn));
+    }
+}
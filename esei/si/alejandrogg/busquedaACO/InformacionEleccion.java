@@ -0,0 +1,144 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Contiene el peso de elección de cada carretera de un grafo, t^α + (1 / d)^β, siendo t su nivel
+ * de feromona y d su distancia, calculado para una versión concreta de su {@link AlmacenFeromona}.
+ * Como el nivel de feromona solo cambia cuando el algoritmo lo actualiza (en ant-cycle, al final
+ * de cada ciclo), calcular los pesos una vez por versión reduce el número de potencias a calcular
+ * de O(hormigas · pasos · grado) a O(carreteras) por actualización. El término de la distancia no
+ * depende de la feromona, así que se calcula una única vez por grafo y se comparte entre versiones.
+ * <p>
+ * Además, guarda una {@link TablaAlias} por localidad, construida la primera vez que una hormiga
+ * escoge desde ella, de forma que las siguientes elecciones desde la misma localidad en esta
+ * versión se resuelvan en tiempo constante. Las tablas se descartan junto con este objeto cuando
+ * la feromona cambia.
+ *
+ * Los pesos de los objetos de esta clase son inmutables, y es seguro que varios hilos los usen
+ * concurrentemente.
+ * @author Alejandro González García
+ */
+final class InformacionEleccion {
+    /**
+     * La versión del almacén de feromona a partir de la que se calcularon los pesos.
+     */
+    private final long version;
+    /**
+     * El peso de elección de cada carretera, indexado por su identificador.
+     */
+    private final double[] pesos;
+    /**
+     * La tabla de alias de las carreteras incidentes en cada localidad, indexada por su
+     * identificador, o nulo si todavía no se ha construido.
+     */
+    private final AtomicReferenceArray<TablaAlias> tablasAlias;
+
+    /**
+     * Calcula los pesos de elección de las carreteras a partir de su nivel de feromona actual.
+     * @param almacenFeromona El almacén del nivel de feromona de las carreteras.
+     * @param terminosDistancia El término (1 / d)^β de cada carretera, indexado por su identificador.
+     * @param alfa El exponente de importancia relativa de la feromona.
+     * @param numeroLocalidades El número de localidades del grafo de carreteras.
+     */
+    InformacionEleccion(final AlmacenFeromona almacenFeromona, final double[] terminosDistancia, final double alfa, final int numeroLocalidades) {
+        // Leer la versión antes que los niveles: si cambian mientras los leemos, la versión
+        // guardada quedará desfasada y se volverán a calcular
+        this.version = almacenFeromona.version();
+        this.pesos = new double[terminosDistancia.length];
+        this.tablasAlias = new AtomicReferenceArray<>(numeroLocalidades);
+
+        for (int i = 0; i < pesos.length; ++i) {
+            pesos[i] = potencia(almacenFeromona.get(i), alfa) + terminosDistancia[i];
+        }
+    }
+
+    /**
+     * Calcula el término (1 / d)^β de cada carretera de un grafo de carreteras.
+     * @param grafoCarreteras El grafo de carreteras.
+     * @param beta El exponente de importancia relativa de la distancia.
+     * @return El devandicho término para cada carretera, indexado por su identificador.
+     */
+    static double[] terminosDistancia(final GrafoCarreteras grafoCarreteras, final double beta) {
+        final double[] toret = new double[grafoCarreteras.numeroCarreteras()];
+
+        for (int i = 0; i < toret.length; ++i) {
+            toret[i] = potencia(1 / grafoCarreteras.carretera(i).getDistancia(), beta);
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene la versión del almacén de feromona a partir de la que se calcularon los pesos.
+     * @return La devandicha versión.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Obtiene el peso de elección de una carretera.
+     * @param idCarretera El identificador de la carretera.
+     * @return El devandicho peso, que puede ser infinito si la carretera tiene distancia nula.
+     */
+    double peso(final int idCarretera) {
+        return pesos[idCarretera];
+    }
+
+    /**
+     * Obtiene la tabla de alias para escoger una de las carreteras incidentes en una localidad,
+     * con probabilidad proporcional a su peso de elección, construyéndola si es la primera vez
+     * que se pide. Si varios hilos la piden a la vez, pueden construirla varias veces, pero todas
+     * las tablas resultantes son equivalentes.
+     * @param grafoCarreteras El grafo de carreteras.
+     * @param idLocalidad El identificador de la localidad.
+     * @return La devandicha tabla, cuyos índices son los de las adyacencias de la localidad, o nulo
+     * si no se puede construir porque algún peso es infinito o todos son nulos.
+     */
+    TablaAlias tablaAlias(final GrafoCarreteras grafoCarreteras, final int idLocalidad) {
+        TablaAlias toret = tablasAlias.get(idLocalidad);
+
+        if (toret == null) {
+            final int grado = grafoCarreteras.grado(idLocalidad);
+            final double[] pesosIncidentes = new double[grado];
+            double total = 0;
+            for (int i = 0; i < grado; ++i) {
+                pesosIncidentes[i] = pesos[grafoCarreteras.carreteraIncidente(idLocalidad, i)];
+                total += pesosIncidentes[i];
+            }
+
+            // Las localidades donde no se puede construir la tabla no la tendrán en esta
+            // versión, así que el selector usará el método exacto para ellas
+            if (total > 0 && !Double.isInfinite(total)) {
+                toret = new TablaAlias(pesosIncidentes, grado);
+                tablasAlias.set(idLocalidad, toret);
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Eleva una base a un exponente, evitando la llamada a {@link Math#pow} en los exponentes
+     * más habituales.
+     * @param base La base.
+     * @param exponente El exponente.
+     * @return La base elevada al exponente.
+     */
+    private static double potencia(final double base, final double exponente) {
+        final double toret;
+
+        if (exponente == 1) {
+            toret = base;
+        } else if (exponente == 2) {
+            toret = base * base;
+        } else {
+            toret = Math.pow(base, exponente);
+        }
+
+        return toret;
+    }
+}
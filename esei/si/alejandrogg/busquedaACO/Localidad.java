@@ -2,13 +2,15 @@
 
 package esei.si.alejandrogg.busquedaACO;
 
-import java.util.concurrent.atomic.LongAdder;
-
 /**
  * Abstrae una localidad, que es un nodo de un grafo con un nombre textual.
  * @author Alejandro González García
  */
 public final class Localidad {
+	/**
+	 * El identificador de la localidad, que es único en el grafo al que pertenece.
+	 */
+	private final int id;
 	/**
 	 * El nombre de la localidad.
 	 */
@@ -23,39 +25,49 @@ public final class Localidad {
 	 * representa el grafo al que pertenece. Tal imagen está asociada con su vista.
 	 */
 	private final int y;
-    /**
-     * El sumador concurrente que mantiene el conteo del número de hormigas que hay
-     * actualmente en esta localidad.
-     */
-    private final LongAdder nHormigas = new LongAdder();
 
 	/**
 	 * Crea una nueva localidad.
+	 * @param id El identificador de la localidad, que debe de ser único en su grafo de carreteras.
+	 * Los identificadores de las localidades de un grafo deben de ser consecutivos, empezando en 0.
 	 * @param nombre El nombre de la localidad.
 	 * @param x La coordenada X (abscisa) del punto central de esta localidad.
 	 * @param y La coordenada Y (ordenada) del punto central de esta localidad.
 	 * @throws IllegalArgumentException Si el nombre es nulo o vacío (no contiene
 	 * caracteres, o los únicos caracteres que contiene son espacios), o alguna
-	 * coordenada es negativa.
+	 * coordenada o el identificador son negativos.
 	 */
-	public Localidad(final String nombre, final int x, final int y) {
+	public Localidad(final int id, final String nombre, final int x, final int y) {
 		if (nombre == null || nombre.trim().isEmpty()) {
 			throw new IllegalArgumentException("Las localidades no pueden tener un nombre nulo o vacío.");
 		}
+		if (id < 0) {
+			throw new IllegalArgumentException("El identificador de una localidad no puede ser menor que 0.");
+		}
 		if (x < 0 || y < 0) {
 			throw new IllegalArgumentException("Alguna coordenada es negativa, cuando no puede serlo.");
 		}
 
+		this.id = id;
 		this.nombre = nombre;
 		this.x = x;
 		this.y = y;
 	}
 
+	/**
+	 * Obtiene el identificador de esta localidad, que es único en el grafo de carreteras
+	 * al que pertenece.
+	 * @return El devandicho identificador.
+	 */
+	public int getId() {
+		return id;
+	}
+
 	/**
 	 * Obtiene el nombre de esta localidad.
 	 * @return El devandicho nombre.
 	 */
-	String getNombre() {
+	public String getNombre() {
 		return nombre;
 	}
 
@@ -63,7 +75,7 @@ public final class Localidad {
 	 * Obtiene la coordenada X (abscisa) del punto central de esta localidad.
 	 * @return La devandicha coordenada.
 	 */
-	int getX() {
+	public int getX() {
 		return x;
 	}
 
@@ -71,32 +83,10 @@ public final class Localidad {
 	 * Obtiene la coordenada Y (ordenada) del punto central de esta localidad.
 	 * @return La devandicha coordenada.
 	 */
-	int getY() {
+	public int getY() {
 		return y;
 	}
 
-    /**
-     * Obtiene el número de hormigas que hay actualmente en esta localidad.
-     * @return El devandicho número.
-     */
-    int numeroHormigas() {
-        return nHormigas.intValue();
-    }
-
-    /**
-     * Suma una hormiga más al número de hormigas que hay en esta localidad.
-     */
-    void addHormiga() {
-        nHormigas.increment();
-    }
-
-    /**
-     * Resta una hormiga del número de hormigas que hay en esta localidad.
-     */
-    void borrarHormiga() {
-        nHormigas.decrement();
-    }
-
     /**
      * {@inheritDoc} Se considera que dos localidades son iguales cuando tienen el mismo nombre.
      */
@@ -2,24 +2,76 @@
 
 package esei.si.alejandrogg.busquedaACO;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.logging.Level;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+
+import esei.si.alejandrogg.busquedaACO.util.LargosAtomicosPaginados;
 
 /**
  * Fabricación pura que se responsabiliza de mantener el control sobre
- * qué hormiga se encuentra en qué localidad en todo momento.
+ * qué hormiga se encuentra en qué localidad en todo momento. Las hormigas se
+ * identifican por el identificador denso que les asigna el {@link RegistroHormigas},
+ * y la ubicación de cada una se guarda en un array indexado por él.
+ *
+ * Tanto la ubicación de cada hormiga como el número de hormigas de cada localidad se
+ * guardan junto con el ciclo en el que se modificaron por última vez. Así, devolver a todas
+ * las hormigas a una localidad al empezar un nuevo ciclo consiste en avanzar el ciclo actual,
+ * sin recorrer las hormigas: las ubicaciones y los contadores de ciclos anteriores se
+ * interpretan, al leerlos, como si todas las hormigas estuviesen en esa localidad.
+ *
+ * El ciclo actual y el número de hormigas ubicadas comparten una misma palabra, de modo que
+ * empezar un ciclo toma una instantánea de ese número que es atómica respecto a la llegada y
+ * la desaparición de hormigas. Cuando una hormiga aparece o desaparece mientras empieza un
+ * ciclo, repite su contabilización en el ciclo nuevo.
  * @author Alejandro González García
  */
 final class LocalizadorHormigas {
+    /**
+     * El valor que indica que una hormiga no se encuentra en ninguna localidad.
+     */
+    private static final long SIN_UBICACION = -1;
+    /**
+     * El identificador de localidad que indica que no hay ninguna localidad.
+     */
+    private static final int SIN_LOCALIDAD = -1;
+
     /**
      * El mundo asociado a este localizador de hormigas, sobre el que brinda sus servicios.
      */
     private final Mundo mundo;
     /**
-     * El mapa que relaciona a cada hormiga con la localidad en la que se encuentra.
+     * La ubicación de cada hormiga, indexada por el identificador de la hormiga, o
+     * {@link SIN_UBICACION} si no está en ninguna. La ubicación empaqueta el ciclo en el
+     * que se registró, en los 32 bits más significativos, y el identificador de la localidad,
+     * en los 32 bits menos significativos.
+     */
+    private final LargosAtomicosPaginados ubicacionHormiga = new LargosAtomicosPaginados(SIN_UBICACION);
+    /**
+     * La variación del número de hormigas de cada localidad durante el ciclo actual, respecto
+     * a las que había al empezarlo, indexada por el identificador de la localidad. La variación
+     * empaqueta el ciclo en el que se modificó por última vez, en los 32 bits más significativos,
+     * y la variación en sí, en los 32 bits menos significativos. Las variaciones de ciclos
+     * anteriores equivalen a cero.
      */
-    private final Map<String, Localidad> ubicacionHormiga = new ConcurrentHashMap<>();
+    private final LargosAtomicosPaginados variacionHormigasLocalidad = new LargosAtomicosPaginados(0);
+    /**
+     * El ciclo actual, en los 32 bits más significativos, y el número de hormigas que se
+     * encuentran en alguna localidad, en los 32 bits menos significativos. Las ubicaciones
+     * registradas en ciclos anteriores se corresponden con la localidad de inicio del ciclo
+     * actual.
+     */
+    private final AtomicLong estado = new AtomicLong(0);
+    /**
+     * El comienzo de los dos últimos ciclos, indexado por la paridad del ciclo. Cada elemento
+     * empaqueta el identificador de la localidad en la que estaban todas las hormigas al empezar
+     * el ciclo, o {@link SIN_LOCALIDAD} si todavía no ha empezado ninguno, en los 32 bits más
+     * significativos, y el número de hormigas que había en ella, en los 32 bits menos significativos.
+     * Se escribe antes de avanzar el ciclo en {@link estado}, y se lee después.
+     */
+    private final AtomicLongArray inicioCiclo = new AtomicLongArray(new long[] {
+        empaquetar(SIN_LOCALIDAD, 0), empaquetar(SIN_LOCALIDAD, 0)
+    });
 
     /**
      * Crea un nuevo localizador de hormigas, asociado con un determinado mundo.
@@ -36,43 +88,52 @@ final class LocalizadorHormigas {
     /**
      * Registra el movimiento de una hormiga de la localidad en la que esté (si está en alguna)
      * a otra localidad. Este método es seguro en caso de ser llamado por varios hilos de manera concurrente.
-     * @param hormiga La hormiga cuyo movimiento registrar.
+     * @param hormiga El identificador de la hormiga cuyo movimiento registrar.
      * @param localidad La localidad a la que pasa a estar la hormiga.
-     * @throws IllegalArgumentException Si algún parámetro es nulo.
+     * @throws IllegalArgumentException Si la hormiga no está registrada o la localidad es nula.
      */
-    void mover(final String hormiga, final Localidad localidad) {
-        if (hormiga == null) {
-            throw new IllegalArgumentException("No se puede colocar una hormiga de nombre nulo en una localidad.");
+    void mover(final int hormiga, final Localidad localidad) {
+        if (hormiga < 0) {
+            throw new IllegalArgumentException("No se puede colocar una hormiga no registrada en una localidad.");
         }
         if (localidad == null) {
             throw new IllegalArgumentException("No se puede colocar una hormiga en una localidad nula.");
         }
 
-        // Javadoc del método compute: "The entire method invocation is performed atomically".
-        // De esta forma, nos ahorramos sincronización externa para hacer atómicas operaciones no atómicas:
-        // comprobar la localidad anterior en el mapa, y si es distinta de la nueva, borrar y añadir una hormiga
-        // en las localidades correspondientes
-        ubicacionHormiga.compute(hormiga, (final String ignorada, final Localidad locAnterior) -> {
-            if (locAnterior != localidad) {
-                // Eliminar la hormiga de la localidad anterior
-                if (locAnterior != null) {
-                    locAnterior.borrarHormiga();
-                    mundo.getLogger().log(Level.FINE, "La hormiga " + hormiga + " se desplaza de " + locAnterior + " a " + localidad + ".");
-                }
+        long estado = this.estado.get();
+        int ciclo = epoca(estado);
 
-                // Añadirla a la nueva localidad
-                localidad.addHormiga();
+        // Intercambiar la ubicación atómicamente nos dice cuál era la anterior, sin necesidad
+        // de sincronización externa para actualizar los contadores de ambas localidades
+        final int idAnterior = idLocalidad(ubicacionHormiga.getAndSet(hormiga, empaquetar(ciclo, localidad.getId())), ciclo);
+        if (idAnterior != localidad.getId()) {
+            // Eliminar la hormiga de la localidad anterior
+            if (idAnterior != SIN_LOCALIDAD) {
+                final Localidad locAnterior = mundo.getGrafoCarreteras().localidad(idAnterior);
+                variarHormigasLocalidad(idAnterior, -1, ciclo);
+                mundo.getLogger().log(Level.FINE, "La hormiga " + mundo.getRegistroHormigas().nombre(hormiga) + " se desplaza de " + locAnterior + " a " + localidad + ".");
+            } else {
+                // Contar la hormiga en el mismo ciclo en el que se ubicó. Si ha empezado otro
+                // entretanto, su instantánea no la incluye, así que hay que ubicarla en el nuevo
+                while (!this.estado.compareAndSet(estado, estado + 1)) {
+                    estado = this.estado.get();
+                    if (epoca(estado) != ciclo) {
+                        ciclo = epoca(estado);
+                        ubicacionHormiga.set(hormiga, empaquetar(ciclo, localidad.getId()));
+                    }
+                }
             }
 
-            return localidad;
-        });
+            // Añadirla a la nueva localidad
+            variarHormigasLocalidad(localidad.getId(), 1, ciclo);
+        }
     }
 
     /**
-     * Registra el movimiento de todas las hormigas de la localidad en la que estén a otra localidad.
-     * Este método no es seguro en caso de ser llamado por varios hilos de manera concurrente, pues
-     * no realiza sus acciones de manera atómica, y sería posible que otros hilos viesen resultados
-     * parciales.
+     * Registra el movimiento de todas las hormigas de la localidad en la que estén a otra localidad,
+     * empezando un nuevo ciclo. El coste de este método es constante, independientemente del número
+     * de hormigas. Este método no es seguro en caso de ser llamado de manera concurrente con él mismo,
+     * pero sí lo es respecto a los demás métodos.
      * @param localidad La localidad a la que pasan a estar las hormigas.
      * @throws IllegalArgumentException Si algún parámetro es nulo.
      */
@@ -81,25 +142,54 @@ final class LocalizadorHormigas {
             throw new IllegalArgumentException("No se pueden colocar hormigas en una localidad nula.");
         }
 
-        // Las expresiones lambda fueron un buen añadido a Java 8. ¿Acaso no es elegante, conciso y expresivo lo siguiente? :)
-        ubicacionHormiga.replaceAll((final String hormiga, final Localidad locAnterior) -> localidad);
+        long estado;
+
+        // La instantánea del número de hormigas ubicadas solo es válida si el ciclo avanza
+        // sin que ese número cambie
+        do {
+            estado = this.estado.get();
+            inicioCiclo.set((epoca(estado) + 1) & 1, empaquetar(localidad.getId(), (int) estado));
+        } while (!this.estado.compareAndSet(estado, estado + (1L << 32)));
     }
 
     /**
      * Provoca la desaparición de una hormiga del mapa, eliminando su ubicación registrada.
-     * @param hormiga La hormiga a borrar del mapa.
-     * @throws IllegalArgumentException Si el parámetro es nulo.
+     * @param hormiga El identificador de la hormiga a borrar del mapa.
      */
-    void desaparecer(final String hormiga) {
-        if (hormiga == null) {
-            throw new IllegalArgumentException("No se puede hacer desaparecer una hormiga nula.");
-        }
+    void desaparecer(final int hormiga) {
+        long estado = this.estado.get();
+        int ciclo = epoca(estado);
+        int idAnterior = hormiga < 0 ? SIN_LOCALIDAD : idLocalidad(ubicacionHormiga.getAndSet(hormiga, SIN_UBICACION), ciclo);
 
-        ubicacionHormiga.remove(hormiga).borrarHormiga();
+        if (idAnterior != SIN_LOCALIDAD) {
+            // Si ha empezado otro ciclo entretanto, su instantánea incluye a la hormiga en la
+            // localidad de inicio, así que hay que descontarla de ella
+            while (!this.estado.compareAndSet(estado, estado - 1)) {
+                estado = this.estado.get();
+                if (epoca(estado) != ciclo) {
+                    ciclo = epoca(estado);
+                    idAnterior = (int) (inicioCiclo.get(ciclo & 1) >> 32);
+                }
+            }
+            variarHormigasLocalidad(idAnterior, -1, ciclo);
+        }
     }
 
     /**
      * Obtiene la localidad en la que se encuentra actualmente una hormiga.
+     * @param hormiga El identificador de la hormiga cuya localidad actual obtener.
+     * @return La localidad en la que está la hormiga. Si la hormiga no se encuentra
+     * en ninguna localidad, lo cual puede pasar porque todavía no se ha registrado
+     * como tal, se devuelve el valor nulo.
+     */
+    Localidad ubicacion(final int hormiga) {
+        final int id = hormiga < 0 ? SIN_LOCALIDAD : idLocalidad(ubicacionHormiga.get(hormiga), epoca(estado.get()));
+
+        return id == SIN_LOCALIDAD ? null : mundo.getGrafoCarreteras().localidad(id);
+    }
+
+    /**
+     * Obtiene la localidad en la que se encuentra actualmente una hormiga, identificada por su nombre.
      * @param hormiga La hormiga cuya localidad actual obtener.
      * @return La localidad en la que está la hormiga. Si la hormiga no se encuentra
      * en ninguna localidad, lo cual puede pasar porque todavía no se ha registrado
@@ -111,6 +201,88 @@ final class LocalizadorHormigas {
             throw new IllegalArgumentException("No se puede obtener la ubicación de una hormiga nula.");
         }
 
-        return ubicacionHormiga.get(hormiga);
+        return ubicacion(mundo.getRegistroHormigas().identificador(hormiga));
+    }
+
+    /**
+     * Obtiene el número de hormigas que hay actualmente en una localidad.
+     * @param localidad La localidad.
+     * @return El devandicho número.
+     * @throws IllegalArgumentException Si la localidad es nula.
+     */
+    int numeroHormigas(final Localidad localidad) {
+        if (localidad == null) {
+            throw new IllegalArgumentException("No se puede obtener el número de hormigas de una localidad nula.");
+        }
+
+        final int ciclo = epoca(estado.get());
+        final long inicio = inicioCiclo.get(ciclo & 1);
+        final long variacion = variacionHormigasLocalidad.get(localidad.getId());
+        int toret = epoca(variacion) == ciclo ? (int) variacion : 0;
+
+        if (localidad.getId() == (int) (inicio >> 32)) {
+            toret += (int) inicio;
+        }
+
+        return toret;
+    }
+
+    /**
+     * Suma una cantidad a la variación del número de hormigas de una localidad durante un ciclo,
+     * considerando nula la variación registrada en ciclos anteriores. Si ya se ha registrado alguna
+     * variación en un ciclo posterior, el comienzo de ese ciclo engloba a la que se pretendía sumar,
+     * y no se suma nada.
+     * @param idLocalidad El identificador de la localidad.
+     * @param cantidad La cantidad a sumar.
+     * @param ciclo El ciclo en el que se produce la variación.
+     */
+    private void variarHormigasLocalidad(final int idLocalidad, final int cantidad, final int ciclo) {
+        long anterior;
+        boolean sumada = false;
+
+        do {
+            anterior = variacionHormigasLocalidad.get(idLocalidad);
+            if (epoca(anterior) - ciclo <= 0) {
+                final int variacion = epoca(anterior) == ciclo ? (int) anterior : 0;
+                sumada = variacionHormigasLocalidad.compareAndSet(idLocalidad, anterior, empaquetar(ciclo, variacion + cantidad));
+            }
+        } while (!sumada && epoca(anterior) - ciclo <= 0);
+    }
+
+    /**
+     * Interpreta la ubicación registrada de una hormiga, teniendo en cuenta que las ubicaciones
+     * registradas en ciclos anteriores se corresponden con la localidad de inicio del ciclo actual.
+     * @param ubicacion La ubicación registrada.
+     * @param ciclo El ciclo actual.
+     * @return El identificador de la localidad en la que está la hormiga, o {@link SIN_LOCALIDAD}
+     * si no está en ninguna.
+     */
+    private int idLocalidad(final long ubicacion, final int ciclo) {
+        int toret = SIN_LOCALIDAD;
+
+        if (ubicacion != SIN_UBICACION) {
+            toret = epoca(ubicacion) == ciclo ? (int) ubicacion : (int) (inicioCiclo.get(ciclo & 1) >> 32);
+        }
+
+        return toret;
+    }
+
+    /**
+     * Empaqueta un ciclo, o cualquier otro valor de 32 bits, y un valor de 32 bits en un entero largo.
+     * @param ciclo El ciclo, que ocupa los 32 bits más significativos.
+     * @param valor El valor, que ocupa los 32 bits menos significativos.
+     * @return El entero largo resultante.
+     */
+    private static long empaquetar(final int ciclo, final int valor) {
+        return ((long) ciclo << 32) | (valor & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Obtiene el ciclo empaquetado en un entero largo por {@link empaquetar}.
+     * @param empaquetado El entero largo.
+     * @return El ciclo.
+     */
+    private static int epoca(final long empaquetado) {
+        return (int) (empaquetado >>> 32);
     }
-}
\ No newline at end of file
+}
@@ -2,19 +2,23 @@
 
 package esei.si.alejandrogg.busquedaACO;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.Phaser;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.Lock;
@@ -24,6 +28,7 @@ import java.util.NoSuchElementException;
 
 import static java.lang.Thread.currentThread;
 
+import jason.asSyntax.Literal;
 import jason.asSyntax.Structure;
 import jason.environment.Environment;
 import jason.runtime.RuntimeServices;
@@ -82,16 +87,26 @@ public final class Mundo extends Environment {
      */
     private volatile Algoritmo algoritmo = null;
     /**
-     * El Phaser de Java que permite esperar a que todas las hormigas ejecuten sus acciones
-     * de entorno programadas.
+     * El número máximo de acciones de entorno programadas que ejecuta cada tarea del servicio
+     * de acciones de entorno, sin volver a dividirlas entre varias tareas. Es lo suficientemente
+     * grande como para que el coste de crear y planificar una tarea sea despreciable frente al de
+     * ejecutar sus acciones, y lo suficientemente pequeño como para que haya tareas que repartir
+     * entre los hilos con unos cientos de hormigas.
      */
-    private final Phaser ejecucionAcciones = new Phaser(1);
+    private static final int ACCIONES_POR_TAREA = 64;
+
     /**
      * Las acciones que han registrado su intención de ejecutarse, y todavía no lo hicieron. En caso de que las hormigas
      * envíen acciones tras notificar la terminación de sus respuestas, y antes del instante del tiempo siguiente,
      * éstas se ejecutarán en el instante de tiempo siguiente.
      */
     private final Queue<AccionProgramada> accionesProgramadas = new ConcurrentLinkedQueue<>();
+    /**
+     * Las acciones programadas que se ejecutan en el instante de tiempo actual, extraídas de
+     * {@link accionesProgramadas}. Solo la usa el hilo que simula los instantes de tiempo, y se
+     * reutiliza entre instantes para no reservar memoria en cada uno.
+     */
+    private final List<AccionProgramada> accionesInstante = new ArrayList<>();
     /**
      * El operador de acciones de entorno, que se encargará de responder apropiadamente a
      * las acciones sobre el entorno realizadas por los agentes.
@@ -99,25 +114,36 @@ public final class Mundo extends Environment {
     private final OperadorAccionesEntorno operadorAcciones = new OperadorAccionesEntorno(this);
     /**
      * El servicio de ejecución de tareas a usar para ejecutar las acciones del entorno cuando
-     * corresponda.
+     * corresponda. Tiene tantos hilos como procesadores, que se roban las tareas entre sí, de
+     * modo que el número de hilos no crece con el número de hormigas.
      */
-    private final Executor servicioAccionesEntorno = Executors.newCachedThreadPool();
-    /**
-     * El servicio de ejecución de tareas a usar para ejecutar el desplazamiento de todas las hormigas
-     * a la localidad de inicio en otro hilo.
-     */
-    private final ExecutorService servicioDesplazamientoHormigas = Executors.newSingleThreadExecutor();
+    private final ForkJoinPool servicioAccionesEntorno = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 
     /**
      * El objeto encargado de avanzar el tiempo de modo discreto en el sistema,
      * notificándoselo a los agentes.
      */
     private volatile Tiempo tiempo = null;
+    /**
+     * La tarea adicional a ejecutar cuando se notifica a las hormigas del paso del tiempo. Solo
+     * se usa cuando la simulación se ejecuta sin la infraestructura de Jason; en otro caso, es nula.
+     */
+    private volatile Runnable tareaPasoTiempo = null;
+    /**
+     * La tarea adicional a ejecutar cuando se notifica a las hormigas la llegada de un nuevo ciclo.
+     * Solo se usa cuando la simulación se ejecuta sin la infraestructura de Jason; en otro caso, es nula.
+     */
+    private volatile Runnable tareaSiguienteCiclo = null;
 	/**
 	 * El grafo de carreteras, que representa las interconexiones entre localidades
 	 * y sus distancias, sobre las que los agentes harán su cometido.
 	 */
 	private volatile GrafoCarreteras grafoCarreteras = null;
+    /**
+     * El selector de localidad siguiente asociado al grafo de carreteras, que escoge la
+     * localidad a la que se desplazarán las hormigas.
+     */
+    private volatile SelectorLocalidadSiguiente selectorLocalidadSiguiente = null;
 	/**
 	 * La localidad de inicio, desde la que las hormigas intentarán encontrar el
 	 * camino más corto a la de destino.
@@ -178,6 +204,13 @@ public final class Mundo extends Environment {
      * hormigas que se incorporen al SMA.
      */
     private volatile short segundosEsperaRespuesta = Short.MIN_VALUE;
+    /**
+     * Si es verdadero, las acciones irA se ejecutan en cuanto las hormigas las envían, mientras se
+     * espera por sus respuestas a la percepción de avance de tiempo, en vez de después de recibir
+     * todas las respuestas. Así, la duración de un instante de tiempo depende de la respuesta más
+     * lenta, y no de ella más la de ejecutar todas las acciones.
+     */
+    private volatile boolean accionesInmediatas = false;
     /**
      * El número de hormigas que se espera que estén vivas en el sistema en todo momento.
      */
@@ -188,6 +221,21 @@ public final class Mundo extends Environment {
      * coordinará para mentener actualizadas las percepciones de los agentes.
      */
     private volatile GestorPercepciones gp = null;
+    /**
+     * Las percepciones comunes a todos los agentes, indexadas para que reemplazarlas tenga un
+     * coste constante. Sustituye a la lista de percepciones de {@link Environment}.
+     */
+    private final TablaPercepciones tablaPercepciones = new TablaPercepciones();
+    /**
+     * Las últimas percepciones que ha recibido cada agente, para no volver a enviárselas si no
+     * han cambiado.
+     */
+    private final Map<String, PercepcionesRecibidas> percepcionesRecibidas = new ConcurrentHashMap<>();
+    /**
+     * El registro que asigna a cada hormiga que llega al sistema un identificador entero denso,
+     * con el que el resto de clases del entorno indexan la información de cada hormiga.
+     */
+    private final RegistroHormigas registroHormigas = new RegistroHormigas();
     /**
      * Referencia al objeto que proporciona servicios de ubicación de hormigas
      * para este mundo.
@@ -202,7 +250,7 @@ public final class Mundo extends Environment {
         nHormigas.increment();
 
         // Añadir la hormiga a la localidad de inicio
-        getLocalizadorHormigas().mover(nombre, locInicio);
+        getLocalizadorHormigas().mover(registroHormigas.identificador(nombre), locInicio);
 
         // Si no estamos esperando a que lleguen las hormigas, actualizar la vista
         // La vista puede ser nula si el SMA se está deteniendo por un error, pero llega una hormiga mientras tanto
@@ -212,15 +260,18 @@ public final class Mundo extends Environment {
 
         getLogger().log(Level.INFO, "Detectada nueva hormiga en el sistema: " + nombre);
     }, (final String nombre) -> {
+        final int id = registroHormigas.identificador(nombre);
+
         // Decrementar el número de hormigas presentes en el sistema
         nHormigas.decrement();
 
         // Eliminar a la hormiga de donde quiera que esté
-        getLocalizadorHormigas().desaparecer(nombre);
+        getLocalizadorHormigas().desaparecer(id);
+        percepcionesRecibidas.remove(nombre);
 
         // Si hemos cargado un algoritmo desde la configuración, notificarle la ida
         if (algoritmo != null) {
-            algoritmo.notificarMuerteHormiga(nombre);
+            algoritmo.notificarMuerteHormiga(id);
         }
 
         // Actualizar la vista, para mostrar el nuevo número de hormigas
@@ -432,10 +483,48 @@ public final class Mundo extends Environment {
                     toret = false;
                 }
 
+                return toret;
+            }
+        },
+        ACCIONES_INMEDIATAS {
+            @Override
+            boolean interpretar(final Mundo m, final String arg) {
+                boolean toret = true;
+
+                try {
+                    m.accionesInmediatas = interpretarBooleano(m, arg, "El parámetro que indica si ejecutar inmediatamente las acciones de desplazamiento de las hormigas debe de ser true o false.");
+                } catch (IllegalArgumentException exc) {
+                    toret = false;
+                }
+
                 return toret;
             }
         };
 
+        /**
+         * Interpreta un parámetro de configuración representado por un valor de verdad, a partir de una
+         * cadena de texto, mostrando un mensaje de error al usuario si no es true ni false.
+         * @param m El mundo vinculado con este parámetro de configuración.
+         * @param arg El parámetro de configuración expresado como una cadena de texto.
+         * @param mensajeError El mensaje de error a mostrar al usuario si el parámetro no es un valor de verdad.
+         * @return El valor de verdad interpretado.
+         * @throws IllegalArgumentException Si el parámetro no es true ni false.
+         */
+        final protected boolean interpretarBooleano(final Mundo m, final String arg, final String mensajeError) {
+            final boolean toret;
+
+            if ("true".equals(arg)) {
+                toret = true;
+            } else if ("false".equals(arg)) {
+                toret = false;
+            } else {
+                m.getLogger().log(Level.SEVERE, mensajeError);
+                throw new IllegalArgumentException();
+            }
+
+            return toret;
+        }
+
         /**
          * Interpreta un parámetro de configuración representado por un número real positivo y finito,
          * a partir de una cadena de texto, mostrando un mensaje de error al usuario si el número no es tal.
@@ -600,113 +689,12 @@ public final class Mundo extends Environment {
                 }
 
                 // Empezar el avance del tiempo discreto de la simulación
-                tiempo = new Tiempo(Mundo.this, () -> {
-                    boolean pararAvanceTiempo = false;
-
-                    // Notificar a los agentes del paso del tiempo, y esperar a que hagan lo que tengan que hacer
-                    coordinadorHormigas.esperarRespuestaHormigas(() -> gp.percibirPasoTiempo(), segundosEsperaRespuesta);
-
-                    // Ahora, cuando todas las hormigas respondieron, es la hora de ejecutar
-                    // las acciones del entorno
-                    final long inicioEjecucionAcciones = System.currentTimeMillis();
-                    getLogger().log(Level.INFO, "Ejecutando acciones sobre el entorno enviadas por las hormigas...");
-
-                    AccionProgramada accion = accionesProgramadas.poll();
-                    while (accion != null) {
-                        // Registrar una nueva acción a ejecutar
-                        ejecucionAcciones.register();
-
-                        // Realizar la acción en otro hilo de ejecución
-                        servicioAccionesEntorno.execute(new TareaAccionEntorno(accion));
-
-                        // Consumir la siguiente acción en la cola
-                        accion = accionesProgramadas.poll();
-                    }
-
-                    // Esperar hasta que nos interrumpan o las acciones terminen de ejecutarse
-                    boolean esperaCompletada = false;
-                    while (!esperaCompletada) {
-                        try {
-                            ejecucionAcciones.awaitAdvanceInterruptibly(ejecucionAcciones.arrive(), 30, TimeUnit.SECONDS);
-                            esperaCompletada = true;
-                        } catch (TimeoutException exc) {
-                            getLogger().log(Level.WARNING, "Se está tardando más de 30 segundos en ejecutar las acciones del entorno programadas. Si la espera tarda demasiado, por favor reinicie el sistema o interrumpa este hilo.");
-                        } catch (InterruptedException exc) {
-                            getLogger().log(Level.WARNING, "Se ha interrumpido el hilo que esperaba a que finalizase la ejecución de las acciones en el entorno. El hilo hará caso a la interrupción y abandonará la espera, pero ello puede volver inestable al sistema.");
-                            pararAvanceTiempo = true;
-                        }
-                    }
-
-                    getLogger().log(Level.INFO, "Acciones sobre el entorno ejecutadas en " + ((System.currentTimeMillis() - inicioEjecucionAcciones) / 1000.0) + " s.");
-
-                    // Avanzamos a la siguiente iteración del algoritmo
-                    final long inicioAvanceIteracion = System.currentTimeMillis();
-                    getLogger().log(Level.INFO, "Avanzando a la siguiente iteración...");
-                    boolean avanceNuevoCiclo = false;
-                    try {
-                        avanceNuevoCiclo = algoritmo.avanzarIteracion();
-                    } catch (Exception exc) {
-                        getLogger().log(Level.WARNING, "Ha ocurrido una excepción no controlada mientras el algoritmo avanzaba a la siguiente iteración.", exc);
-                    }
-                    getLogger().log(Level.INFO, "Se ha avanzado a la siguiente iteración en " + ((System.currentTimeMillis() - inicioAvanceIteracion) / 1000.0) + " s.");
-
-                    // En caso de que se empiece un nuevo ciclo, mover todas las hormigas
-                    // a la localidad de inicio
-                    if (avanceNuevoCiclo) {
-                        final long inicioAvanceCiclo = System.currentTimeMillis();
-                        getLogger().log(Level.INFO, "El algoritmo indica el comienzo de un nuevo ciclo. Avisando a hormigas del comienzo del nuevo ciclo...");
-
-                        // Ir ejecutando el movimiento de todas las hormigas a la localidad de inicio
-                        // en otro hilo. De esta forma podríamos hacer algo útil mientras esperamos
-                        // por las respuestas a las percepciones
-                        final Future<?> terminacionMovimiento = servicioDesplazamientoHormigas.submit(() -> {
-                            localizadorHormigas.moverTodasALocalidad(locInicio);
-                        });
-
-                        // Esperar a que informen de la recepción de la percepción
-                        coordinadorHormigas.esperarRespuestaHormigas(() -> {
-                            gp.siguienteCiclo();
-                        }, segundosEsperaRespuesta);
-
-                        // Esperar a que se terminen de mover las hormigas a la localidad de inicio:
-                        // nada garantiza que ello se termine antes que la respuesta de los agentes
-                        try {
-                            terminacionMovimiento.get();
-                        } catch (ExecutionException exc) {
-                            getLogger().log(Level.WARNING, "Ha ocurrido una excepción no controlada mientras se movían hormigas a la localidad de inicio. El sistema no funcionará correctamente a partir de ahora, y se recomienda su detención. Detalles: ", exc);
-                        } catch (InterruptedException exc) {
-                            getLogger().log(Level.WARNING, "Se ha interrumpido la espera a que todas las hormigas se colocasen de nuevo en la localidad de inicio.");
-                            pararAvanceTiempo = true;
-                        }
-
-                        getLogger().log(Level.INFO, "Avance de ciclo completado en " + ((System.currentTimeMillis() - inicioAvanceCiclo) / 1000.0) + " s.");
-                    }
-
-                    // Si el algoritmo ha terminado, dejar de avanzar el tiempo, pues no hay más que hacer
-                    final RazonTerminacion razonTerminacion = algoritmo.razonTerminacion();
-                    if (razonTerminacion != null) {
-                        getLogger().log(Level.INFO, "El algoritmo ha terminado de ejecutarse: " + razonTerminacion + ".");
-                        pararAvanceTiempo = true;
-                    }
-
-                    // Finalmente, actualizar la vista mostrada al usuario
-                    if (vista != null) {
-                        vista.actualizar();
-                    }
-
-                    return pararAvanceTiempo;
-                }, milisegundosPeriodoTiempo).iniciar();
+                tiempo = new Tiempo(Mundo.this, Mundo.this::simularInstanteTiempo, milisegundosPeriodoTiempo).iniciar();
             }, segundosEsperaInicio);
 
             // Avisar a hilos interesados de que nos hemos inicializado, poniendo a su disposición
             // la referencia a esta instancia
-            candadoInicializacion.lock();
-            try {
-                mundoInicializado.signalAll();
-                instancia = this;
-            } finally {
-                candadoInicializacion.unlock();
-            }
+            publicarInstancia();
 
             // Inicializar la vista asociada al mundo. Lo hacemos algo tarde, aún tras
             // avisar a otros hilos de que hemos completado la inicialización del Mundo,
@@ -715,7 +703,12 @@ public final class Mundo extends Environment {
             // nunca proporciona una referencia a la vista a otros objetos, gracias a la encapsulación :)
             try {
                 vista = new VistaGrafo(grafoCarreteras, grafoCarreteras.getNombre() + ".png");
-            } catch (NullPointerException | IllegalArgumentException | IllegalStateException exc) {
+            } catch (IllegalArgumentException exc) {
+                // Los mapas leídos de ficheros no suelen tener una imagen de fondo asociada, y
+                // pueden ser demasiado grandes como para dibujarlos. La simulación no depende
+                // de la vista, así que continuar sin ella
+                getLogger().log(Level.WARNING, "No se mostrará una vista del mapa " + grafoCarreteras.getNombre() + ": " + exc.getMessage());
+            } catch (NullPointerException | IllegalStateException exc) {
                 detenerSMA = true;
             }
 		}
@@ -737,6 +730,188 @@ public final class Mundo extends Environment {
 		}
     }
 
+    /**
+     * Inicializa este mundo para ejecutar la simulación sin la infraestructura de Jason, y por tanto
+     * sin agentes AgentSpeak ni vista. En este modo de ejecución no se espera por la llegada de hormigas,
+     * ni se avanza el tiempo en otro hilo: es responsabilidad de quien llama a este método registrar las
+     * hormigas mediante el {@link CoordinadorHormigas} e invocar {@link simularInstanteTiempo} hasta que
+     * la simulación termine. Las percepciones se siguen manteniendo como de costumbre, de forma que el
+     * protocolo de acciones de entorno de las hormigas es el mismo.
+     * @param args Los argumentos del mundo, en el mismo orden y con el mismo significado que los
+     * especificados en el fichero .mas2j.
+     * @param tareaPasoTiempo La tarea a ejecutar cuando se notifique a las hormigas del paso del tiempo,
+     * tras actualizar las percepciones. Debe de provocar, de manera asíncrona, que las hormigas respondan.
+     * @param tareaSiguienteCiclo La tarea a ejecutar cuando se notifique a las hormigas de la llegada de
+     * un nuevo ciclo, tras actualizar las percepciones. Debe de provocar, de manera asíncrona, que las
+     * hormigas respondan.
+     * @throws IllegalArgumentException Si alguna tarea es nula.
+     * @throws IllegalStateException Si no se han podido interpretar los argumentos del mundo.
+     */
+    void iniciarSinInfraestructura(final String[] args, final Runnable tareaPasoTiempo, final Runnable tareaSiguienteCiclo) {
+        if (tareaPasoTiempo == null || tareaSiguienteCiclo == null) {
+            throw new IllegalArgumentException("Las tareas de notificación a las hormigas de una simulación sin infraestructura no pueden ser nulas.");
+        }
+
+        if (!interpretarArgumentos(args)) {
+            throw new IllegalStateException("Ha ocurrido un error interpretando algún parámetro proporcionado al mundo.");
+        }
+
+        this.tareaPasoTiempo = tareaPasoTiempo;
+        this.tareaSiguienteCiclo = tareaSiguienteCiclo;
+
+        publicarInstancia();
+    }
+
+    /**
+     * Detiene la ejecución de los servicios de tareas asociados a este mundo, y el avance del tiempo
+     * si se ha iniciado.
+     */
+    @Override
+    public void stop() {
+        super.stop();
+
+        if (tiempo != null) {
+            tiempo.parar();
+        }
+        servicioAccionesEntorno.shutdown();
+        if (algoritmo != null) {
+            algoritmo.detener();
+        }
+    }
+
+    /**
+     * Avisa a hilos interesados de que este mundo se ha inicializado, poniendo a su
+     * disposición la referencia a esta instancia mediante {@link get}.
+     */
+    private void publicarInstancia() {
+        candadoInicializacion.lock();
+        try {
+            mundoInicializado.signalAll();
+            instancia = this;
+        } finally {
+            candadoInicializacion.unlock();
+        }
+    }
+
+    /**
+     * Simula un instante de tiempo discreto del SMA: notifica a las hormigas del paso del tiempo,
+     * espera por sus respuestas, ejecuta las acciones de entorno que enviaron y avanza el algoritmo
+     * a la siguiente iteración, empezando un nuevo ciclo si procede. Este método no está diseñado
+     * para ser ejecutado por varios hilos de ejecución en paralelo.
+     * @return Verdadero si y solo si se debe de detener el avance del tiempo, porque el algoritmo
+     * ha terminado o el hilo actual ha sido interrumpido.
+     */
+    boolean simularInstanteTiempo() {
+        boolean pararAvanceTiempo = false;
+
+        // Notificar a los agentes del paso del tiempo, y esperar a que hagan lo que tengan que hacer
+        coordinadorHormigas.esperarRespuestaHormigas(() -> {
+            gp.percibirPasoTiempo();
+
+            if (tareaPasoTiempo != null) {
+                tareaPasoTiempo.run();
+            }
+        }, segundosEsperaRespuesta, accionesInmediatas);
+
+        // Ahora, cuando todas las hormigas respondieron, es la hora de ejecutar
+        // las acciones del entorno
+        final long inicioEjecucionAcciones = System.currentTimeMillis();
+        getLogger().log(Level.INFO, "Ejecutando acciones sobre el entorno enviadas por las hormigas...");
+
+        // Las acciones que no modifican el entorno no entran en conflicto con ninguna otra, y
+        // son tan baratas que es más rápido ejecutarlas aquí que planificarlas en otro hilo
+        AccionProgramada accion = accionesProgramadas.poll();
+        while (accion != null) {
+            if (operadorAcciones.modificaEntorno(accion.getAccion())) {
+                accionesInstante.add(accion);
+            } else {
+                ejecutarAccionProgramada(accion);
+            }
+
+            // Consumir la siguiente acción en la cola
+            accion = accionesProgramadas.poll();
+        }
+
+        // Repartir el resto de acciones en lotes entre los hilos del servicio, y esperar una
+        // única vez hasta que nos interrumpan o terminen de ejecutarse
+        if (!accionesInstante.isEmpty()) {
+            final ForkJoinTask<Void> ejecucionAcciones = servicioAccionesEntorno.submit(
+                new TareaAccionesEntorno(accionesInstante, 0, accionesInstante.size())
+            );
+
+            boolean esperaCompletada = false;
+            while (!esperaCompletada) {
+                try {
+                    ejecucionAcciones.get(30, TimeUnit.SECONDS);
+                    esperaCompletada = true;
+                } catch (TimeoutException exc) {
+                    getLogger().log(Level.WARNING, "Se está tardando más de 30 segundos en ejecutar las acciones del entorno programadas. Si la espera tarda demasiado, por favor reinicie el sistema o interrumpa este hilo.");
+                } catch (ExecutionException exc) {
+                    getLogger().log(Level.WARNING, "Ha ocurrido una excepción no controlada mientras se ejecutaban las acciones en el entorno. Se continúa la ejecución del SMA igualmente. Detalles: ", exc);
+                    esperaCompletada = true;
+                } catch (InterruptedException exc) {
+                    getLogger().log(Level.WARNING, "Se ha interrumpido el hilo que esperaba a que finalizase la ejecución de las acciones en el entorno. El hilo hará caso a la interrupción y abandonará la espera, pero ello puede volver inestable al sistema.");
+                    pararAvanceTiempo = true;
+                    esperaCompletada = true;
+                }
+            }
+
+            accionesInstante.clear();
+        }
+
+        getLogger().log(Level.INFO, "Acciones sobre el entorno ejecutadas en " + ((System.currentTimeMillis() - inicioEjecucionAcciones) / 1000.0) + " s.");
+
+        // Avanzamos a la siguiente iteración del algoritmo
+        final long inicioAvanceIteracion = System.currentTimeMillis();
+        getLogger().log(Level.INFO, "Avanzando a la siguiente iteración...");
+        boolean avanceNuevoCiclo = false;
+        try {
+            avanceNuevoCiclo = algoritmo.avanzarIteracion();
+        } catch (Exception exc) {
+            getLogger().log(Level.WARNING, "Ha ocurrido una excepción no controlada mientras el algoritmo avanzaba a la siguiente iteración.", exc);
+        }
+        // Recalcular los pesos de elección de las carreteras si el algoritmo ha cambiado la
+        // feromona, antes de que las hormigas vuelvan a escoger localidades
+        selectorLocalidadSiguiente.actualizarInformacionEleccion();
+        getLogger().log(Level.INFO, "Se ha avanzado a la siguiente iteración en " + ((System.currentTimeMillis() - inicioAvanceIteracion) / 1000.0) + " s.");
+
+        // En caso de que se empiece un nuevo ciclo, mover todas las hormigas
+        // a la localidad de inicio
+        if (avanceNuevoCiclo) {
+            final long inicioAvanceCiclo = System.currentTimeMillis();
+            getLogger().log(Level.INFO, "El algoritmo indica el comienzo de un nuevo ciclo. Avisando a hormigas del comienzo del nuevo ciclo...");
+
+            // Mover todas las hormigas a la localidad de inicio. Esto solo avanza el ciclo del
+            // localizador, así que no merece la pena hacerlo en otro hilo
+            localizadorHormigas.moverTodasALocalidad(locInicio);
+
+            // Esperar a que informen de la recepción de la percepción
+            coordinadorHormigas.esperarRespuestaHormigas(() -> {
+                gp.siguienteCiclo();
+
+                if (tareaSiguienteCiclo != null) {
+                    tareaSiguienteCiclo.run();
+                }
+            }, segundosEsperaRespuesta);
+
+            getLogger().log(Level.INFO, "Avance de ciclo completado en " + ((System.currentTimeMillis() - inicioAvanceCiclo) / 1000.0) + " s.");
+        }
+
+        // Si el algoritmo ha terminado, dejar de avanzar el tiempo, pues no hay más que hacer
+        final RazonTerminacion razonTerminacion = algoritmo.razonTerminacion();
+        if (razonTerminacion != null) {
+            getLogger().log(Level.INFO, "El algoritmo ha terminado de ejecutarse: " + razonTerminacion + ".");
+            pararAvanceTiempo = true;
+        }
+
+        // Finalmente, actualizar la vista mostrada al usuario
+        if (vista != null) {
+            vista.actualizar();
+        }
+
+        return pararAvanceTiempo;
+    }
+
 	/**
 	 * Interpreta los argumentos especificados para el entorno en el fichero .mas2j,
 	 * inicializando atributos de este objeto.
@@ -765,6 +940,12 @@ public final class Mundo extends Environment {
 			getLogger().log(Level.SEVERE, "No se ha recibido el número de parámetros esperado para inicializar el mundo.");
 		}
 
+		// Precalcular los pesos de elección de las carreteras, que dependen del grafo y de
+		// los exponentes de importancia ya interpretados
+		if (toret) {
+			selectorLocalidadSiguiente = new SelectorLocalidadSiguiente(grafoCarreteras, alfa, beta);
+		}
+
 		return toret;
 	}
 
@@ -839,10 +1020,11 @@ public final class Mundo extends Environment {
     }
 
     /**
-     * Obtiene la instancia del gestor de percepciones en uso por este mundo.
+     * Obtiene la instancia del gestor de percepciones en uso por este mundo. Este método
+     * está concebido para ser usado por las acciones internas de los agentes hormiga.
      * @return El devandicho objeto.
      */
-    GestorPercepciones getGestorPercepciones() {
+    public GestorPercepciones getGestorPercepciones() {
         return gp;
     }
 
@@ -854,6 +1036,14 @@ public final class Mundo extends Environment {
         return localizadorHormigas;
     }
 
+    /**
+     * Obtiene el registro que asigna identificadores a las hormigas de este mundo.
+     * @return El devandicho registro.
+     */
+    RegistroHormigas getRegistroHormigas() {
+        return registroHormigas;
+    }
+
     /**
      * Devuelve el algoritmo de control de feromona actualmente en uso por el SMA.
      * @return El devandicho algoritmo.
@@ -862,13 +1052,22 @@ public final class Mundo extends Environment {
         return algoritmo;
     }
 
+    /**
+     * Obtiene el selector de localidad siguiente asociado al grafo de carreteras de este mundo.
+     * Este método está concebido para ser usado por las acciones internas de los agentes hormiga.
+     * @return El devandicho selector.
+     */
+    public SelectorLocalidadSiguiente getSelectorLocalidadSiguiente() {
+        return selectorLocalidadSiguiente;
+    }
+
     /**
      * Obtiene el número de localidades presentes en el grafo de carreteras asociado
      * a este mundo.
      * @return El devandicho número.
      */
     public int getNumeroLocalidades() {
-        return grafoCarreteras.localidades().size();
+        return grafoCarreteras.numeroLocalidades();
     }
 
     /**
@@ -881,20 +1080,123 @@ public final class Mundo extends Environment {
         return coordinadorHormigas;
     }
 
+    /**
+     * Registra el número de argumentos que identifican a las percepciones con un funtor y aridad
+     * dados, de modo que añadir una percepción reemplace a la que tuviese los mismos argumentos
+     * clave con un coste constante. Este método está concebido para ser usado por el gestor de
+     * percepciones, antes de añadir percepciones con ese funtor.
+     * @param funtor El funtor de las percepciones.
+     * @param aridad La aridad de las percepciones.
+     * @param numeroArgumentosClave El número de argumentos, empezando por el primero, que
+     * identifican a cada percepción.
+     */
+    void indexarPercepciones(final String funtor, final int aridad, final int numeroArgumentosClave) {
+        tablaPercepciones.indexar(funtor, aridad, numeroArgumentosClave);
+    }
+
+    /**
+     * Añade una percepción común a todos los agentes, reemplazando la que tuviese sus mismos
+     * argumentos clave, si existe, con un coste constante.
+     * @param percepcion La percepción a añadir.
+     */
+    void reemplazarPercepcion(final Literal percepcion) {
+        tablaPercepciones.reemplazar(percepcion);
+    }
+
+    /**
+     * {@inheritDoc} Las percepciones se guardan en una tabla indexada, y reemplazan a las que
+     * tengan sus mismos argumentos clave.
+     */
+    @Override
+    public void addPercept(final Literal... percepciones) {
+        if (percepciones != null) {
+            for (final Literal percepcion : percepciones) {
+                tablaPercepciones.reemplazar(percepcion);
+            }
+        }
+    }
+
+    @Override
+    public boolean removePercept(final Literal percepcion) {
+        return percepcion != null && tablaPercepciones.eliminar(percepcion);
+    }
+
+    /**
+     * {@inheritDoc} Si los argumentos clave del literal no tienen variables, esta operación
+     * tiene un coste constante.
+     */
+    @Override
+    public int removePerceptsByUnif(final Literal literal) {
+        return literal == null ? 0 : tablaPercepciones.eliminarPorUnificacion(literal);
+    }
+
+    @Override
+    public boolean containsPercept(final Literal percepcion) {
+        return percepcion != null && tablaPercepciones.contiene(percepcion);
+    }
+
+    @Override
+    public void clearPercepts() {
+        tablaPercepciones.vaciar();
+    }
+
+    /**
+     * {@inheritDoc} Cada agente recibe las percepciones comunes de la tabla indexada de este mundo,
+     * que se comparten entre todos los agentes y no deben de modificarse, y las percepciones del
+     * vecindario de la localidad donde está. Las percepciones particulares de cada agente de
+     * {@link Environment} no se usan en este SMA.
+     */
+    @Override
+    public Collection<Literal> getPercepts(final String agName) {
+        Collection<Literal> toret = null;
+
+        final GestorPercepciones gp = this.gp;
+        final PercepcionesRecibidas nuevas = new PercepcionesRecibidas(
+            tablaPercepciones.instantanea(),
+            localizadorHormigas.ubicacion(agName),
+            gp == null ? 0 : gp.getPublicacionesFeromona()
+        );
+
+        // Solo enviar las percepciones si alguna ha cambiado desde la última vez
+        if (!nuevas.equals(percepcionesRecibidas.put(agName, nuevas))) {
+            if (gp == null || nuevas.ubicacion == null) {
+                toret = nuevas.comunes;
+            } else {
+                final List<Literal> vecindario = gp.percepcionesVecindario(nuevas.ubicacion);
+                vecindario.addAll(nuevas.comunes);
+                toret = vecindario;
+            }
+        }
+
+        return toret;
+    }
+
     @Override
     public void scheduleAction(final String agName, final Structure action, final Object infraData) {
         boolean ejecucionExitosa = true;
 
         try {
+            // Traducir el nombre de la hormiga a su identificador una única vez
+            final int idHormiga = registroHormigas.identificador(agName);
+
             // Solo programar la ejecución si es una acción válida
-            if (operadorAcciones.esAccionValida(agName, action)) {
+            if (operadorAcciones.esAccionValida(idHormiga, action)) {
                 getLogger().log(Level.FINE, "La hormiga " + agName + " envió la respuesta " + action.getFunctor() + ".");
 
-                // Añadir a la cola de acciones programadas
-                accionesProgramadas.add(new AccionProgramada(agName, action));
+                // Los desplazamientos solo afectan a la ubicación de la hormiga y a contadores por
+                // carretera, así que se pueden ejecutar ya, en el hilo de la hormiga, si se admite.
+                // En otro caso, o si ya no se está esperando por la respuesta de la hormiga, se
+                // añaden a la cola de acciones programadas, como el resto de acciones
+                final boolean ejecutadaInmediatamente = accionesInmediatas && "irA".equals(action.getFunctor()) &&
+                    coordinadorHormigas.respuestaInmediataHormiga(idHormiga, () -> operadorAcciones.ejecutarAccion(idHormiga, action));
+
+                if (!ejecutadaInmediatamente) {
+                    // Añadir a la cola de acciones programadas
+                    accionesProgramadas.add(new AccionProgramada(idHormiga, action));
 
-                // Finalmente, podemos decir que la hormiga ha ejecutado una respuesta
-                coordinadorHormigas.respuestaHormiga(agName);
+                    // Finalmente, podemos decir que la hormiga ha ejecutado una respuesta
+                    coordinadorHormigas.respuestaHormiga(idHormiga);
+                }
             } else {
                 throw new UnsupportedOperationException("La acción de entorno \"" + (action != null ? action.getFunctor() : "(nula)") + "\" no existe, o no puede ser ejecutada por " + agName + " en este momento.");
             }
@@ -903,8 +1205,10 @@ public final class Mundo extends Environment {
             getLogger().log(Level.WARNING, "Ha ocurrido una excepción no controlada durante la programación de una acción de entorno: ", exc);
             ejecucionExitosa = false;
         } finally {
-            // Avisar a la infraestructura de que la ejecución de la acción ha terminado
-            getEnvironmentInfraTier().actionExecuted(agName, action, ejecucionExitosa, infraData);
+            // Avisar a la infraestructura de que la ejecución de la acción ha terminado, si la hay
+            if (getEnvironmentInfraTier() != null) {
+                getEnvironmentInfraTier().actionExecuted(agName, action, ejecucionExitosa, infraData);
+            }
         }
     }
 
@@ -914,9 +1218,9 @@ public final class Mundo extends Environment {
      */
     private static final class AccionProgramada {
         /**
-         * La hormiga responsable de la acción.
+         * El identificador de la hormiga responsable de la acción.
          */
-        private final String hormiga;
+        private final int hormiga;
         /**
          * La acción que la hormiga desea ejecutar.
          */
@@ -924,19 +1228,19 @@ public final class Mundo extends Environment {
 
         /**
          * Crea una nueva acción programada a cargo de una hormiga.
-         * @param hormiga La hormiga responsable.
+         * @param hormiga El identificador de la hormiga responsable.
          * @param accion La acción que desea ejecutar.
          */
-        AccionProgramada(final String hormiga, final Structure accion) {
+        AccionProgramada(final int hormiga, final Structure accion) {
             this.hormiga = hormiga;
             this.accion = accion;
         }
 
         /**
-         * Obtiene la hormiga responsable de esta acción.
-         * @return La devandicha hormiga.
+         * Obtiene el identificador de la hormiga responsable de esta acción.
+         * @return El devandicho identificador.
          */
-        String getHormiga() {
+        int getHormiga() {
             return hormiga;
         }
 
@@ -950,40 +1254,127 @@ public final class Mundo extends Environment {
     }
 
     /**
-     * Implementa la lógica necesaria para ejecutar una {@link AccionProgramada}
-     * determinada en otro hilo de ejecución.
+     * Ejecuta una {@link AccionProgramada} en el hilo actual, registrando las excepciones que
+     * se produzcan en vez de propagarlas.
+     * @param accion La acción a ejecutar. No se comprueba que no sea nula.
+     */
+    private void ejecutarAccionProgramada(final AccionProgramada accion) {
+        final int idHormiga = accion.getHormiga();
+        final Structure estructuraAccion = accion.getAccion();
+
+        try {
+            operadorAcciones.ejecutarAccion(idHormiga, estructuraAccion);
+            getLogger().log(Level.FINE, "La hormiga " + registroHormigas.nombre(idHormiga) + " ha ejecutado la acción " + estructuraAccion + " sobre el entorno.");
+        } catch (Exception exc) {
+            getLogger().log(Level.WARNING, "Ha ocurrido una excepción no controlada durante la ejecución de una acción en el entorno para la hormiga " + registroHormigas.nombre(idHormiga) + ". Se continúa la ejecución del SMA igualmente. Detalles: ", exc);
+        }
+    }
+
+    /**
+     * Implementa la lógica necesaria para ejecutar un intervalo de una lista de
+     * {@link AccionProgramada} en los hilos de un {@link ForkJoinPool}. Si el intervalo
+     * tiene más de {@link ACCIONES_POR_TAREA} acciones, se divide en dos mitades que se
+     * ejecutan en paralelo; en otro caso, sus acciones se ejecutan una tras otra, sin
+     * sincronización adicional entre ellas.
      * @author Alejandro González García
      */
-    private final class TareaAccionEntorno implements Runnable {
+    private final class TareaAccionesEntorno extends RecursiveAction {
+        /**
+         * La versión de la clase serializable. Las tareas nunca se serializan, pero
+         * {@link RecursiveAction} es serializable.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * La lista de acciones programadas, que no se modifica mientras se ejecuta la tarea.
+         */
+        private final List<AccionProgramada> acciones;
         /**
-         * La acción programada a ejecutar.
+         * La posición de la primera acción a ejecutar, incluida.
          */
-        private final AccionProgramada accion;
+        private final int desde;
+        /**
+         * La posición de la última acción a ejecutar, excluida.
+         */
+        private final int hasta;
 
         /**
-         * Crea una nueva tarea para ejecutar una acción programada determinada,
-         * opcionalmente en otro hilo.
-         * @param accion La acción a ejecutar. El constructor no comprueba que no
+         * Crea una nueva tarea para ejecutar un intervalo de una lista de acciones programadas.
+         * @param acciones La lista de acciones programadas. El constructor no comprueba que no
          * sea nula.
+         * @param desde La posición de la primera acción a ejecutar, incluida.
+         * @param hasta La posición de la última acción a ejecutar, excluida.
          */
-        TareaAccionEntorno(final AccionProgramada accion) {
-            this.accion = accion;
+        TareaAccionesEntorno(final List<AccionProgramada> acciones, final int desde, final int hasta) {
+            this.acciones = acciones;
+            this.desde = desde;
+            this.hasta = hasta;
         }
 
         @Override
-        public void run() {
-            // Realizar la acción propiamente dicha
-            final String hormiga = accion.getHormiga();
-            final Structure estructuraAccion = accion.getAccion();
-            try {
-                operadorAcciones.ejecutarAccion(hormiga, estructuraAccion);
-                getLogger().log(Level.FINE, "La hormiga " + hormiga + " ha ejecutado la acción " + estructuraAccion + " sobre el entorno.");
-            } catch (Exception exc) {
-                getLogger().log(Level.WARNING, "Ha ocurrido una excepción no controlada durante la ejecución de una acción en el entorno para la hormiga " + hormiga + ". Se continúa la ejecución del SMA igualmente. Detalles: ", exc);
+        protected void compute() {
+            if (hasta - desde > ACCIONES_POR_TAREA) {
+                final int mitad = (desde + hasta) >>> 1;
+                invokeAll(new TareaAccionesEntorno(acciones, desde, mitad), new TareaAccionesEntorno(acciones, mitad, hasta));
+            } else {
+                for (int i = desde; i < hasta; ++i) {
+                    ejecutarAccionProgramada(acciones.get(i));
+                }
             }
+        }
+    }
+
+    /**
+     * Identifica las percepciones que ha recibido un agente: las comunes, la localidad de la que
+     * recibió las percepciones de vecindario y la publicación de feromona que estaba vigente.
+     * @author Alejandro González García
+     */
+    private static final class PercepcionesRecibidas {
+        /**
+         * La copia de las percepciones comunes que recibió el agente.
+         */
+        private final List<Literal> comunes;
+        /**
+         * La localidad en la que estaba el agente, o nulo si no estaba en ninguna.
+         */
+        private final Localidad ubicacion;
+        /**
+         * El número de publicaciones de cambios de feromona realizadas cuando el agente recibió
+         * las percepciones.
+         */
+        private final long publicacionesFeromona;
 
-            // Hemos terminado de hacerla
-            ejecucionAcciones.arriveAndDeregister();
+        /**
+         * Crea un nuevo registro de percepciones recibidas por un agente.
+         * @param comunes La copia de las percepciones comunes que recibió el agente.
+         * @param ubicacion La localidad en la que estaba el agente.
+         * @param publicacionesFeromona El número de publicaciones de cambios de feromona realizadas.
+         */
+        PercepcionesRecibidas(final List<Literal> comunes, final Localidad ubicacion, final long publicacionesFeromona) {
+            this.comunes = comunes;
+            this.ubicacion = ubicacion;
+            this.publicacionesFeromona = publicacionesFeromona;
+        }
+
+        /**
+         * {@inheritDoc} Dos registros son iguales si contienen la misma copia de las percepciones
+         * comunes, la misma localidad y el mismo número de publicaciones de cambios de feromona.
+         */
+        @Override
+        public boolean equals(final Object otro) {
+            boolean toret = otro instanceof PercepcionesRecibidas;
+
+            if (toret) {
+                final PercepcionesRecibidas otras = (PercepcionesRecibidas) otro;
+                toret = comunes == otras.comunes && ubicacion == otras.ubicacion && publicacionesFeromona == otras.publicacionesFeromona;
+            }
+
+            return toret;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(comunes) ^ System.identityHashCode(ubicacion) ^ Long.hashCode(publicacionesFeromona);
         }
     }
 }
\ No newline at end of file
@@ -41,9 +41,9 @@ final class OperadorAccionesEntorno {
      */
     private static final class ContextoAccion {
         /**
-         * El agente responsable de ejecutar la acción.
+         * El identificador del agente responsable de ejecutar la acción.
          */
-        private final String hormiga;
+        private final int hormiga;
         /**
          * La acción a ejecutar por el agente.
          */
@@ -51,13 +51,13 @@ final class OperadorAccionesEntorno {
 
         /**
          * Crea un nuevo contexto de ejecución de una acción del entorno.
-         * @param hormiga El agente que ejecuta la acción.
+         * @param hormiga El identificador del agente que ejecuta la acción.
          * @param accion La acción a ejecutar por el agente.
-         * @throws IllegalArgumentException Si algún parámetro es nulo.
+         * @throws IllegalArgumentException Si la hormiga no está registrada o la acción es nula.
          */
-        ContextoAccion(final String hormiga, final Structure accion) {
-            if (hormiga == null) {
-                throw new IllegalArgumentException("No se puede crear un contexto de ejecución de una acción asociado a una hormiga nula.");
+        ContextoAccion(final int hormiga, final Structure accion) {
+            if (hormiga < 0) {
+                throw new IllegalArgumentException("No se puede crear un contexto de ejecución de una acción asociado a una hormiga no registrada.");
             }
             if (accion == null) {
                 throw new IllegalArgumentException("No se puede crear un contexto de ejecución de una acción asociado a una acción nula.");
@@ -67,10 +67,10 @@ final class OperadorAccionesEntorno {
         }
 
         /**
-         * Obtiene el agente responsable de ejecutar la acción asociada a este objeto.
-         * @return El devandicho agente.
+         * Obtiene el identificador del agente responsable de ejecutar la acción asociada a este objeto.
+         * @return El devandicho identificador.
          */
-        String getHormiga() {
+        int getHormiga() {
             return hormiga;
         }
 
@@ -98,7 +98,7 @@ final class OperadorAccionesEntorno {
 
         // Código para atender la acción irA/1
         accionesEntorno.put("irA", (final ContextoAccion contexto) -> {
-            final String hormiga = contexto.getHormiga();
+            final int hormiga = contexto.getHormiga();
             final Structure accion = contexto.getAccion();
             final Term parametro = accion.getTerm(0);
 
@@ -115,19 +115,19 @@ final class OperadorAccionesEntorno {
                         // Registrar el movimiento
                         lh.mover(hormiga, localidad);
                     } else {
-                        throw new IllegalArgumentException("La hormiga " + hormiga + " ha intentado hacer un movimiento no permitido, dada su ubicación actual, hacia " + localidad.getNombre() + ".");
+                        throw new IllegalArgumentException("La hormiga " + mundo.getRegistroHormigas().nombre(hormiga) + " ha intentado hacer un movimiento no permitido, dada su ubicación actual, hacia " + localidad.getNombre() + ".");
                     }
                 } else {
-                    throw new IllegalArgumentException("La hormiga " + hormiga + " se ha intentado mover a una localidad no existente: " + ((Atom) parametro).getFunctor());
+                    throw new IllegalArgumentException("La hormiga " + mundo.getRegistroHormigas().nombre(hormiga) + " se ha intentado mover a una localidad no existente: " + ((Atom) parametro).getFunctor());
                 }
             } else {
-                throw new IllegalArgumentException("La hormiga " + hormiga + " no ha pasado un parámetro para la acción interna \"irA\", o el parámetro que ha pasado no es un átomo.");
+                throw new IllegalArgumentException("La hormiga " + mundo.getRegistroHormigas().nombre(hormiga) + " no ha pasado un parámetro para la acción interna \"irA\", o el parámetro que ha pasado no es un átomo.");
             }
         });
 
         // Código para atender la acción irAHormiguero/1
         accionesEntorno.put("irAHormiguero", (final ContextoAccion contexto) -> {
-            final String hormiga = contexto.getHormiga();
+            final int hormiga = contexto.getHormiga();
             final Structure accion = contexto.getAccion();
             final Term parametro = accion.getTerm(0);
 
@@ -143,7 +143,7 @@ final class OperadorAccionesEntorno {
                 // Al volver al hormiguero, volvemos a la localidad de inicio
                 mundo.getLocalizadorHormigas().mover(hormiga, mundo.getLocalidadInicio());
             } else {
-                throw new IllegalArgumentException("La hormiga " + hormiga + " no ha pasado un parámetro para la acción interna \"irAHormiguero\", o el parámetro que ha pasado no es una lista.");
+                throw new IllegalArgumentException("La hormiga " + mundo.getRegistroHormigas().nombre(hormiga) + " no ha pasado un parámetro para la acción interna \"irAHormiguero\", o el parámetro que ha pasado no es una lista.");
             }
         });
 
@@ -151,7 +151,7 @@ final class OperadorAccionesEntorno {
         accionesEntorno.put("listaParaContinuar", (final ContextoAccion contexto) -> {
             // Comprobar que los argumentos sean válidos en número
             if (contexto.getAccion().getArity() != 0) {
-                throw new IllegalArgumentException("La hormiga " + contexto.getHormiga() + " ha pasado parámetros a la acción interna \"listaParaContinuar\", cuando no se esperaban.");
+                throw new IllegalArgumentException("La hormiga " + mundo.getRegistroHormigas().nombre(contexto.getHormiga()) + " ha pasado parámetros a la acción interna \"listaParaContinuar\", cuando no se esperaban.");
             }
         });
 
@@ -165,13 +165,13 @@ final class OperadorAccionesEntorno {
      * definida por su estructura. Este método asume que los agentes no pueden realizar
      * acciones antes o durante su inicialización (ejecución del método init() de su
      * arquitectura), y no comprueba si los parámetros de la acción a ejecutar son correctos.
-     * @param agente El agente que pretende ejecutar la acción de entorno dada.
+     * @param agente El identificador del agente que pretende ejecutar la acción de entorno dada.
      * @param accion La acción a comprobar si es válida para el agente.
      * @return Verdadero si y solo si la acción es válida para ser ejecutada por el agente,
      * falso en caso contrario.
      */
-    boolean esAccionValida(final String agente, final Structure accion) {
-        boolean toret = agente != null && accion != null;
+    boolean esAccionValida(final int agente, final Structure accion) {
+        boolean toret = agente >= 0 && accion != null;
 
         if (toret) {
             toret = mundo.getLocalizadorHormigas().ubicacion(agente) != null && accionesEntorno.containsKey(accion.getFunctor());
@@ -180,21 +180,32 @@ final class OperadorAccionesEntorno {
         return toret;
     }
 
+    /**
+     * Comprueba si la acción de entorno dada, definida por su estructura, modifica el estado
+     * del entorno al ejecutarse. Las acciones que no lo modifican no entran en conflicto con
+     * ninguna otra, por lo que se pueden ejecutar en cualquier orden y hilo.
+     * @param accion La acción a comprobar.
+     * @return Verdadero si la acción modifica el entorno o no se conoce, falso en caso contrario.
+     */
+    boolean modificaEntorno(final Structure accion) {
+        return accion == null || !"listaParaContinuar".equals(accion.getFunctor());
+    }
+
     /**
      * Ejecuta la acción de entorno especificada en el hilo actual. Este método no comprueba que
      * esta acción sea válida para este agente, lo que se debe de hacer previamente empleando el método
      * {@link esAccionValida}.
-     * @param agente El agente responsable de la ejecución de la acción de entorno.
+     * @param agente El identificador del agente responsable de la ejecución de la acción de entorno.
      * @param accion La estructura que define la acción. Contiene sus parámetros.
      * @throws IllegalArgumentException Si se intenta ejecutar una acción de entorno nula o no implementada,
-     * o bajo la responsabilidad de un agente nulo.
+     * o bajo la responsabilidad de un agente no registrado.
      */
-    void ejecutarAccion(final String agente, final Structure accion) {
+    void ejecutarAccion(final int agente, final Structure accion) {
         final String functor = accion == null ? null : accion.getFunctor();
         final Consumer<ContextoAccion> codigoAccion = accionesEntorno.get(functor);
 
         if (codigoAccion == null) {
-            throw new IllegalArgumentException((agente == null ? "Una hormiga" : agente) + " ha intentado ejecutar una acción de entorno no implementada: " + (functor == null ? "(nula)" : functor));
+            throw new IllegalArgumentException((agente < 0 ? "Una hormiga" : mundo.getRegistroHormigas().nombre(agente)) + " ha intentado ejecutar una acción de entorno no implementada: " + (functor == null ? "(nula)" : functor));
         }
 
         codigoAccion.accept(new ContextoAccion(agente, accion));
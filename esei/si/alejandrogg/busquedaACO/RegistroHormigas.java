@@ -0,0 +1,111 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fabricación pura que asigna a cada hormiga, identificada por su nombre, un identificador
+ * entero denso, empezando en 0, cuando llega al sistema. Así, el resto de clases del entorno
+ * pueden guardar información de cada hormiga en arrays indexados por su identificador, en vez
+ * de en mapas y conjuntos indexados por su nombre, y traducir el nombre a identificador una
+ * única vez por acción.
+ *
+ * Los identificadores no se reutilizan: una hormiga que abandona el sistema conserva el suyo,
+ * y lo vuelve a recibir si llega otra hormiga con el mismo nombre. Es seguro que varios hilos
+ * de ejecución usen los objetos de esta clase concurrentemente.
+ * @author Alejandro González García
+ */
+final class RegistroHormigas {
+    /**
+     * El identificador que se devuelve para las hormigas que no están registradas.
+     */
+    static final int AUSENTE = -1;
+
+    /**
+     * Relaciona el nombre de cada hormiga registrada con su identificador.
+     */
+    private final Map<String, Integer> identificadores = new ConcurrentHashMap<>();
+    /**
+     * El nombre de cada hormiga registrada, indexado por su identificador. Solo se modifica
+     * con el monitor de este objeto adquirido, y se vuelve a publicar tras cada modificación.
+     */
+    private volatile String[] nombres = new String[16];
+    /**
+     * El número de hormigas registradas, que es también el siguiente identificador a asignar.
+     */
+    private volatile int numeroHormigas = 0;
+
+    /**
+     * Registra una hormiga, asignándole un identificador si todavía no lo tiene.
+     * @param nombre El nombre de la hormiga.
+     * @return El identificador de la hormiga.
+     * @throws IllegalArgumentException Si el nombre es nulo.
+     */
+    int registrar(final String nombre) {
+        if (nombre == null) {
+            throw new IllegalArgumentException("No se puede registrar una hormiga de nombre nulo.");
+        }
+
+        Integer toret = identificadores.get(nombre);
+
+        if (toret == null) {
+            synchronized (this) {
+                toret = identificadores.get(nombre);
+
+                if (toret == null) {
+                    final int id = numeroHormigas;
+                    String[] nombres = this.nombres;
+
+                    if (id >= nombres.length) {
+                        nombres = Arrays.copyOf(nombres, nombres.length * 2);
+                    }
+                    nombres[id] = nombre;
+
+                    // Publicar el nombre antes que el identificador, para que quien obtenga el
+                    // identificador pueda obtener el nombre
+                    this.nombres = nombres;
+                    numeroHormigas = id + 1;
+                    toret = id;
+                    identificadores.put(nombre, toret);
+                }
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene el identificador de una hormiga registrada.
+     * @param nombre El nombre de la hormiga.
+     * @return El identificador de la hormiga, o {@link AUSENTE} si no está registrada o su
+     * nombre es nulo.
+     */
+    int identificador(final String nombre) {
+        final Integer id = nombre == null ? null : identificadores.get(nombre);
+
+        return id == null ? AUSENTE : id;
+    }
+
+    /**
+     * Obtiene el nombre de una hormiga registrada.
+     * @param id El identificador de la hormiga.
+     * @return El nombre de la hormiga, o nulo si no hay una hormiga registrada con tal identificador.
+     */
+    String nombre(final int id) {
+        final String[] nombres = this.nombres;
+
+        return id >= 0 && id < nombres.length ? nombres[id] : null;
+    }
+
+    /**
+     * Obtiene el número de hormigas registradas, que es una cota superior exclusiva de sus
+     * identificadores.
+     * @return El devandicho número.
+     */
+    int numeroHormigas() {
+        return numeroHormigas;
+    }
+}
@@ -0,0 +1,167 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Escoge la localidad a la que una hormiga se desplazará en el siguiente instante de tiempo,
+ * de entre las adyacentes a la que se encuentra que no ha visitado aún, siguiendo una distribución
+ * de probabilidad discreta donde el peso de cada carretera candidata es t^α + (1 / d)^β, siendo
+ * t su nivel de feromona actual y d su distancia. Es la misma regla que seguía el agente hormiga
+ * en AgentSpeak, pero evaluada en una sola pasada sobre las carreteras incidentes, que el
+ * grafo de carreteras enumera en tiempo proporcional al grado de la localidad. Los pesos no
+ * se calculan en cada elección, sino que se leen de la {@link InformacionEleccion} vigente,
+ * que se recalcula mediante {@link #actualizarInformacionEleccion()} cuando cambia la feromona.
+ * <p>
+ * Como la distribución de probabilidad de cada localidad solo depende de las localidades ya
+ * visitadas por la hormiga mientras la feromona no cambie, primero se intenta muestrear la tabla
+ * de alias de la localidad, compartida por todas las hormigas, rechazando las localidades ya
+ * visitadas; esto equivale a muestrear la distribución restringida a las no visitadas, en tiempo
+ * constante. Si se rechazan demasiadas muestras seguidas, se recurre al método exacto, que
+ * recorre todas las carreteras incidentes.
+ *
+ * Es seguro que varios hilos usen los objetos de esta clase concurrentemente.
+ * @author Alejandro González García
+ */
+public final class SelectorLocalidadSiguiente {
+    /**
+     * El número máximo de muestras de la tabla de alias a rechazar por llevar a localidades
+     * visitadas antes de recurrir al método exacto.
+     */
+    private static final int MAXIMO_RECHAZOS = 4;
+
+    /**
+     * El grafo de carreteras sobre el que se escogen localidades.
+     */
+    private final GrafoCarreteras grafoCarreteras;
+    /**
+     * El almacén del nivel de feromona de las carreteras del grafo.
+     */
+    private final AlmacenFeromona almacenFeromona;
+    /**
+     * El exponente de importancia relativa de la feromona.
+     */
+    private final double alfa;
+    /**
+     * El término (1 / d)^β de cada carretera, que no cambia durante la simulación.
+     */
+    private final double[] terminosDistancia;
+    /**
+     * Los pesos de elección de las carreteras calculados para la última versión conocida
+     * del almacén de feromona.
+     */
+    private volatile InformacionEleccion informacionEleccion;
+
+    /**
+     * Crea un nuevo selector de localidad siguiente para un grafo de carreteras.
+     * @param grafoCarreteras El grafo de carreteras sobre el que escoger localidades.
+     * @param alfa El exponente de importancia relativa de la feromona.
+     * @param beta El exponente de importancia relativa de la distancia.
+     * @throws IllegalArgumentException Si el grafo de carreteras es nulo.
+     */
+    SelectorLocalidadSiguiente(final GrafoCarreteras grafoCarreteras, final double alfa, final double beta) {
+        if (grafoCarreteras == null) {
+            throw new IllegalArgumentException("Un selector de localidad siguiente no puede estar asociado a un grafo de carreteras nulo.");
+        }
+        this.grafoCarreteras = grafoCarreteras;
+        this.almacenFeromona = grafoCarreteras.getAlmacenFeromona();
+        this.alfa = alfa;
+        this.terminosDistancia = InformacionEleccion.terminosDistancia(grafoCarreteras, beta);
+        this.informacionEleccion = new InformacionEleccion(almacenFeromona, terminosDistancia, alfa, grafoCarreteras.numeroLocalidades());
+    }
+
+    /**
+     * Recalcula los pesos de elección de las carreteras si el nivel de feromona ha cambiado desde
+     * el último cálculo. Debe de llamarse tras cada actualización de feromona, antes de que las
+     * hormigas vuelvan a escoger localidades; si no ha habido cambios, su coste es constante.
+     */
+    void actualizarInformacionEleccion() {
+        if (informacionEleccion.getVersion() != almacenFeromona.version()) {
+            informacionEleccion = new InformacionEleccion(almacenFeromona, terminosDistancia, alfa, grafoCarreteras.numeroLocalidades());
+        }
+    }
+
+    /**
+     * Escoge aleatoriamente la localidad siguiente a la actual, de entre las adyacentes que no
+     * han sido visitadas. Las carreteras de distancia nula se consideran infinitamente preferibles
+     * al resto, y equiprobables entre sí.
+     * @param actual La localidad en la que se encuentra la hormiga.
+     * @param visitadas Las localidades que la hormiga ya ha visitado.
+     * @return La localidad escogida, o nulo si no hay localidades candidatas.
+     * @throws IllegalArgumentException Si la localidad actual o el conjunto de localidades visitadas
+     * son nulos.
+     */
+    public Localidad localidadSiguiente(final Localidad actual, final Set<Localidad> visitadas) {
+        if (actual == null) {
+            throw new IllegalArgumentException("No se puede escoger la localidad siguiente a una localidad nula.");
+        }
+        if (visitadas == null) {
+            throw new IllegalArgumentException("El conjunto de localidades visitadas no puede ser nulo.");
+        }
+
+        final InformacionEleccion informacion = informacionEleccion;
+        final int idActual = actual.getId();
+        final int grado = grafoCarreteras.grado(idActual);
+        Localidad toret = null;
+
+        // Muestreo por rechazo sobre la tabla de alias compartida de la localidad
+        final TablaAlias tablaAlias = grado > 0 ? informacion.tablaAlias(grafoCarreteras, idActual) : null;
+        if (tablaAlias != null) {
+            for (int i = 0; i < MAXIMO_RECHAZOS && toret == null; ++i) {
+                final Localidad otra = grafoCarreteras.localidad(grafoCarreteras.vecino(idActual, tablaAlias.muestra()));
+                if (!visitadas.contains(otra)) {
+                    toret = otra;
+                }
+            }
+        }
+
+        // Método exacto, si no hay tabla o se rechazaron todas las muestras
+        if (toret == null && grado > 0) {
+            final Localidad[] candidatas = new Localidad[grado];
+            final double[] pesos = new double[grado];
+            int nCandidatas = 0;
+            int nInfinitas = 0;
+            double sumaPesos = 0;
+
+            // Recorrer las carreteras incidentes en O(grado), gracias a la representación de adyacencias del grafo
+            for (int i = 0; i < grado; ++i) {
+                final Localidad otra = grafoCarreteras.localidad(grafoCarreteras.vecino(idActual, i));
+
+                if (!visitadas.contains(otra)) {
+                    final double peso = informacion.peso(grafoCarreteras.carreteraIncidente(idActual, i));
+
+                    candidatas[nCandidatas] = otra;
+                    pesos[nCandidatas++] = peso;
+                    if (Double.isInfinite(peso)) {
+                        ++nInfinitas;
+                    } else {
+                        sumaPesos += peso;
+                    }
+                }
+            }
+
+            if (nInfinitas > 0) {
+                int restantes = ThreadLocalRandom.current().nextInt(nInfinitas);
+                for (int i = 0; i < nCandidatas && toret == null; ++i) {
+                    if (Double.isInfinite(pesos[i]) && restantes-- == 0) {
+                        toret = candidatas[i];
+                    }
+                }
+            } else if (nCandidatas > 0) {
+                // Método de la ruleta. Si el error de redondeo nos deja sin escoger, quedarnos
+                // con la última candidata
+                double restante = ThreadLocalRandom.current().nextDouble() * sumaPesos;
+                for (int i = 0; i < nCandidatas && toret == null; ++i) {
+                    restante -= pesos[i];
+                    if (restante < 0 || i == nCandidatas - 1) {
+                        toret = candidatas[i];
+                    }
+                }
+            }
+        }
+
+        return toret;
+    }
+}
@@ -0,0 +1,115 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import esei.si.alejandrogg.busquedaACO.algoritmos.RazonTerminacion;
+
+/**
+ * Punto de entrada para ejecutar la simulación sin la infraestructura de Jason, sin vista
+ * y sin agentes AgentSpeak, pensado para trabajos por lotes y para perfilar el comportamiento
+ * del entorno por sí solo. Las hormigas se simulan mediante objetos {@link HormigaSimulada},
+ * que se comunican con el {@link Mundo} usando el mismo protocolo de acciones de entorno que
+ * los agentes, por lo que se pueden simular miles de hormigas en una única JVM.
+ *
+ * Los argumentos esperados son el número de hormigas a simular, seguido de los argumentos del
+ * mundo en el mismo orden que en el fichero .mas2j. Por ejemplo:
+ * <pre>
+ * java esei.si.alejandrogg.busquedaACO.SimulacionSinInterfaz 1000 Rumanía Bucarest Timisoara 25 0.15 0.9 1 1000 "Dorigo et al. (1996), ant-cycle" 5 0 90 false
+ * </pre>
+ * El segundo argumento del mundo relacionado con la espera por la llegada de hormigas se interpreta,
+ * pero no tiene efecto, pues las hormigas se crean antes de simular el primer instante de tiempo. De
+ * manera similar, el periodo del tiempo discreto se ignora, y se simulan instantes de tiempo tan rápido
+ * como sea posible.
+ *
+ * @author Alejandro González García
+ */
+public final class SimulacionSinInterfaz {
+    /**
+     * Constructor privado para evitar la instanciación de esta clase.
+     */
+    private SimulacionSinInterfaz() {}
+
+    /**
+     * Ejecuta una simulación sin interfaz, hasta que el algoritmo termine, mostrando un
+     * resumen de los resultados por la salida estándar.
+     * @param args El número de hormigas a simular, seguido de los argumentos del mundo.
+     */
+    public static void main(final String[] args) {
+        if (args.length < 1) {
+            System.err.println("Uso: SimulacionSinInterfaz <número de hormigas> <argumentos del mundo...>");
+            System.exit(1);
+        }
+
+        final int nHormigas;
+        try {
+            nHormigas = Integer.parseInt(args[0]);
+            if (nHormigas <= 0) {
+                throw new NumberFormatException();
+            }
+        } catch (NumberFormatException exc) {
+            System.err.println("El número de hormigas a simular debe de ser un número entero mayor que 0.");
+            System.exit(1);
+            return;
+        }
+
+        // Los mensajes informativos de cada instante de tiempo son demasiado frecuentes para
+        // una ejecución por lotes, y penalizan el rendimiento
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        final Mundo mundo = new Mundo();
+        final List<HormigaSimulada> hormigas = new ArrayList<>(nHormigas);
+        final ExecutorService servicioHormigas = Executors.newWorkStealingPool();
+
+        // Las hormigas deben de responder de manera asíncrona, pues el mundo espera
+        // por sus respuestas en el hilo que las notifica
+        mundo.iniciarSinInfraestructura(Arrays.copyOfRange(args, 1, args.length), () -> {
+            for (final HormigaSimulada hormiga : hormigas) {
+                servicioHormigas.execute(hormiga::pasoTiempo);
+            }
+        }, () -> {
+            for (final HormigaSimulada hormiga : hormigas) {
+                servicioHormigas.execute(hormiga::siguienteCiclo);
+            }
+        });
+
+        // Crear las hormigas, y registrarlas en el sistema como si fuesen agentes
+        for (int i = 1; i <= nHormigas; ++i) {
+            final HormigaSimulada hormiga = new HormigaSimulada(mundo, "hormiga" + i);
+            hormigas.add(hormiga);
+            mundo.getCoordinadorHormigas().llegadaHormiga(hormiga.getNombre());
+        }
+
+        // Simular instantes de tiempo hasta que el algoritmo termine
+        final long inicioSimulacion = System.currentTimeMillis();
+        long instantesSimulados = 0;
+        boolean terminar = false;
+        while (!terminar) {
+            terminar = mundo.simularInstanteTiempo();
+            ++instantesSimulados;
+        }
+        final long msSimulacion = System.currentTimeMillis() - inicioSimulacion;
+
+        // Mostrar un resumen de los resultados
+        final Algoritmo algoritmo = mundo.getAlgoritmo();
+        final Camino mejorCamino = algoritmo.getMejorCamino();
+        final RazonTerminacion razonTerminacion = algoritmo.razonTerminacion();
+        System.out.println("Algoritmo: " + algoritmo.getNombre());
+        System.out.println("Hormigas: " + nHormigas);
+        System.out.println("Ciclo: " + algoritmo.getCiclo() + "/" + algoritmo.getCiclosMaximos());
+        System.out.println("Razón de terminación: " + (razonTerminacion == null ? "(ninguna)" : razonTerminacion));
+        System.out.println("Entropía de caminos del último ciclo: " + (Double.isNaN(algoritmo.getEntropiaCaminos()) ? "(desconocida)" : algoritmo.getEntropiaCaminos() + " bits"));
+        System.out.println("Mejor camino: " + (mejorCamino == null ? "(ninguno)" : mejorCamino + " (" + mejorCamino.distanciaTotal() + ")"));
+        System.out.println("Instantes de tiempo simulados: " + instantesSimulados + " en " + (msSimulacion / 1000.0) + " s.");
+
+        servicioHormigas.shutdown();
+        mundo.stop();
+    }
+}
@@ -0,0 +1,128 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tabla de alias inmutable para muestrear en tiempo constante una distribución de probabilidad
+ * discreta, definida por pesos no normalizados. Se construye en tiempo lineal con la variante
+ * del método de alias propuesta por Michael D. Vose, en su artículo "A Linear Algorithm For
+ * Generating Random Numbers With a Given Distribution", usando arrays de tipos primitivos como
+ * pilas de trabajo.
+ *
+ * Los objetos de esta clase son inmutables, y es seguro que varios hilos los usen concurrentemente.
+ * Quien necesite construir y muestrear tablas sin reservar memoria puede usar directamente
+ * {@link construir} y {@link muestrear} sobre sus propios arrays de trabajo.
+ * @author Alejandro González García
+ */
+public final class TablaAlias {
+    /**
+     * La probabilidad de quedarse con cada columna de la tabla en vez de con su alias.
+     */
+    private final double[] prob;
+    /**
+     * El alias de cada columna de la tabla.
+     */
+    private final int[] alias;
+
+    /**
+     * Construye una tabla de alias a partir de los pesos de cada elemento.
+     * @param pesos Los pesos de cada elemento, que deben de ser finitos y no negativos, y sumar
+     * una cantidad positiva. No se modifican.
+     * @param n El número de pesos a considerar, empezando por el primero.
+     * @throws IllegalArgumentException Si algún peso no es finito o es negativo, o la suma de
+     * los pesos no es positiva.
+     */
+    TablaAlias(final double[] pesos, final int n) {
+        this.prob = new double[n];
+        this.alias = new int[n];
+
+        construir(pesos, n, prob, alias, new int[n], new int[n]);
+    }
+
+    /**
+     * Obtiene una muestra aleatoria de la distribución, usando el generador de números aleatorios
+     * del hilo actual.
+     * @return El índice del elemento escogido.
+     */
+    int muestra() {
+        return muestrear(prob, alias, prob.length, ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * Construye una tabla de alias sobre los arrays dados, a partir de los pesos de cada elemento.
+     * Todos los arrays deben de tener al menos n posiciones.
+     * @param pesos Los pesos de cada elemento, que deben de ser finitos y no negativos, y sumar
+     * una cantidad positiva. No se modifican.
+     * @param n El número de pesos a considerar, empezando por el primero.
+     * @param prob El array donde escribir la probabilidad de quedarse con cada columna.
+     * @param alias El array donde escribir el alias de cada columna.
+     * @param pequenos Array de trabajo, cuyo contenido se sobreescribe.
+     * @param grandes Array de trabajo, cuyo contenido se sobreescribe.
+     * @throws IllegalArgumentException Si algún peso no es finito o es negativo, o la suma de
+     * los pesos no es positiva.
+     */
+    public static void construir(final double[] pesos, final int n, final double[] prob, final int[] alias, final int[] pequenos, final int[] grandes) {
+        double total = 0;
+        for (int i = 0; i < n; ++i) {
+            if (!(pesos[i] >= 0) || Double.isInfinite(pesos[i])) {
+                throw new IllegalArgumentException("Los pesos de una tabla de alias deben de ser finitos y no negativos.");
+            }
+            total += pesos[i];
+        }
+        if (!(total > 0) || Double.isInfinite(total)) {
+            throw new IllegalArgumentException("La suma de los pesos de una tabla de alias debe de ser positiva y finita.");
+        }
+
+        // Escalar los pesos para que su media sea 1, y repartir los elementos en las pilas
+        // de pequeños (por debajo de la media) y grandes
+        int nPequenos = 0;
+        int nGrandes = 0;
+        for (int i = 0; i < n; ++i) {
+            prob[i] = pesos[i] * n / total;
+            if (prob[i] < 1) {
+                pequenos[nPequenos++] = i;
+            } else {
+                grandes[nGrandes++] = i;
+            }
+        }
+
+        // Completar cada columna pequeña con el exceso de una grande
+        while (nPequenos > 0 && nGrandes > 0) {
+            final int l = pequenos[--nPequenos];
+            final int g = grandes[--nGrandes];
+
+            alias[l] = g;
+            prob[g] += prob[l] - 1;
+            if (prob[g] < 1) {
+                pequenos[nPequenos++] = g;
+            } else {
+                grandes[nGrandes++] = g;
+            }
+        }
+
+        // Las columnas restantes solo lo están por errores de redondeo, y están llenas
+        while (nGrandes > 0) {
+            prob[grandes[--nGrandes]] = 1;
+        }
+        while (nPequenos > 0) {
+            prob[pequenos[--nPequenos]] = 1;
+        }
+    }
+
+    /**
+     * Obtiene una muestra aleatoria de una tabla de alias construida con {@link construir}.
+     * @param prob La probabilidad de quedarse con cada columna.
+     * @param alias El alias de cada columna.
+     * @param n El número de columnas de la tabla.
+     * @param u Un número aleatorio uniformemente distribuido en [0, 1).
+     * @return El índice del elemento escogido.
+     */
+    public static int muestrear(final double[] prob, final int[] alias, final int n, final double u) {
+        final double x = u * n;
+        final int j = Math.min((int) x, n - 1);
+
+        return x - j < prob[j] ? j : alias[j];
+    }
+}
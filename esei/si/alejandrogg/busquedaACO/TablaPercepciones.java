@@ -0,0 +1,257 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import jason.asSemantics.Unifier;
+import jason.asSyntax.Literal;
+import jason.asSyntax.Term;
+
+/**
+ * Almacena las percepciones comunes a todos los agentes, indexadas por su funtor, su aridad y
+ * un número de argumentos clave que se registran para cada funtor. Por ejemplo, si se registra
+ * que las percepciones carretera/4 tienen dos argumentos clave, carretera(a, b, 5, 1) y
+ * carretera(a, b, 5, 2) comparten clave, y añadir la segunda reemplaza a la primera. Así, reemplazar
+ * o eliminar una percepción a partir de su clave tiene un coste constante, independientemente del
+ * número de percepciones almacenadas. Las percepciones con un funtor no registrado usan todos sus
+ * argumentos como clave, de modo que la tabla se comporta con ellas como un conjunto.
+ *
+ * La tabla ofrece una copia de solo lectura de sus percepciones, que se comparte entre todos los
+ * agentes y solo se vuelve a crear cuando cambian, de modo que comparar su identidad permite saber
+ * si un agente ya ha recibido las percepciones actuales. Es seguro que varios hilos la usen
+ * concurrentemente.
+ * @author Alejandro González García
+ */
+final class TablaPercepciones {
+    /**
+     * El número de argumentos clave registrado para cada funtor y aridad.
+     */
+    private final Map<String, Integer> argumentosClave = new HashMap<>();
+    /**
+     * Las percepciones almacenadas, indexadas por su clave.
+     */
+    private final Map<Clave, Literal> percepciones = new HashMap<>();
+    /**
+     * Una copia de solo lectura de las percepciones almacenadas, compartida por todos los agentes
+     * que las piden mientras no cambian, o nulo si no se ha calculado desde el último cambio.
+     */
+    private List<Literal> instantanea = null;
+
+    /**
+     * Registra el número de argumentos que forman la clave de las percepciones con un funtor y
+     * aridad dados. Debe de llamarse antes de añadir percepciones con ese funtor y aridad.
+     * @param funtor El funtor de las percepciones.
+     * @param aridad La aridad de las percepciones.
+     * @param numeroArgumentosClave El número de argumentos, empezando por el primero, que forman
+     * la clave de las percepciones.
+     * @throws IllegalArgumentException Si el funtor es nulo, o el número de argumentos clave no está
+     * en el intervalo [0, aridad].
+     */
+    synchronized void indexar(final String funtor, final int aridad, final int numeroArgumentosClave) {
+        if (funtor == null) {
+            throw new IllegalArgumentException("No se puede indexar un funtor nulo.");
+        }
+        if (numeroArgumentosClave < 0 || numeroArgumentosClave > aridad) {
+            throw new IllegalArgumentException("El número de argumentos clave de una percepción debe de estar entre 0 y su aridad.");
+        }
+
+        argumentosClave.put(funtor + "/" + aridad, numeroArgumentosClave);
+    }
+
+    /**
+     * Añade una percepción a la tabla, reemplazando la que tuviese su misma clave, si existe.
+     * @param percepcion La percepción a añadir.
+     */
+    synchronized void reemplazar(final Literal percepcion) {
+        final Literal anterior = percepciones.put(clave(percepcion), percepcion);
+
+        if (!percepcion.equals(anterior)) {
+            cambiar();
+        }
+    }
+
+    /**
+     * Elimina una percepción de la tabla, si está en ella.
+     * @param percepcion La percepción a eliminar.
+     * @return Verdadero si la percepción estaba en la tabla, falso en caso contrario.
+     */
+    synchronized boolean eliminar(final Literal percepcion) {
+        final Clave c = clave(percepcion);
+        final boolean toret = percepcion.equals(percepciones.get(c));
+
+        if (toret) {
+            percepciones.remove(c);
+            cambiar();
+        }
+
+        return toret;
+    }
+
+    /**
+     * Elimina de la tabla las percepciones que unifican con un literal. Si los argumentos clave
+     * del literal son términos sin variables, la operación tiene un coste constante; en otro caso,
+     * se comparan todas las percepciones almacenadas con el literal.
+     * @param literal El literal con el que deben de unificar las percepciones a eliminar.
+     * @return El número de percepciones eliminadas.
+     */
+    synchronized int eliminarPorUnificacion(final Literal literal) {
+        int toret = 0;
+
+        final Clave c = claveSinVariables(literal);
+        if (c != null) {
+            final Literal percepcion = percepciones.get(c);
+            if (percepcion != null && new Unifier().unifies(literal, percepcion)) {
+                percepciones.remove(c);
+                toret = 1;
+            }
+        } else {
+            final Iterator<Literal> iter = percepciones.values().iterator();
+            while (iter.hasNext()) {
+                if (new Unifier().unifies(literal, iter.next())) {
+                    iter.remove();
+                    ++toret;
+                }
+            }
+        }
+
+        if (toret > 0) {
+            cambiar();
+        }
+
+        return toret;
+    }
+
+    /**
+     * Comprueba si una percepción está en la tabla.
+     * @param percepcion La percepción a comprobar.
+     * @return Verdadero si la percepción está en la tabla, falso en caso contrario.
+     */
+    synchronized boolean contiene(final Literal percepcion) {
+        return percepcion.equals(percepciones.get(clave(percepcion)));
+    }
+
+    /**
+     * Elimina todas las percepciones de la tabla.
+     */
+    synchronized void vaciar() {
+        if (!percepciones.isEmpty()) {
+            percepciones.clear();
+            cambiar();
+        }
+    }
+
+    /**
+     * Obtiene una copia de solo lectura de las percepciones almacenadas. Mientras las percepciones
+     * no cambien, se devuelve siempre la misma copia, y cuando cambian, se devuelve una copia nueva.
+     * @return La devandicha copia, que puede compartirse entre todos los agentes.
+     */
+    synchronized List<Literal> instantanea() {
+        if (instantanea == null) {
+            instantanea = Collections.unmodifiableList(new ArrayList<>(percepciones.values()));
+        }
+
+        return instantanea;
+    }
+
+    /**
+     * Registra que las percepciones almacenadas han cambiado.
+     */
+    private void cambiar() {
+        instantanea = null;
+    }
+
+    /**
+     * Calcula la clave de un literal, si sus argumentos clave no contienen variables.
+     * @param literal El literal.
+     * @return La devandicha clave, o nulo si algún argumento clave contiene variables.
+     */
+    private Clave claveSinVariables(final Literal literal) {
+        Clave toret = clave(literal);
+
+        for (int i = 0; toret != null && i < toret.argumentos.length; ++i) {
+            if (!toret.argumentos[i].isGround()) {
+                toret = null;
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Calcula la clave de un literal, de acuerdo a los argumentos clave registrados para su funtor.
+     * @param literal El literal.
+     * @return La devandicha clave.
+     */
+    private Clave clave(final Literal literal) {
+        final int aridad = literal.getArity();
+        final Integer numeroArgumentosClave = argumentosClave.get(literal.getFunctor() + "/" + aridad);
+        final Term[] argumentos = new Term[numeroArgumentosClave == null ? aridad : numeroArgumentosClave];
+
+        for (int i = 0; i < argumentos.length; ++i) {
+            argumentos[i] = literal.getTerm(i);
+        }
+
+        return new Clave(literal.getFunctor(), aridad, literal.negated(), argumentos);
+    }
+
+    /**
+     * La clave de una percepción, formada por su funtor, aridad, negación y argumentos clave.
+     * @author Alejandro González García
+     */
+    private static final class Clave {
+        /**
+         * El funtor de la percepción.
+         */
+        private final String funtor;
+        /**
+         * La aridad de la percepción.
+         */
+        private final int aridad;
+        /**
+         * Si la percepción está negada o no.
+         */
+        private final boolean negada;
+        /**
+         * Los argumentos clave de la percepción.
+         */
+        private final Term[] argumentos;
+
+        /**
+         * Crea una nueva clave de percepción.
+         * @param funtor El funtor de la percepción.
+         * @param aridad La aridad de la percepción.
+         * @param negada Si la percepción está negada o no.
+         * @param argumentos Los argumentos clave de la percepción.
+         */
+        Clave(final String funtor, final int aridad, final boolean negada, final Term[] argumentos) {
+            this.funtor = funtor;
+            this.aridad = aridad;
+            this.negada = negada;
+            this.argumentos = argumentos;
+        }
+
+        @Override
+        public boolean equals(final Object otro) {
+            boolean toret = otro instanceof Clave;
+
+            if (toret) {
+                final Clave otra = (Clave) otro;
+                toret = aridad == otra.aridad && negada == otra.negada && funtor.equals(otra.funtor) && Arrays.equals(argumentos, otra.argumentos);
+            }
+
+            return toret;
+        }
+
+        @Override
+        public int hashCode() {
+            return (funtor.hashCode() * 31 + aridad) * 31 + Arrays.hashCode(argumentos) + (negada ? 1 : 0);
+        }
+    }
+}
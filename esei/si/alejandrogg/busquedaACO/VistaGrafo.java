@@ -207,6 +207,11 @@ public final class VistaGrafo {
         }
 		sb.append("</p>");
 
+		sb.append("<p><span style=\"font-weight: bold;\">Entrop\u00EDa de caminos</span>: ");
+        final double entropiaCaminos = alg.getEntropiaCaminos();
+        sb.append(Double.isNaN(entropiaCaminos) ? "\u2014" : String.format("%.3f bits", entropiaCaminos));
+		sb.append("</p>");
+
 		sb.append("<p><span style=\"font-weight: bold;\">Mejor camino actual</span>: ");
         try {
             final Camino camino = alg.getMejorCamino();
@@ -287,19 +292,21 @@ public final class VistaGrafo {
 			g2d.drawImage(imagenGrafo, xInicio, PIXELES_MARGEN, Color.WHITE, null);
 
 			// Indicar cuántas hormigas hay actualmente en cada nodo
+			final LocalizadorHormigas localizadorHormigas = Mundo.get().getLocalizadorHormigas();
 			for (final Localidad l : grafoCarreteras.localidades()) {
                 dibujarEtiquetaTexto(
                     g2d, tipografiaNumEtiqueta, colorFondoHormigas, colorHormigas,
-                    frc, Integer.toString(l.numeroHormigas()), l.getX(), l.getY(),
+                    frc, Integer.toString(localizadorHormigas.numeroHormigas(l)), l.getX(), l.getY(),
                     xInicio, PIXELES_MARGEN
                 );
 			}
 
 			// Indicar la cantidad de feromona depositada en cada carretera
+			final AlmacenFeromona almacenFeromona = grafoCarreteras.getAlmacenFeromona();
 			for (final Carretera c : grafoCarreteras.carreteras()) {
 				dibujarEtiquetaTexto(
 					g2d, tipografiaNumEtiqueta, colorFondoFeromonas, colorFeromonas,
-					frc, String.format("%+,6.4f", c.getNivelFeromona()), c.getInfoX(), c.getInfoY(),
+					frc, String.format("%+,6.4f", almacenFeromona.get(c.getId())), c.getInfoX(), c.getInfoY(),
 					xInicio, PIXELES_MARGEN
 				);
 			}
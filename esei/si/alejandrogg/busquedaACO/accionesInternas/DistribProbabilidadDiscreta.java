@@ -1,142 +1,144 @@
 package esei.si.alejandrogg.busquedaACO.accionesInternas;
 
-import java.util.Iterator;
-import java.util.List;
-import java.util.Deque;
-import java.util.ArrayDeque;
-import java.util.Random;
-//import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import esei.si.alejandrogg.busquedaACO.TablaAlias;
 
 /**
  * Modela una distribución de probabilidad discreta, de la que se puede obtener
  * un número natural aleatorio K con probabilidad pk = P(K), donde P(K) es el valor
  * correspondiente de la función masa de probabilidad discreta.
  *
- * El algoritmo usado es una variante del método de alias propuesta por Michael D. Vose,
- * en su artículo "A Linear Algorithm For Generating Random Numbers With a Given Distribution".
- * Esta variante tiene un tiempo de inicialización O(n) y tiempo de muestreo O(1) para todos
- * los casos, lo que lo convierte en la más eficiente de su categoría.
+ * La distribución se representa con una tabla de alias, que se construye y muestrea
+ * con {@link TablaAlias}, en tiempo O(n) y O(1), respectivamente.
+ *
+ * Para que muestrear no reserve memoria, cada hilo reutiliza una misma instancia, obtenida con
+ * {@link #delHilo()}, cuyos arrays de trabajo de tipos primitivos solo crecen cuando se necesitan
+ * más elementos que nunca antes, y que usa su propio generador de números aleatorios, derivado
+ * de un generador común. Las instancias no son seguras para ser usadas por varios hilos.
  * @author Alejandro González García
  */
 final class DistribProbabilidadDiscreta {
+    /**
+     * El generador de números aleatorios del que se derivan los generadores de cada hilo.
+     * Como no es seguro para ser usado por varios hilos, se accede a él de manera sincronizada.
+     */
+    private static final SplittableRandom rngRaiz = new SplittableRandom();
+    /**
+     * La instancia de esta clase asociada a cada hilo.
+     */
+    private static final ThreadLocal<DistribProbabilidadDiscreta> instanciaHilo = ThreadLocal.withInitial(() -> {
+        synchronized (rngRaiz) {
+            return new DistribProbabilidadDiscreta(rngRaiz.split());
+        }
+    });
+    /**
+     * La capacidad inicial de los arrays de trabajo, suficiente para el grado de las
+     * localidades de la mayoría de mapas.
+     */
+    private static final int CAPACIDAD_INICIAL = 16;
+
     /**
      * El generador de números aleatorios de una distribución uniforme que usa esta distribución.
      * Su calidad es decisiva para obtener unos resultados matemáticamente apropiados.
      */
-    private final Random rng;
+    private final SplittableRandom rng;
+    /**
+     * Los pesos de la función masa de probabilidad, que rellena quien usa la distribución.
+     */
+    private double[] pesos;
     /**
      * Variable de trabajo que contiene probabilidades intermedias.
      */
-    private final double[] prob;
+    private double[] prob;
     /**
      * Variable de trabajo que contiene alias.
      */
-    private final int[] alias;
+    private int[] alias;
+    /**
+     * Pila de trabajo con los elementos de probabilidad menor que la media.
+     */
+    private int[] peque;
+    /**
+     * Pila de trabajo con los elementos de probabilidad mayor o igual que la media.
+     */
+    private int[] grande;
     /**
      * El número de elementos para los que está definida la función masa de probabilidad.
      */
-    private final int n;
+    private int n = 0;
 
     /**
-     * Inicializa una nueva distribución de probabilidad discreta a partir de su función masa de
-     * probabilidad y un generador de números aleatorios.
-     * @param valoresMasaProb Los valores de la función masa de probabilidad. Los índices del array
-     * se interpretan como las preimágenes del valor correspondiente a su posición. Es decir, el valor
-     * 0 tendría una probabilidad valoresMasaProb[0] de salir; el 1, valoresMasaProb[1], y así
-     * sucesivamente. Aunque el algoritmo funciona igualmente con otro tipo de listas, es recomendable
-     * que implementen la interfaz RandomAccess, pues ello implica que los accesos a posiciones arbitrarias
-     * son de complejidad O(1), y la inicialización del objeto se completará más rápido.
-     * @param rng El generador de números aleatorios a usar para muestrear la distribución, cuando
-     * sea necesario.
+     * Crea una nueva distribución de probabilidad discreta, sin elementos.
+     * @param rng El generador de números aleatorios a usar para muestrear la distribución.
      */
-    public DistribProbabilidadDiscreta(final List<Double> valoresMasaProb, final Random rng) {
-        if (valoresMasaProb == null || valoresMasaProb.isEmpty()) {
-            throw new IllegalArgumentException("La función masa de probabilidad discreta no está definida para ningún valor.");
-        }
-
-        if (rng == null) {
-            throw new IllegalArgumentException("No se puede generar una distribución de probabilidad a partir de un RNG nulo.");
-        }
+    private DistribProbabilidadDiscreta(final SplittableRandom rng) {
         this.rng = rng;
+        this.pesos = new double[CAPACIDAD_INICIAL];
+        this.prob = new double[CAPACIDAD_INICIAL];
+        this.alias = new int[CAPACIDAD_INICIAL];
+        this.peque = new int[CAPACIDAD_INICIAL];
+        this.grande = new int[CAPACIDAD_INICIAL];
+    }
 
-        // Inicialización de variables y estructuras de datos
-        this.n = valoresMasaProb.size();
-        this.alias = new int[n];
-        this.prob = new double[n];
-        final double equiprobabilidad = 1.0 / n;
-        final Deque<Integer> peque = new ArrayDeque<>(n);
-        final Deque<Integer> grande = new ArrayDeque<>(n);
-
-        // Inicializamos las colas de valores de la función de masa de probabilidad pequeños y grandes.
-        // De paso, comprobamos que la función masa de probabilidad sea coherente
-        double total = 0;
-        int i = 0;
-        for (double v : valoresMasaProb) {
-            if (v > equiprobabilidad) {
-                grande.push(i++);
-            } else {
-                peque.push(i++);
-            }
-
-            total += v;
-        }
-        // La función masa de probabilidad define el espacio muestral. Por tanto,
-        // incluye el suceso seguro, cuya probabilidad es 1. Permitimos algo de error
-        // al comprobar si la suma de las probabilidades es 1
-        if (total < 0.9999999 || total > 1.0000001) {
-            throw new IllegalArgumentException("La función masa de probabilidad no cumple su definición: la suma de todos sus valores no es 1.");
-        }
+    /**
+     * Obtiene la distribución de probabilidad discreta reutilizable del hilo actual.
+     * @return La devandicha distribución.
+     */
+    static DistribProbabilidadDiscreta delHilo() {
+        return instanciaHilo.get();
+    }
 
-        while (!peque.isEmpty() && !grande.isEmpty()) {
-            final int l = peque.pop();
-            final int g = grande.pop();
-
-            // Actualizamos valores según corresponda
-            prob[l] = n * valoresMasaProb.get(l);
-            alias[l] = g;
-
-            final double nuevaProb = valoresMasaProb.get(g) + (valoresMasaProb.get(l) - equiprobabilidad);
-            valoresMasaProb.set(g, nuevaProb);
-            if (nuevaProb > equiprobabilidad) {
-                grande.push(g);
-            } else {
-                peque.push(g);
-            }
+    /**
+     * Obtiene el array donde escribir los pesos de la función masa de probabilidad antes de
+     * llamar a {@link #inicializar(int)}, asegurando que tenga capacidad para un número de elementos.
+     * El peso del valor 0 se escribe en la posición 0; el del 1, en la posición 1, y así sucesivamente.
+     * @param elementos El número de elementos que tendrá la distribución.
+     * @return El devandicho array, que puede tener más posiciones que elementos.
+     */
+    double[] pesos(final int elementos) {
+        if (elementos > pesos.length) {
+            final int capacidad = Math.max(elementos, pesos.length * 2);
+
+            pesos = new double[capacidad];
+            prob = new double[capacidad];
+            alias = new int[capacidad];
+            peque = new int[capacidad];
+            grande = new int[capacidad];
         }
 
-        // Consumir elementos restantes hasta agotarlos
-        while (!grande.isEmpty()) {
-            prob[grande.pop()] = 1;
-        }
-        while (!peque.isEmpty()) {
-            prob[peque.pop()] = 1;
-        }
+        return pesos;
     }
 
     /**
-     * Inicializa una nueva distribución de probabilidad discreta a partir de su función masa de
-     * probabilidad, usando como generador de números aleatorios la implementación de Random
-     * disponible en Java, basada en un generador lineal congruencial.
-     * @param valoresMasaProb Los valores de la función masa de probabilidad. Los índices del array
-     * se interpretan como las preimágenes del valor correspondiente a su posición. Es decir, el valor
-     * 0 tendría una probabilidad valoresMasaProb[0] de salir; el 1, valoresMasaProb[1], y así
-     * sucesivamente. Aunque el algoritmo funciona igualmente con otro tipo de listas, es recomendable
-     * que implementen la interfaz RandomAccess, pues ello implica que los accesos a posiciones arbitrarias
-     * son de complejidad O(1), y la inicialización del objeto se completará más rápido.
+     * Inicializa la distribución a partir de los pesos escritos en el array devuelto por
+     * {@link #pesos(int)}. Los pesos no necesitan estar normalizados: la probabilidad de cada
+     * valor es su peso dividido entre la suma de todos.
+     * @param elementos El número de elementos de la distribución.
+     * @throws IllegalArgumentException Si no hay elementos, algún peso es negativo o no es finito,
+     * o la suma de todos no es positiva.
      */
-    public DistribProbabilidadDiscreta(final List<Double> valoresMasaProb) {
-        this(valoresMasaProb, new Random());
+    void inicializar(final int elementos) {
+        if (elementos < 1 || elementos > pesos.length) {
+            throw new IllegalArgumentException("La función masa de probabilidad discreta no está definida para ningún valor, o no se han reservado sus pesos.");
+        }
+
+        TablaAlias.construir(pesos, elementos, prob, alias, peque, grande);
+        this.n = elementos;
     }
 
     /**
      * Obtiene una muestra aleatoria de la distribución de probabilidad discreta que
      * representa este objeto, de acuerdo con la probabilidad de que salga cada elemento.
      * @return La devandicha muestra aleatoria.
+     * @throws IllegalStateException Si la distribución no se ha inicializado.
      */
-    public int next() {
-        final double u = rng.nextDouble() * n;
-        final int j = (int) u;
-        return u - j <= prob[j] ? j : alias[j];
+    int next() {
+        if (n == 0) {
+            throw new IllegalStateException("No se puede muestrear una distribución sin inicializar.");
+        }
+
+        return TablaAlias.muestrear(prob, alias, n, rng.nextDouble());
     }
 
     // Código usado para hacerse a la idea de si el algoritmo muestra un funcionamiento correcto
@@ -144,9 +146,11 @@ final class DistribProbabilidadDiscreta {
         // Con un millón de muestras se debe de apreciar una gran convergencia hacia
         // los valores de probabilidad reales, dados por la función masa de probabilidad
         final int totalMuestras = 1000000;
-        final List<Double> masaProb = Arrays.asList(0.15, 0.1, 0.05, 0.7);
-        final DistribProbabilidadDiscreta d = new DistribProbabilidadDiscreta(masaProb);
-        final int[] muestrasPorNum = new int[masaProb.size()];
+        final double[] masaProb = { 0.15, 0.1, 0.05, 0.7 };
+        final DistribProbabilidadDiscreta d = DistribProbabilidadDiscreta.delHilo();
+        System.arraycopy(masaProb, 0, d.pesos(masaProb.length), 0, masaProb.length);
+        d.inicializar(masaProb.length);
+        final int[] muestrasPorNum = new int[masaProb.length];
         int i = 0;
 
         // Tomamos totalMuestras muestras, y contamos cuántas veces ha salido cada resultado
@@ -160,4 +164,4 @@ final class DistribProbabilidadDiscreta {
             System.out.println("Probabilidad estimada de i = " + i + ": " + ((double) muestrasPorNum[i]) / totalMuestras);
         }
     }*/
-}
\ No newline at end of file
+}
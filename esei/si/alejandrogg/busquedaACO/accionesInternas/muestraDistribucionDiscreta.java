@@ -2,9 +2,6 @@
 
 package esei.si.alejandrogg.busquedaACO.accionesInternas;
 
-import java.util.List;
-import java.util.ArrayList;
-
 import jason.JasonException;
 import jason.asSemantics.DefaultInternalAction;
 import jason.asSemantics.InternalAction;
@@ -15,9 +12,6 @@ import jason.asSyntax.NumberTerm;
 import jason.asSyntax.NumberTermImpl;
 import jason.asSyntax.ListTerm;
 
-import esei.si.alejandrogg.busquedaACO.Mundo;
-import esei.si.alejandrogg.busquedaACO.agentes.ArquitecturaHormiga;
-
 /**
  * Obtiene una muestra aleatoria de una distribución discreta dada, definida por su función
  * masa de probabilidad.
@@ -66,21 +60,29 @@ public class muestraDistribucionDiscreta extends DefaultInternalAction {
         checkArguments(args);
 
         if (args[0] instanceof ListTerm) {
-            // Lista para albergar los valores de la función masa de probabilidad
-            final List<Double> f = new ArrayList<>(Mundo.get().getNumeroLocalidades()); // Como mucho, tendremos n valores para las n localidades
+            final ListTerm l = (ListTerm) args[0];
+            final DistribProbabilidadDiscreta distrib = DistribProbabilidadDiscreta.delHilo();
+            // Array reutilizado por el hilo para albergar los valores de la función masa de probabilidad
+            final double[] f = distrib.pesos(l.size());
+            int i = 0;
 
             // Reinterpretar los términos de la lista como números, si es posible, y añadirlos
-            // a la lista de valores de la función masa de probabilidad
-            for (Term t : (ListTerm) args[0]) {
+            // al array de valores de la función masa de probabilidad
+            for (Term t : l) {
                 if (t.isNumeric()) {
-                    f.add(((NumberTerm) t).solve());
+                    f[i++] = ((NumberTerm) t).solve();
                 } else {
                     throw new JasonException("Un elemento de la función masa de probabilidad no es un número.");
                 }
             }
 
             // Unificar el segundo parámetro con el resultado de la muestra
-            toret = un.unifies(new NumberTermImpl(new DistribProbabilidadDiscreta(f).next()), args[1]);
+            try {
+                distrib.inicializar(i);
+            } catch (final IllegalArgumentException exc) {
+                throw new JasonException(exc.getMessage());
+            }
+            toret = un.unifies(new NumberTermImpl(distrib.next()), args[1]);
         } else {
             // Esto no debería de ocurrir bajo condiciones normales de ejecución
             throw new AssertionError();
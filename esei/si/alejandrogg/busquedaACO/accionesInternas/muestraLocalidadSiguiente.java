@@ -0,0 +1,103 @@
+// Código de acción interna para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO.accionesInternas;
+
+import java.util.Set;
+import java.util.HashSet;
+
+import jason.JasonException;
+import jason.asSemantics.DefaultInternalAction;
+import jason.asSemantics.InternalAction;
+import jason.asSemantics.TransitionSystem;
+import jason.asSemantics.Unifier;
+import jason.asSyntax.Atom;
+import jason.asSyntax.Term;
+import jason.asSyntax.ListTerm;
+
+import esei.si.alejandrogg.busquedaACO.GestorPercepciones;
+import esei.si.alejandrogg.busquedaACO.Localidad;
+import esei.si.alejandrogg.busquedaACO.Mundo;
+
+/**
+ * Obtiene una muestra aleatoria de la localidad a la que desplazarse desde la localidad actual,
+ * de entre las adyacentes que no se han visitado, en función de los niveles de feromona actuales
+ * y las distancias de las carreteras. Los pesos de elección de las carreteras los precalcula el
+ * entorno tras cada actualización de feromona, con los exponentes de importancia configurados en
+ * el mundo. Los argumentos son, en orden: la localidad actual, la lista de localidades visitadas y
+ * la localidad siguiente escogida. La acción interna falla si no hay localidades candidatas.
+ * @serial exclude
+ */
+public class muestraLocalidadSiguiente extends DefaultInternalAction {
+    /**
+     * La única instancia existente en la JVM de esta acción interna (patrón singleton).
+     */
+    private static InternalAction instancia = null;
+
+    /**
+     * Obtiene, creando si y solo si es necesario, la única instancia de esta clase.
+     * @return La única instancia de esta clase.
+     */
+    public static InternalAction create() {
+        if (instancia == null) {
+            instancia = new muestraLocalidadSiguiente();
+        }
+        return instancia;
+    }
+
+    @Override
+    public int getMinArgs() {
+        return 3;
+    }
+
+    @Override
+    public int getMaxArgs() {
+        return 3;
+    }
+
+    @Override
+    protected void checkArguments(final Term[] args) throws JasonException {
+        super.checkArguments(args);
+
+        if (!args[0].isAtom()) {
+            throw JasonException.createWrongArgument(this, "El primer argumento debe de ser la localidad actual.");
+        }
+        if (!args[1].isList()) {
+            throw JasonException.createWrongArgument(this, "El segundo argumento debe de ser una lista de localidades visitadas.");
+        }
+    }
+
+    @Override
+    public Object execute(final TransitionSystem ts, final Unifier un, final Term[] args) throws Exception {
+        boolean toret = false;
+
+        checkArguments(args);
+
+        final Mundo mundo = Mundo.get();
+        final GestorPercepciones gp = mundo.getGestorPercepciones();
+        final Localidad actual = gp.localidadAtomo((Atom) args[0]);
+        if (actual == null) {
+            throw new JasonException("La localidad actual no existe: " + args[0]);
+        }
+
+        // Reinterpretar los términos de la lista como localidades, si es posible
+        final ListTerm listaVisitadas = (ListTerm) args[1];
+        final Set<Localidad> visitadas = new HashSet<>((int) (listaVisitadas.size() / 0.75) + 1, 0.75f);
+        for (final Term t : listaVisitadas) {
+            final Localidad l = t.isAtom() ? gp.localidadAtomo((Atom) t) : null;
+            if (l != null) {
+                visitadas.add(l);
+            } else {
+                throw new JasonException("Un elemento de la lista de localidades visitadas no es una localidad: " + t);
+            }
+        }
+
+        final Localidad siguiente = mundo.getSelectorLocalidadSiguiente().localidadSiguiente(actual, visitadas);
+
+        // Unificar el último parámetro con la localidad escogida, si la hay
+        if (siguiente != null) {
+            toret = un.unifies(gp.atomoLocalidad(siguiente), args[2]);
+        }
+
+        return toret;
+    }
+}
@@ -0,0 +1,324 @@
+package esei.si.alejandrogg.busquedaACO.agentes;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import jason.asSemantics.Agent;
+import jason.asSemantics.Unifier;
+import jason.asSyntax.Atom;
+import jason.asSyntax.Literal;
+import jason.asSyntax.PredicateIndicator;
+import jason.asSyntax.Term;
+import jason.asSyntax.VarTerm;
+import jason.bb.DefaultBeliefBase;
+
+import esei.si.alejandrogg.busquedaACO.GestorPercepciones;
+import esei.si.alejandrogg.busquedaACO.Mundo;
+
+/**
+ * Modela la base de creencias de un agente hormiga. Las percepciones comunes a todas las hormigas,
+ * carretera/4, localidadANombre/2, importanciaFeromona/1 e importanciaDistancia/1, no se guardan
+ * en cada base de creencias, sino que se consultan directamente al {@link GestorPercepciones} del
+ * entorno, indexadas por su primer argumento y, en el caso de carretera/4, también por el segundo.
+ * Las demás creencias, como estoyEn, localidadVisitada o camino_dl, y las reglas, se guardan como en
+ * una base de creencias convencional.
+ *
+ * Las consultas de carretera/4 y localidadANombre/2 sin argumentos de localidad instanciados solo
+ * obtienen las percepciones del vecindario de la localidad donde está la hormiga, como las que le
+ * envía el entorno, y no las de todo el mapa. Como las percepciones comunes no se guardan, no se
+ * recorren al iterar sobre la base de creencias ni cuentan para su tamaño.
+ * @implNote. La clase asume que el entorno es accesible desde la JVM local.
+ * @author Alejandro González García
+ */
+public final class BaseCreenciasHormiga extends DefaultBeliefBase {
+    /**
+     * El gestor de percepciones del entorno, obtenido la primera vez que se necesita.
+     */
+    private volatile GestorPercepciones gp = null;
+    /**
+     * El agente al que pertenece esta base de creencias.
+     */
+    private volatile Agent agente = null;
+    /**
+     * El nombre del agente al que pertenece esta base de creencias, obtenido la primera vez que se
+     * necesita.
+     */
+    private volatile String nombreAgente = null;
+
+    @Override
+    public void init(final Agent ag, final String[] args) {
+        super.init(ag, args);
+        this.agente = ag;
+    }
+
+    /**
+     * {@inheritDoc} Las percepciones comunes a todas las hormigas no se añaden, pues se consultan
+     * al entorno.
+     */
+    @Override
+    public boolean add(final Literal l) {
+        return !esPercepcionComun(l) && super.add(l);
+    }
+
+    /**
+     * {@inheritDoc} Las percepciones comunes a todas las hormigas no se eliminan, pues no se guardan.
+     */
+    @Override
+    public boolean remove(final Literal l) {
+        return !esPercepcionComun(l) && super.remove(l);
+    }
+
+    @Override
+    public Literal contains(final Literal l) {
+        Literal toret = null;
+
+        if (esPredicadoComun(l.getFunctor(), l.getArity()) && !l.isRule()) {
+            final Iterator<Literal> candidatas = percepcionesComunes(l.getFunctor(), l.getTerm(0), l.getArity() > 1 ? l.getTerm(1) : null);
+            while (toret == null && candidatas.hasNext()) {
+                final Literal candidata = candidatas.next();
+                if (mismosArgumentos(l, candidata)) {
+                    toret = candidata;
+                }
+            }
+        }
+
+        return toret != null ? toret : super.contains(l);
+    }
+
+    /**
+     * {@inheritDoc} Para las percepciones comunes a todas las hormigas, si el primer argumento
+     * está instanciado, solo se devuelven las que coinciden en él. Para carretera/4, si solo está
+     * instanciado el segundo argumento, solo se devuelven las que coinciden en él.
+     */
+    @Override
+    public Iterator<Literal> getCandidateBeliefs(final Literal l, final Unifier u) {
+        Iterator<Literal> toret = super.getCandidateBeliefs(l, u);
+
+        if (esPredicadoComun(l.getFunctor(), l.getArity())) {
+            final Term primerArgumento = valorArgumento(l.getTerm(0), u);
+            final Term segundoArgumento = l.getArity() > 1 ? valorArgumento(l.getTerm(1), u) : null;
+
+            toret = new IteradorConcatenado(percepcionesComunes(l.getFunctor(), primerArgumento, segundoArgumento), toret);
+        }
+
+        return toret;
+    }
+
+    @Override
+    public Iterator<Literal> getCandidateBeliefs(final PredicateIndicator pi) {
+        Iterator<Literal> toret = super.getCandidateBeliefs(pi);
+
+        if (esPredicadoComun(pi.getFunctor(), pi.getArity())) {
+            toret = new IteradorConcatenado(percepcionesComunes(pi.getFunctor(), null, null), toret);
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene las percepciones comunes de un predicado que pueden unificar con sus dos primeros argumentos.
+     * @param funtor El funtor del predicado, que debe de ser común a todas las hormigas.
+     * @param primerArgumento El primer argumento, o nulo o una variable si puede ser cualquiera.
+     * @param segundoArgumento El segundo argumento, o nulo o una variable si puede ser cualquiera.
+     * Solo se tiene en cuenta para carretera/4.
+     * @return Un iterador sobre las devandichas percepciones.
+     */
+    private Iterator<Literal> percepcionesComunes(final String funtor, final Term primerArgumento, final Term segundoArgumento) {
+        final GestorPercepciones gp = getGestorPercepciones();
+        final Atom localidad = primerArgumento != null && primerArgumento.isAtom() ? (Atom) primerArgumento : null;
+        final boolean cualquiera = primerArgumento == null || primerArgumento.isVar();
+        final Iterator<Literal> toret;
+
+        switch (funtor) {
+            case "carretera":
+                if (cualquiera) {
+                    if (segundoArgumento != null && segundoArgumento.isAtom()) {
+                        toret = gp.percepcionesCarreterasHasta((Atom) segundoArgumento).iterator();
+                    } else if (segundoArgumento == null || segundoArgumento.isVar()) {
+                        toret = gp.percepcionesCarreterasVecindario(getNombreAgente()).iterator();
+                    } else {
+                        toret = Collections.emptyIterator();
+                    }
+                } else if (localidad != null) {
+                    toret = gp.percepcionesCarreterasDesde(localidad).iterator();
+                } else {
+                    toret = Collections.emptyIterator();
+                }
+                break;
+            case "localidadANombre":
+                if (cualquiera) {
+                    toret = gp.percepcionesNombresVecindario(getNombreAgente()).iterator();
+                } else {
+                    final Literal percepcion = localidad == null ? null : gp.percepcionNombre(localidad);
+                    toret = percepcion == null ? Collections.emptyIterator() : Collections.singleton(percepcion).iterator();
+                }
+                break;
+            case "importanciaFeromona":
+                toret = Collections.singleton(gp.percepcionImportanciaFeromona()).iterator();
+                break;
+            case "importanciaDistancia":
+                toret = Collections.singleton(gp.percepcionImportanciaDistancia()).iterator();
+                break;
+            default:
+                // Esto no debería de ocurrir bajo condiciones normales de ejecución
+                throw new AssertionError();
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene el gestor de percepciones del entorno, esperando a que se inicialice si es
+     * necesario.
+     * @return El devandicho gestor.
+     */
+    private GestorPercepciones getGestorPercepciones() {
+        GestorPercepciones toret = gp;
+
+        if (toret == null) {
+            toret = Mundo.get().getGestorPercepciones();
+            gp = toret;
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene el nombre del agente al que pertenece esta base de creencias.
+     * @return El devandicho nombre, o nulo si todavía no se conoce.
+     */
+    private String getNombreAgente() {
+        String toret = nombreAgente;
+
+        if (toret == null && agente != null && agente.getTS() != null && agente.getTS().getUserAgArch() != null) {
+            toret = agente.getTS().getUserAgArch().getAgName();
+            nombreAgente = toret;
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene el valor de un argumento de una consulta: si es una variable ligada por el unificador,
+     * su valor, y en otro caso el propio argumento.
+     * @param argumento El argumento.
+     * @param u El unificador de la consulta, que puede ser nulo.
+     * @return El devandicho valor.
+     */
+    private static Term valorArgumento(final Term argumento, final Unifier u) {
+        Term toret = argumento;
+
+        if (argumento.isVar() && u != null) {
+            final Term valor = u.get((VarTerm) argumento);
+            if (valor != null) {
+                toret = valor;
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Comprueba si un literal es una percepción común a todas las hormigas, que no se debe de
+     * guardar en la base de creencias.
+     * @param l El literal a comprobar.
+     * @return Verdadero si el literal es una percepción común, falso en caso contrario.
+     */
+    private static boolean esPercepcionComun(final Literal l) {
+        return esPredicadoComun(l.getFunctor(), l.getArity()) && !l.isRule() && l.hasSource(TPercept);
+    }
+
+    /**
+     * Comprueba si un predicado es uno de los que se perciben igual por todas las hormigas.
+     * @param funtor El funtor del predicado.
+     * @param aridad La aridad del predicado.
+     * @return Verdadero si el predicado es común a todas las hormigas, falso en caso contrario.
+     */
+    private static boolean esPredicadoComun(final String funtor, final int aridad) {
+        final boolean toret;
+
+        if (funtor == null) {
+            toret = false;
+        } else {
+            switch (funtor) {
+                case "carretera":
+                    toret = aridad == 4;
+                    break;
+                case "localidadANombre":
+                    toret = aridad == 2;
+                    break;
+                case "importanciaFeromona":
+                case "importanciaDistancia":
+                    toret = aridad == 1;
+                    break;
+                default:
+                    toret = false;
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Comprueba si dos literales del mismo predicado tienen los mismos argumentos, sin tener en
+     * cuenta sus anotaciones.
+     * @param a Un literal.
+     * @param b El otro literal.
+     * @return Verdadero si tienen los mismos argumentos, falso en caso contrario.
+     */
+    private static boolean mismosArgumentos(final Literal a, final Literal b) {
+        boolean toret = a.getArity() == b.getArity();
+
+        for (int i = 0; toret && i < a.getArity(); ++i) {
+            toret = a.getTerm(i).equals(b.getTerm(i));
+        }
+
+        return toret;
+    }
+
+    /**
+     * Iterador que recorre los elementos de un iterador y, a continuación, los de otro.
+     * @author Alejandro González García
+     */
+    private static final class IteradorConcatenado implements Iterator<Literal> {
+        /**
+         * El iterador a recorrer primero.
+         */
+        private final Iterator<Literal> primero;
+        /**
+         * El iterador a recorrer después, que puede ser nulo si no hay más elementos.
+         */
+        private final Iterator<Literal> segundo;
+
+        /**
+         * Crea un nuevo iterador concatenado.
+         * @param primero El iterador a recorrer primero.
+         * @param segundo El iterador a recorrer después, que puede ser nulo.
+         */
+        IteradorConcatenado(final Iterator<Literal> primero, final Iterator<Literal> segundo) {
+            this.primero = primero;
+            this.segundo = segundo;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return primero.hasNext() || segundo != null && segundo.hasNext();
+        }
+
+        @Override
+        public Literal next() {
+            final Literal toret;
+
+            if (primero.hasNext()) {
+                toret = primero.next();
+            } else if (segundo != null) {
+                toret = segundo.next();
+            } else {
+                throw new NoSuchElementException();
+            }
+
+            return toret;
+        }
+    }
+}
\ No newline at end of file
@@ -2,9 +2,7 @@
 
 package esei.si.alejandrogg.busquedaACO.algoritmos;
 
-import java.util.List;
-import java.util.Map;
-
+import esei.si.alejandrogg.busquedaACO.AlmacenFeromona;
 import esei.si.alejandrogg.busquedaACO.Camino;
 import esei.si.alejandrogg.busquedaACO.Carretera;
 import esei.si.alejandrogg.busquedaACO.Localidad;
@@ -74,33 +72,36 @@ final class AntCycle extends BaseAlgoritmo {
     @Override
     public void procesarArco(final Carretera carretera) {}
 
+    /**
+     * Calcula el depósito de feromona de una hormiga en cada carretera del camino solución que ha recorrido,
+     * Δt = Q / L, donde Q es una constante real positiva pequeña y L la distancia del camino.
+     * @param camino El camino solución recorrido por la hormiga.
+     * @return El devandicho depósito.
+     */
+    @Override
+    protected double aporteCamino(final Camino camino) {
+        return q / camino.distanciaTotal();
+    }
+
     /**
      * Evapora las feromonas presentes en todas las carreteras, de manera que el nuevo nivel de feromona de cada carretera
      * sea t = ρ · t, donde ρ ∈ [0, 1] es el coeficiente de retención del algoritmo, y a continuación simula el depósito de feromonas
      * de las hormigas en las carreteras por las que pasaron, de manera que el nuevo valor de t de tales carreteras sea
-     * t = t + Δt, siendo Δt = Q / L, donde Q es una constante real positiva pequeña y L la distancia del camino solución recorrido
-     * por cada hormiga.
-     * @param caminosCarretera El mapa que relaciona cada carretera con los caminos solución que pasan por ella.
+     * t = t + ΣΔt, siendo cada Δt el depósito calculado por {@link aporteCamino} para cada camino solución recorrido por
+     * una hormiga que pasa por la carretera.
+     * @param aportesCarretera Los depósitos acumulados en cada carretera, indexados por su identificador.
      */
     @Override
-    public void procesarCaminosSolucionCiclo(final Map<Carretera, List<Camino>> caminosCarretera) {
-        // TODO: paralelizar con Spliterators
-        for (final Carretera carretera : grafoCarreteras.carreteras()) {
-            // Evaporar feromona, teniendo en cuenta el coeficiente de retención
-            carretera.actualizarNivelFeromona(gestorPercepciones, (final Double t) -> {
-                return coeficienteRetencion * t;
-            });
+    public void procesarCaminosSolucionCiclo(final double[] aportesCarretera) {
+        final AlmacenFeromona almacenFeromona = grafoCarreteras.getAlmacenFeromona();
 
-            // Para los caminos que pasan por aquí, depositar feromonas de acuerdo a sus características
-            final List<Camino> caminos = caminosCarretera.get(carretera);
-            if (caminos != null) {
-                for (final Camino camino : caminos) {
-                    carretera.actualizarNivelFeromona(gestorPercepciones, (final Double t) -> {
-                        final double deltaT = q / camino.distanciaTotal();
-                        return t + deltaT;
-                    });
-                }
-            }
-        }
+        // Evaporar feromona de todas las carreteras a la vez, teniendo en cuenta el coeficiente de retención
+        almacenFeromona.escalar(coeficienteRetencion);
+
+        // Depositar la feromona acumulada en cada carretera por la que pasan caminos, en una única pasada
+        almacenFeromona.sumarTodos(aportesCarretera);
+
+        // Informar a las hormigas de los niveles de feromona resultantes, en un único lote
+        gestorPercepciones.publicarCambiosFeromona();
     }
 }
\ No newline at end of file
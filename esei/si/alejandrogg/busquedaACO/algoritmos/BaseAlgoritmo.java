@@ -2,17 +2,16 @@
 
 package esei.si.alejandrogg.busquedaACO.algoritmos;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
 import java.util.NoSuchElementException;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
 
 import jason.asSyntax.Atom;
 import jason.asSyntax.Term;
@@ -24,6 +23,9 @@ import esei.si.alejandrogg.busquedaACO.Mundo;
 import esei.si.alejandrogg.busquedaACO.Localidad;
 import esei.si.alejandrogg.busquedaACO.GestorPercepciones;
 import esei.si.alejandrogg.busquedaACO.GrafoCarreteras;
+import esei.si.alejandrogg.busquedaACO.util.ColaAnilloMpsc;
+import esei.si.alejandrogg.busquedaACO.util.HilosVirtuales;
+import esei.si.alejandrogg.busquedaACO.util.TablaLargoAEntero;
 
 /**
  * Implementa lógica de uso común por parte de algoritmos de búsqueda basados
@@ -36,6 +38,14 @@ import esei.si.alejandrogg.busquedaACO.GrafoCarreteras;
  * modifica los niveles de feromona del entorno. En consecuencia, lo más habitual es que las subclases se
  * centren en añadirle estrategias concretas de actualización de feromonas.
  *
+ * Los sucesos notificados por las hormigas (arcos recorridos, caminos encontrados y muertes) se publican
+ * en una cola circular, y los aplica en orden un único hilo propietario del estado del algoritmo, por lo
+ * que tal estado se guarda en estructuras de datos sin sincronización. El avance de la iteración también
+ * se publica como un suceso, tras los notificados hasta entonces, y el hilo que lo solicita espera a que
+ * el hilo propietario lo aplique para conocer su resultado. Así, la muerte de una hormiga, que puede
+ * notificarse en cualquier momento, nunca se aplica a la vez que el final de una iteración. En consecuencia,
+ * tanto {@link procesarArco} como {@link procesarCaminosSolucionCiclo} se ejecutan en el hilo propietario.
+ *
  * @author Alejandro González García
  */
 abstract class BaseAlgoritmo implements Algoritmo {
@@ -57,47 +67,172 @@ abstract class BaseAlgoritmo implements Algoritmo {
      */
     private final int ciclosMaximos;
     /**
-     * El ciclo actual en el que se encuentra la ejecución del algoritmo.
+     * El número máximo de sucesos pendientes de aplicar por el hilo propietario. Si se alcanza,
+     * las hormigas esperan a que se apliquen algunos antes de publicar los suyos.
      */
-    private final LongAdder ciclo;
+    private static final int CAPACIDAD_SUCESOS = 8192;
+    /**
+     * El número de posiciones de la caché de caminos internados. Debe de ser una potencia de 2.
+     */
+    private static final int CAPACIDAD_CACHE_CAMINOS = 4096;
+
+    /**
+     * El ciclo actual en el que se encuentra la ejecución del algoritmo. Solo lo modifica el
+     * hilo propietario.
+     */
+    private volatile int ciclo = 1;
     /**
      * La localidad de destino asociada a este algoritmo.
      */
     private final Localidad localidadDestino;
 
     /**
-     * El conjunto de hormigas que se han desplazado mediante un arco en la iteración actual.
+     * La cola de sucesos publicados por las hormigas, pendientes de aplicar por el hilo propietario.
+     */
+    private final ColaAnilloMpsc<Suceso> sucesos = new ColaAnilloMpsc<>(CAPACIDAD_SUCESOS);
+    /**
+     * El hilo propietario del estado del algoritmo, que aplica los sucesos publicados.
+     */
+    private final Thread hiloPropietario = HilosVirtuales.factoria("Algoritmo-").newThread(this::aplicarSucesos);
+    /**
+     * Indica si ya se ha iniciado el hilo propietario, lo que se hace al publicar el primer suceso.
+     */
+    private final AtomicBoolean hiloPropietarioIniciado = new AtomicBoolean();
+    /**
+     * Indica si el hilo propietario se ha aparcado, o va a hacerlo, por no haber sucesos que aplicar.
+     */
+    private volatile boolean hiloPropietarioAparcado = false;
+    /**
+     * El número de sucesos aplicados por el hilo propietario. Solo lo modifica el hilo propietario,
+     * después de aplicar cada suceso.
+     */
+    private volatile long sucesosAplicados = 0;
+    /**
+     * El hilo que espera a que se apliquen los sucesos publicados, si lo hay.
+     */
+    private volatile Thread hiloEsperaSucesos = null;
+    /**
+     * Indica si se ha detenido el algoritmo, y el hilo propietario debe de terminar.
+     */
+    private volatile boolean detenido = false;
+    /**
+     * Indica si el último avance de iteración aplicado por el hilo propietario empezó un nuevo
+     * ciclo. Se publica al hilo que solicitó el avance mediante {@link sucesosAplicados}.
+     */
+    private boolean avanceNuevoCiclo = false;
+    /**
+     * La excepción que lanzó el último avance de iteración aplicado por el hilo propietario, para
+     * relanzarla en el hilo que lo solicitó, o nulo si no lanzó ninguna. Se publica al hilo que
+     * solicitó el avance mediante {@link sucesosAplicados}.
+     */
+    private RuntimeException excepcionAvance = null;
+
+    /**
+     * El conjunto de identificadores de hormigas que se han desplazado mediante un arco en la
+     * iteración actual.
      */
-    private final Set<String> hormigasRecorridoArco = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final BitSet hormigasRecorridoArco = new BitSet();
     /**
-     * El conjunto de hormigas que han encontrado un camino en el ciclo actual, sea solución o no.
+     * El conjunto de identificadores de hormigas que han encontrado un camino en el ciclo actual,
+     * sea solución o no.
      */
-    private final Set<String> hormigasCaminoEncontrado = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final BitSet hormigasCaminoEncontrado = new BitSet();
     /**
-     * La cola de todos los caminos encontrados hasta el momento por las hormigas, sean
-     * solución o no, en el ciclo actual.
+     * Caché de correspondencia directa de caminos internados, en la que cada camino notificado
+     * recientemente por las hormigas, en cualquier ciclo, ocupa la posición que indican los bits
+     * menos significativos de su huella, reemplazando al camino que la ocupase. Como en una colonia
+     * que converge la mayoría de hormigas notifican los mismos caminos, así se evita volver a
+     * consultar el grafo de carreteras para crearlos, y se comparte la misma instancia entre todas
+     * las notificaciones. Es seguro que varios hilos de ejecución la consulten y modifiquen
+     * concurrentemente: como los caminos son inmutables y se comprueba que el camino de la posición
+     * consultada pase por las localidades notificadas, una carrera solo puede hacer que se cree un
+     * camino innecesariamente.
      */
-    private final Queue<Camino> caminosEncontrados = new ConcurrentLinkedQueue<>();
+    private final AtomicReferenceArray<Camino> caminosInternados = new AtomicReferenceArray<>(CAPACIDAD_CACHE_CAMINOS);
     /**
-     * Un mapa que relaciona las carreteras por las que pasa un camino encontrado en el ciclo actual
-     * que conduce a una solución.
+     * Relaciona la huella de cada camino distinto encontrado por las hormigas en el ciclo actual,
+     * sea solución o no, con su posición en {@link caminosDistintos}. Junto con esa lista y
+     * {@link frecuenciaCaminos}, forma un histograma de los caminos encontrados, que se construye
+     * según las hormigas los notifican.
      */
-    private final Map<Carretera, List<Camino>> carreterasCaminoSolucion = new ConcurrentHashMap<>();
+    private final TablaLargoAEntero indiceHuellas = new TablaLargoAEntero(16);
     /**
-     * Objeto cuyo monitor se usa para establecer exclusión mutua y relaciones pasa-antes en los accesos
-     * a {@link mejorSolucionEncontrada}.
+     * Los caminos distintos encontrados por las hormigas en el ciclo actual, en el orden en que
+     * se encontraron por primera vez.
      */
-    private final Object candadoMejorSolucionEncontrada = new Object();
+    private final List<Camino> caminosDistintos = new ArrayList<>();
+    /**
+     * El número de veces que las hormigas han encontrado cada camino distinto en el ciclo actual,
+     * indexado por su posición en {@link caminosDistintos}.
+     */
+    private int[] frecuenciaCaminos = new int[16];
+    /**
+     * El número de caminos encontrados por las hormigas en el ciclo actual, contando repeticiones.
+     */
+    private int caminosCiclo = 0;
+    /**
+     * La entropía de Shannon, en bits, de los caminos encontrados por las hormigas en el último
+     * ciclo completado, o NaN si todavía no se ha completado ningún ciclo en el que se encontrasen
+     * caminos.
+     */
+    private volatile double entropiaCaminos = Double.NaN;
+    /**
+     * La suma de los aportes de los caminos solución encontrados en el ciclo actual que pasan por
+     * cada carretera, indexada por el identificador de la carretera. Cada camino aporta lo que
+     * indique {@link aporteCamino}, multiplicado por el número de hormigas que lo encontraron, por
+     * cada vez que pasa por la carretera. Solo se calcula al terminar cada ciclo.
+     */
+    private final double[] aportesCarretera;
     /**
      * El mejor camino solución encontrado hasta el momento por las hormigas, entre todos los ciclos.
+     * Solo lo modifica el hilo propietario.
      */
-    private Camino mejorSolucionEncontrada = null;
+    private volatile Camino mejorSolucionEncontrada = null;
 
     /**
      * La causa de terminación del algoritmo, si ha terminado todavía.
      */
     private volatile RazonTerminacion razonTerminacion = null;
 
+    /**
+     * Un suceso notificado por una hormiga, que el hilo propietario aplica al estado del algoritmo.
+     * @author Alejandro González García
+     */
+    private static final class Suceso {
+        /**
+         * El suceso que solicita al hilo propietario avanzar la iteración.
+         */
+        private static final Suceso AVANCE_ITERACION = new Suceso(-1, null, null);
+
+        /**
+         * El identificador de la hormiga que notifica el suceso.
+         */
+        private final int hormiga;
+        /**
+         * La carretera recorrida por la hormiga, si el suceso es el recorrido de un arco, o nulo
+         * en caso contrario.
+         */
+        private final Carretera carretera;
+        /**
+         * El camino encontrado por la hormiga, si el suceso es el hallazgo de un camino, o nulo
+         * en caso contrario. Si tanto la carretera como el camino son nulos, el suceso es la
+         * muerte de la hormiga, salvo que se trate de {@link AVANCE_ITERACION}.
+         */
+        private final Camino camino;
+
+        /**
+         * Crea un nuevo suceso.
+         * @param hormiga El identificador de la hormiga que notifica el suceso.
+         * @param carretera La carretera recorrida por la hormiga, o nulo.
+         * @param camino El camino encontrado por la hormiga, o nulo.
+         */
+        Suceso(final int hormiga, final Carretera carretera, final Camino camino) {
+            this.hormiga = hormiga;
+            this.carretera = carretera;
+            this.camino = camino;
+        }
+    }
+
     /**
      * Crea un nuevo algoritmo a partir de los parámetros especificados.
      * @param grafoCarreteras El grafo de carreteras sobre el que operará este algoritmo.
@@ -132,13 +267,13 @@ abstract class BaseAlgoritmo implements Algoritmo {
         this.ciclosMaximos = ciclosMaximos;
         this.localidadDestino = localidadDestino;
         this.nombre = nombre;
-        this.ciclo = new LongAdder();
-        ciclo.increment(); // Comenzar número de ciclo en 1
+        this.aportesCarretera = new double[grafoCarreteras.numeroCarreteras()];
     }
 
     /**
      * Valida e interpreta una lista de localidades recibida de una hormiga, que define el camino que ha recorrido.
-     * Se asume que la lista de localidades es no nula, aunque sus elementos pueden serlo o no.
+     * Se asume que la lista de localidades es no nula, aunque sus elementos pueden serlo o no. Si el camino ya
+     * se había notificado recientemente, se devuelve la misma instancia internada, sin volver a crearla.
      * @param listaLocalidades La lista de localidades a validar.
      * @return El camino recorrido por la hormiga, generado a partir de lo que ha indicado en la lista, en un estado
      * inmutable.
@@ -147,30 +282,31 @@ abstract class BaseAlgoritmo implements Algoritmo {
      * una carretera que conecte a una localidad del camino con otra.
      */
     protected final Camino listaLocalidadesACamino(final List<Term> listaLocalidades) {
-        final Camino camino = new Camino(grafoCarreteras);
+        int[] idsLocalidades = null;
         int i = 0;
-        Localidad localidadAnterior = null;
-        Localidad localidadActual = null;
         final Iterator<Term> iter = listaLocalidades.iterator();
 
         // Aunque quizás esta comprobación parezca defensiva de más, no lo es tanto: si un agente nos envía una
         // variable no instanciada, puede interpretarse como una lista, pero que no tiene iterador (fantástica
         // seguridad de tipos la de Jason)
         if (iter != null) {
+            // Reservar espacio para las localidades de la lista, y no para todas las del grafo
+            idsLocalidades = new int[Math.max(2, listaLocalidades.size())];
+
             while (iter.hasNext()) {
                 final Term t = iter.next();
 
                 // Comprobar que la localidad sea del tipo esperado
                 if (t instanceof Atom) {
-                    localidadActual = gestorPercepciones.localidadAtomo((Atom) t);
+                    final Localidad localidad = gestorPercepciones.localidadAtomo((Atom) t);
 
                     // Comprobar que realmente se corresponde con una localidad existente
-                    if (localidadActual != null) {
-                        // Añadir carreteras del camino a partir de la segunda localidad, enlazándola
-                        // con la inmediatamente anterior
-                        if (i > 0) {
-                            camino.addCarretera(localidadAnterior, localidadActual);
+                    if (localidad != null) {
+                        // Por si el tamaño informado por la lista no se corresponde con sus elementos
+                        if (i == idsLocalidades.length) {
+                            idsLocalidades = Arrays.copyOf(idsLocalidades, idsLocalidades.length * 2);
                         }
+                        idsLocalidades[i] = localidad.getId();
                     } else {
                         throw new IllegalArgumentException("La localidad " + ((Atom) t).getFunctor() + " indicada por una hormiga no existe en el mapa actual.");
                     }
@@ -178,8 +314,7 @@ abstract class BaseAlgoritmo implements Algoritmo {
                     throw new IllegalArgumentException("Un elemento de la lista de localidades del camino encontrado por una hormiga no es un átomo.");
                 }
 
-                // Actualizar localidad inmediatamente anterior y contador de localidades recorridas
-                localidadAnterior = localidadActual;
+                // Actualizar contador de localidades recorridas
                 ++i;
             }
         }
@@ -189,10 +324,19 @@ abstract class BaseAlgoritmo implements Algoritmo {
             throw new IllegalArgumentException("El camino seguido por una hormiga no tiene al menos dos localidades.");
         }
 
-        // Hemos terminado de añadir carreteras al camino. Hacerlo de solo lectura
-        camino.terminarConstruccion();
+        // Reutilizar el camino internado en la posición de su huella, si pasa por las mismas localidades
+        final int posicion = (int) Camino.calcularHuella(idsLocalidades, i) & (CAPACIDAD_CACHE_CAMINOS - 1);
+        Camino toret = caminosInternados.get(posicion);
 
-        return camino;
+        if (toret == null || !toret.pasaPor(idsLocalidades, i)) {
+            // El camino comprueba que haya carreteras que conecten cada localidad con la siguiente
+            toret = new Camino(grafoCarreteras, idsLocalidades, i);
+
+            // Internarlo, reemplazando al camino que ocupase su posición
+            caminosInternados.lazySet(posicion, toret);
+        }
+
+        return toret;
     }
 
     /**
@@ -227,55 +371,113 @@ abstract class BaseAlgoritmo implements Algoritmo {
     protected final void siguienteCiclo() {
         hormigasRecorridoArco.clear();
         hormigasCaminoEncontrado.clear();
-        carreterasCaminoSolucion.clear();
-        ciclo.increment();
+        indiceHuellas.vaciar();
+        caminosDistintos.clear();
+        caminosCiclo = 0;
+        Arrays.fill(aportesCarretera, 0);
+        ++ciclo;
     }
 
     /**
-     * Consulta las estructuras de datos internas del algoritmo, que se mantienen actualizadas
-     * actualizadas con las apropiadas invocaciones de métodos señalizadores de eventos, para
-     * determinar si todas las hormigas han realizado el mismo camino solución en el ciclo actual.
-     * Cuando termine la invocación de este método, la estructura de datos interna que se encarga
-     * de registrar qué caminos encontraron las hormigas se vaciará, por lo que una segunda llamada
-     * a este método (u otros que dependan de esa información) puede dar un resultado diferente.
+     * Consulta el histograma de caminos encontrados en el ciclo actual, que se mantiene actualizado
+     * con las apropiadas invocaciones de métodos señalizadores de eventos, para determinar si todas
+     * las hormigas han realizado el mismo camino solución en el ciclo actual. La complejidad de este
+     * método es O(1), independientemente del número de hormigas.
      * En caso de que alguna subclase sobreescriba alguna implementación de algún método, debe de cumplir
      * los términos del contrato aquí documentados para que este método siga funcionando correctamente.
      * @return Verdadero si y solo si todas las hormigas han ido por el mismo camino solución en este ciclo.
      */
     protected final boolean todasHormigasHicieronMismoCamino() {
-        boolean toret = ciclo.intValue() > 1;
-        Camino caminoPrimero;
-        Camino caminoActual;
-
         // Solo considerar caminos repetidos si no es la primera iteración. Puede pasar que,
         // con pocas hormigas y localidades, tengamos la mala suerte de que vayan por el mismo
-        // camino la primera vez. Que lo hagan dos veces es ya bastante más raro
-        if (toret) {
-            // Tomar el primer elemento como el primer anterior. Si no hay un primer elemento,
-            // entonces no puede haber dos caminos iguales, por lo que debemos de devolver falso
-            caminoPrimero = caminosEncontrados.poll();
-            if (caminoPrimero != null) {
-                // Si tiene un segundo elemento, y ese segundo elemento es igual al primero,
-                // entonces seguir comparando hasta que lleguemos al final o encontremos un
-                // camino distinto. Si no tiene un segundo elemento, entonces ninguna hormiga
-                // hizo un camino o bien solo hay una hormiga en el sistema, con lo cual no
-                // se considera que varias hormigas hiciesen el mismo
-                caminoActual = caminosEncontrados.poll();
-                do {
-                    toret = caminoPrimero.equals(caminoActual);
-                    caminoActual = caminosEncontrados.poll();
-                } while (caminoActual != null && toret);
-            } else {
-                toret = false;
+        // camino la primera vez. Que lo hagan dos veces es ya bastante más raro.
+        // Si no hay al menos dos caminos, entonces ninguna hormiga hizo un camino o bien
+        // solo hay una hormiga en el sistema, con lo cual no se considera que varias
+        // hormigas hiciesen el mismo
+        return ciclo > 1 && caminosCiclo > 1 && caminosDistintos.size() == 1 && conduceASolucion(caminosDistintos.get(0));
+    }
+
+    /**
+     * Calcula la entropía de Shannon, en bits, de los caminos encontrados por las hormigas en el
+     * ciclo actual, a partir de su histograma: H = -Σ p · log2(p), donde p es la fracción de caminos
+     * encontrados que coinciden con cada camino distinto. Vale 0 si todas las hormigas han hecho el
+     * mismo camino, y log2(n) si n hormigas han hecho n caminos distintos.
+     * @return La devandicha entropía, o NaN si no se ha encontrado ningún camino.
+     */
+    protected final double entropiaCaminosCiclo() {
+        double toret = Double.NaN;
+
+        if (caminosCiclo > 0) {
+            double sumaFrecuenciaLogaritmo = 0;
+            for (int i = 0; i < caminosDistintos.size(); ++i) {
+                sumaFrecuenciaLogaritmo += frecuenciaCaminos[i] * Math.log(frecuenciaCaminos[i]);
             }
-        }
 
-        // Eliminar caminos restantes que quedasen
-        caminosEncontrados.clear();
+            // H = log2(N) - Σ c · log2(c) / N, siendo N el número de caminos y c cada frecuencia
+            toret = Math.max(0, (Math.log(caminosCiclo) - sumaFrecuenciaLogaritmo / caminosCiclo) / Math.log(2));
+        }
 
         return toret;
     }
 
+    /**
+     * Añade un camino encontrado por una hormiga al histograma de caminos del ciclo actual. Si es
+     * la primera vez que se encuentra en el ciclo y conduce a una solución mejor que la mejor
+     * encontrada hasta ahora, se registra como tal.
+     * @param camino El camino a añadir.
+     */
+    private void registrarCaminoHistograma(final Camino camino) {
+        long clave = camino.huella();
+        int indice = indiceHuellas.get(clave);
+
+        // Si otro camino distinto tiene la misma huella, lo cual es muy improbable, probar con
+        // claves derivadas de ella hasta encontrar la del camino o una libre
+        while (indice != TablaLargoAEntero.AUSENTE && !caminosDistintos.get(indice).equals(camino)) {
+            clave = clave * 0x9E3779B97F4A7C15L + 1;
+            indice = indiceHuellas.get(clave);
+        }
+
+        if (indice == TablaLargoAEntero.AUSENTE) {
+            indice = caminosDistintos.size();
+            caminosDistintos.add(camino);
+            indiceHuellas.poner(clave, indice);
+
+            if (indice == frecuenciaCaminos.length) {
+                frecuenciaCaminos = Arrays.copyOf(frecuenciaCaminos, indice * 2);
+            }
+            frecuenciaCaminos[indice] = 0;
+
+            // Si esta es una mejor solución que la que actualmente tenemos, registrarla como tal
+            final Camino mejorSolucionAnterior = mejorSolucionEncontrada;
+            if (conduceASolucion(camino) && (mejorSolucionAnterior == null || camino.compareTo(mejorSolucionAnterior) < 0)) {
+                mejorSolucionEncontrada = camino;
+            }
+        }
+
+        ++frecuenciaCaminos[indice];
+        ++caminosCiclo;
+    }
+
+    /**
+     * Acumula en {@link aportesCarretera} el aporte de cada camino solución distinto encontrado en
+     * el ciclo actual, multiplicado por el número de hormigas que lo encontraron. Así, el coste de
+     * calcular los aportes es proporcional al número de caminos distintos, y no al de hormigas.
+     */
+    private void acumularAportesCaminos() {
+        for (int i = 0; i < caminosDistintos.size(); ++i) {
+            final Camino camino = caminosDistintos.get(i);
+
+            if (conduceASolucion(camino)) {
+                final double aporte = frecuenciaCaminos[i] * aporteCamino(camino);
+                if (aporte != 0) {
+                    for (int j = 0; j < camino.numeroCarreteras(); ++j) {
+                        aportesCarretera[camino.idCarretera(j)] += aporte;
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Comprueba si se debiera de avanzar al siguiente ciclo, dado el estado actual
      * de las estructuras de datos internas del algoritmo usadas para deducir tal conclusión.
@@ -302,9 +504,24 @@ abstract class BaseAlgoritmo implements Algoritmo {
      * Realiza un postprocesamiento de todos los caminos solución encontrados por las hormigas en el ciclo actual,
      * lo cual es útil, por ejemplo, para depositar feromonas al terminar un ciclo. Para ese caso de uso u otros
      * similares, es preferible implementar este método con un cuerpo significativo que sobreescribir otros.
-     * @param caminosCarretera Un mapa que relaciona cada carretera con los caminos solución que pasan por ella.
+     * @param aportesCarretera La suma de los aportes, según {@link aporteCamino}, de los caminos solución que
+     * pasan por cada carretera, indexada por el identificador de la carretera. Las implementaciones no deben
+     * de modificar este array, ni conservar una referencia a él tras volver.
      */
-    protected abstract void procesarCaminosSolucionCiclo(final Map<Carretera, List<Camino>> caminosCarretera);
+    protected abstract void procesarCaminosSolucionCiclo(final double[] aportesCarretera);
+
+    /**
+     * Calcula lo que un camino solución encontrado por una hormiga aporta a cada carretera por la que pasa,
+     * acumulándose en el array que recibe {@link procesarCaminosSolucionCiclo}. Este método se ejecuta al terminar
+     * cada ciclo una vez por camino solución distinto, en el hilo propietario, y su resultado se multiplica por el
+     * número de hormigas que recorrieron el camino. Esta implementación devuelve 0, de modo que los caminos no
+     * aportan nada.
+     * @param camino El camino solución. Se asume que es no nulo.
+     * @return El aporte del camino.
+     */
+    protected double aporteCamino(final Camino camino) {
+        return 0;
+    }
 
     /**
      * Realiza un postprocesamiento de un arco (carretera) recorrido por una hormiga en una iteración,
@@ -315,89 +532,203 @@ abstract class BaseAlgoritmo implements Algoritmo {
     protected abstract void procesarArco(final Carretera carretera);
 
     /**
-     * {@inheritDoc} En el caso de esta implementación, se toma nota de las hormigas que recorrieron un
-     * arco en la iteración actual. La mayoría de subclases no encontrarán utilidad a sobreescribir
+     * {@inheritDoc} En el caso de esta implementación, se publica el suceso para que el hilo propietario
+     * tome nota de las hormigas que recorrieron un arco en la iteración actual, y avise a las subclases
+     * mediante {@link procesarArco}. La mayoría de subclases no encontrarán utilidad a sobreescribir
      * este método.
      */
     @Override
-    public void recorrerArco(final String hormiga, final Carretera carretera) {
-        hormigasRecorridoArco.add(hormiga);
+    public void recorrerArco(final int hormiga, final Carretera carretera) {
+        publicarSuceso(new Suceso(hormiga, carretera, null));
+    }
 
-        // Avisar a subclases del arco recorrido
-        procesarArco(carretera);
+    /**
+     * {@inheritDoc} Esta implementación valida e interpreta el camino en el hilo que invoca el método,
+     * y publica el suceso para que el hilo propietario tome nota del camino recorrido por la hormiga.
+     * La mayoría de subclases no encontrarán utilidad a sobreescribir este método.
+     */
+    @Override
+    public void notificarCaminoEncontrado(final int hormiga, final List<Term> listaLocalidades) {
+        // Validar e interpretar parámetros de entrada, de modo que los errores se notifiquen a quien invoca
+        publicarSuceso(new Suceso(hormiga, null, listaLocalidadesACamino(listaLocalidades)));
     }
 
     /**
-     * {@inheritDoc} Esta implementación simplemente toma nota del camino recorrido por la hormiga,
-     * actualizando estructuras de datos internas. La mayoría de subclases no encontrarán utilidad a
-     * sobreescribir este método.
+     * {@inheritDoc} Esta implementación simplemente publica el suceso para que el hilo propietario tome
+     * nota de él. La mayoría de subclases no encontrarán utilidad a sobreescribir este método.
      */
     @Override
-    public void notificarCaminoEncontrado(final String hormiga, final List<Term> listaLocalidades) {
-        // Validar e interpretar parámetros de entrada
-        final Camino camino = listaLocalidadesACamino(listaLocalidades);
+    public void notificarMuerteHormiga(final int hormiga) {
+        if (hormiga >= 0) {
+            publicarSuceso(new Suceso(hormiga, null, null));
+        }
+    }
 
-        // Añadir a conjunto de hormigas que encontraron un camino ahora
-        final boolean caminoEncontradoAhora = hormigasCaminoEncontrado.add(hormiga);
+    /**
+     * {@inheritDoc} Esta implementación detiene el hilo propietario. Los sucesos que se publiquen
+     * después se descartan.
+     */
+    @Override
+    public void detener() {
+        detenido = true;
+        LockSupport.unpark(hiloPropietario);
+    }
 
-        // ¿Encontró un camino en el ciclo actual, y solo en el ciclo actual?
-        if (caminoEncontradoAhora) {
-            // Registrar el camino que encontró
-            caminosEncontrados.add(camino);
+    /**
+     * Publica un suceso en la cola de sucesos, despertando al hilo propietario si es necesario. Si la
+     * cola está llena, espera a que el hilo propietario aplique algunos sucesos.
+     * @param suceso El suceso a publicar.
+     */
+    private void publicarSuceso(final Suceso suceso) {
+        // Iniciar el hilo propietario ahora, y no en el constructor, para que vea las subclases
+        // completamente construidas
+        if (!hiloPropietarioIniciado.get() && hiloPropietarioIniciado.compareAndSet(false, true)) {
+            hiloPropietario.start();
+        }
 
-            // Si conduce a una solución, registrarlo como tal
-            if (conduceASolucion(camino)) {
-                // Asociar el camino con las carreteras por las que pasa
-
-                // TODO: paralelizar con Spliterators
-                for (final Carretera carretera : camino) {
-                    carreterasCaminoSolucion.compute(carretera, (final Carretera ignorada, final List<Camino> caminosAnteriores) -> {
-                        List<Camino> toret = caminosAnteriores;
-
-                        // Crear una lista si todavía no tenemos una para esta carretera. No hace falta que sea
-                        // segura entre varios hilos de ejecución porque compute() y get() ya establecen relaciones
-                        // pasa-antes respecto a su modificación
-                        if (toret == null) {
-                            toret = new LinkedList<>();
-                        }
-                        toret.add(camino);
+        boolean publicado = sucesos.offer(suceso);
+        while (!publicado && !detenido) {
+            LockSupport.unpark(hiloPropietario);
+            Thread.yield();
+            publicado = sucesos.offer(suceso);
+        }
 
-                        return toret;
-                    });
-                }
+        if (hiloPropietarioAparcado) {
+            LockSupport.unpark(hiloPropietario);
+        }
+    }
 
-                // Si esta es una mejor solución que la que actualmente tenemos, registrarla como tal
-                synchronized (candadoMejorSolucionEncontrada) {
-                    if (mejorSolucionEncontrada == null || camino.compareTo(mejorSolucionEncontrada) < 0) {
-                        mejorSolucionEncontrada = camino;
+    /**
+     * Bucle de sucesos que ejecuta el hilo propietario: aplica los sucesos publicados en orden, y
+     * se aparca cuando no quedan, hasta que se detenga el algoritmo.
+     */
+    private void aplicarSucesos() {
+        while (!detenido) {
+            Suceso suceso = sucesos.poll();
+
+            if (suceso == null) {
+                // Anunciar que vamos a aparcarnos antes de volver a comprobar la cola, para que
+                // quien publique un suceso después de la comprobación nos despierte
+                hiloPropietarioAparcado = true;
+                suceso = sucesos.poll();
+
+                if (suceso == null) {
+                    // Avisar a quien espera por la aplicación de los sucesos publicados
+                    final Thread hiloEspera = hiloEsperaSucesos;
+                    if (hiloEspera != null) {
+                        LockSupport.unpark(hiloEspera);
                     }
+
+                    LockSupport.park(this);
                 }
+
+                hiloPropietarioAparcado = false;
+            }
+
+            if (suceso != null) {
+                try {
+                    aplicarSuceso(suceso);
+                } catch (final RuntimeException exc) {
+                    Mundo.get().getLogger().log(Level.WARNING, "Ha ocurrido una excepción no controlada mientras el algoritmo procesaba un suceso notificado por una hormiga.", exc);
+                }
+                sucesosAplicados = sucesosAplicados + 1;
             }
         }
     }
 
     /**
-     * {@inheritDoc} Esta implementación simplemente toma nota del suceso, actualizando estructuras de datos
-     * internas. La mayoría de subclases no encontrarán utilidad a sobreescribir este método.
+     * Aplica un suceso al estado del algoritmo. Solo el hilo propietario invoca este método.
+     * @param suceso El suceso a aplicar.
      */
-    @Override
-    public void notificarMuerteHormiga(final String hormiga) {
-        hormigasRecorridoArco.remove(hormiga);
+    private void aplicarSuceso(final Suceso suceso) {
+        if (suceso == Suceso.AVANCE_ITERACION) {
+            // Entregar el resultado, o la excepción, al hilo que solicitó el avance
+            try {
+                avanceNuevoCiclo = aplicarAvanceIteracion();
+            } catch (final RuntimeException exc) {
+                excepcionAvance = exc;
+            }
+        } else if (suceso.carretera != null) {
+            hormigasRecorridoArco.set(suceso.hormiga);
+
+            // Avisar a subclases del arco recorrido
+            procesarArco(suceso.carretera);
+        } else if (suceso.camino != null) {
+            // ¿Encontró un camino en el ciclo actual, y solo en el ciclo actual?
+            if (!hormigasCaminoEncontrado.get(suceso.hormiga)) {
+                hormigasCaminoEncontrado.set(suceso.hormiga);
+
+                // Registrar el camino que encontró. Su aporte se acumula al terminar el ciclo
+                registrarCaminoHistograma(suceso.camino);
+            }
+        } else {
+            hormigasRecorridoArco.clear(suceso.hormiga);
+        }
+    }
+
+    /**
+     * Espera a que el hilo propietario aplique todos los sucesos publicados hasta el momento, o a
+     * que se detenga el algoritmo.
+     * @return Verdadero si el hilo propietario ha aplicado todos los sucesos publicados hasta el
+     * momento, falso si se ha detenido el algoritmo antes.
+     */
+    private boolean esperarSucesos() {
+        final long publicados = sucesos.encolados();
+
+        if (sucesosAplicados < publicados) {
+            hiloEsperaSucesos = Thread.currentThread();
+            try {
+                while (sucesosAplicados < publicados && !detenido) {
+                    LockSupport.unpark(hiloPropietario);
+                    LockSupport.park(this);
+                }
+            } finally {
+                hiloEsperaSucesos = null;
+            }
+        }
+
+        return sucesosAplicados >= publicados;
     }
 
     /**
-     * {@inheritDoc} Esta implementación simplemente actualiza el estado interno del algoritmo, sin cambiar
-     * los niveles de feromona de ninguna carretera. La mayoría de subclases no encontrarán utilidad a
-     * sobreescribir este método. Se asume que se llama a este método tras la notificación por parte de las
-     * hormigas de todos los eventos pertinentes, pues no tendría sentido razonar sobre información no
-     * completa de un episodio del SMA.
+     * {@inheritDoc} Esta implementación publica el avance como un suceso, tras todos los notificados por las
+     * hormigas, y espera a que el hilo propietario lo aplique. Si el algoritmo se detiene antes, no se avanza.
+     * La mayoría de subclases no encontrarán utilidad a sobreescribir este método. Se asume que se llama a este
+     * método tras la notificación por parte de las hormigas de todos los eventos pertinentes, pues no tendría
+     * sentido razonar sobre información no completa de un episodio del SMA.
      */
     @Override
     public boolean avanzarIteracion() {
+        publicarSuceso(Suceso.AVANCE_ITERACION);
+        final boolean toret = esperarSucesos() && avanceNuevoCiclo;
+
+        // Relanzar en este hilo la excepción que haya lanzado el avance, si la hay
+        final RuntimeException exc = excepcionAvance;
+        if (exc != null) {
+            excepcionAvance = null;
+            throw exc;
+        }
+
+        return toret;
+    }
+
+    /**
+     * Avanza el algoritmo a la siguiente iteración, actualizando su estado interno sin cambiar los niveles
+     * de feromona de ninguna carretera. Solo el hilo propietario invoca este método, al aplicar el suceso
+     * {@link Suceso#AVANCE_ITERACION}, de modo que el estado refleja todos los sucesos notificados antes.
+     * @return Verdadero si se ha avanzado a un nuevo ciclo, falso en caso contrario.
+     */
+    private boolean aplicarAvanceIteracion() {
         boolean toret = procedeAvanzarASigCiclo();
 
         // Si debemos de avanzar al siguiente ciclo, realizar las tareas pertinentes
         if (toret) {
+            // Recordar la diversidad de los caminos del ciclo que termina, para informar de ella
+            final double entropiaCiclo = entropiaCaminosCiclo();
+            if (!Double.isNaN(entropiaCiclo)) {
+                entropiaCaminos = entropiaCiclo;
+            }
+
             // Condiciones de terminación: hemos llegado al número de ciclos máximo, o todas
             // las hormigas siguieron el mismo camino
             if (getCiclo() >= getCiclosMaximos() - 1) {
@@ -408,7 +739,8 @@ abstract class BaseAlgoritmo implements Algoritmo {
 
             // Realizar procesamiento de los caminos solución encontrados, por ejemplo para
             // depositar feromonas (depende de la implementación)
-            procesarCaminosSolucionCiclo(carreterasCaminoSolucion);
+            acumularAportesCaminos();
+            procesarCaminosSolucionCiclo(aportesCarretera);
 
             // Finalmente, avanzar al siguiente ciclo
             siguienteCiclo();
@@ -422,7 +754,7 @@ abstract class BaseAlgoritmo implements Algoritmo {
 
     @Override
     public final int getCiclo() {
-        return ciclo.intValue();
+        return ciclo;
     }
 
     @Override
@@ -435,6 +767,11 @@ abstract class BaseAlgoritmo implements Algoritmo {
         return ciclosMaximos;
     }
 
+    @Override
+    public final double getEntropiaCaminos() {
+        return entropiaCaminos;
+    }
+
     @Override
     public final RazonTerminacion razonTerminacion() {
         return razonTerminacion;
@@ -442,12 +779,12 @@ abstract class BaseAlgoritmo implements Algoritmo {
 
     @Override
     public final Camino getMejorCamino() {
-        synchronized (candadoMejorSolucionEncontrada) {
-            if (mejorSolucionEncontrada != null) {
-                return mejorSolucionEncontrada;
-            } else {
-                throw new NoSuchElementException();
-            }
+        final Camino toret = mejorSolucionEncontrada;
+
+        if (toret == null) {
+            throw new NoSuchElementException();
         }
+
+        return toret;
     }
 }
\ No newline at end of file
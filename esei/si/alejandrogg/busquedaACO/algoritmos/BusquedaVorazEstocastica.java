@@ -2,10 +2,6 @@
 
 package esei.si.alejandrogg.busquedaACO.algoritmos;
 
-import java.util.List;
-import java.util.Map;
-
-import esei.si.alejandrogg.busquedaACO.Camino;
 import esei.si.alejandrogg.busquedaACO.Carretera;
 import esei.si.alejandrogg.busquedaACO.Localidad;
 import esei.si.alejandrogg.busquedaACO.GestorPercepciones;
@@ -55,8 +51,8 @@ final class BusquedaVorazEstocastica extends BaseAlgoritmo {
 
     /**
      * No ejecuta ninguna instrucción.
-     * @param caminosCarretera Un parámetro ignorado en esta implementación.
+     * @param aportesCarretera Un parámetro ignorado en esta implementación.
      */
     @Override
-    public void procesarCaminosSolucionCiclo(final Map<Carretera, List<Camino>> caminosCarretera) {}
+    public void procesarCaminosSolucionCiclo(final double[] aportesCarretera) {}
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO.mapas;
+
+import java.util.Arrays;
+
+import esei.si.alejandrogg.busquedaACO.Carretera;
+import esei.si.alejandrogg.busquedaACO.Localidad;
+import esei.si.alejandrogg.busquedaACO.util.TablaLargoAEntero;
+
+/**
+ * Acumula las carreteras de un grafo según se leen o generan, en arrays de tipos primitivos que
+ * crecen según sea necesario, descartando las carreteras repetidas entre las mismas localidades
+ * salvo la de menor distancia. Las carreteras se numeran en orden de primera aparición.
+ * @author Alejandro González García
+ */
+final class AcumuladorCarreteras {
+    /**
+     * Los identificadores de una de las localidades de cada carretera.
+     */
+    private int[] a;
+    /**
+     * Los identificadores de la otra localidad de cada carretera.
+     */
+    private int[] b;
+    /**
+     * La distancia de cada carretera.
+     */
+    private double[] distancias;
+    /**
+     * El número de carreteras acumuladas.
+     */
+    private int n = 0;
+    /**
+     * Relaciona pares no ordenados de localidades, empaquetados en una clave de tipo long,
+     * con la posición de la carretera que las une.
+     */
+    private final TablaLargoAEntero indice;
+
+    /**
+     * Crea un nuevo acumulador de carreteras, dimensionado para un número de carreteras esperado.
+     * @param carreterasEsperadas El devandicho número.
+     */
+    AcumuladorCarreteras(final int carreterasEsperadas) {
+        final int capacidad = Math.max(1, carreterasEsperadas);
+
+        this.a = new int[capacidad];
+        this.b = new int[capacidad];
+        this.distancias = new double[capacidad];
+        this.indice = new TablaLargoAEntero(capacidad);
+    }
+
+    /**
+     * Añade una carretera, o reduce la distancia de la ya existente entre las mismas localidades
+     * si la nueva es menor.
+     * @param idA El identificador de una de las localidades.
+     * @param idB El identificador de la otra localidad.
+     * @param distancia La distancia de la carretera.
+     */
+    void anadir(final int idA, final int idB, final double distancia) {
+        final long clave = ((long) Math.min(idA, idB) << 32) | (Math.max(idA, idB) & 0xFFFFFFFFL);
+        final int existente = indice.get(clave);
+
+        if (existente != TablaLargoAEntero.AUSENTE) {
+            distancias[existente] = Math.min(distancias[existente], distancia);
+        } else {
+            if (n == a.length) {
+                final int capacidad = a.length * 2;
+                a = Arrays.copyOf(a, capacidad);
+                b = Arrays.copyOf(b, capacidad);
+                distancias = Arrays.copyOf(distancias, capacidad);
+            }
+
+            a[n] = idA;
+            b[n] = idB;
+            distancias[n] = distancia;
+            indice.poner(clave, n++);
+        }
+    }
+
+    /**
+     * Obtiene el número de carreteras acumuladas.
+     * @return El devandicho número.
+     */
+    int numero() {
+        return n;
+    }
+
+    /**
+     * Obtiene el identificador de una de las localidades de una carretera acumulada.
+     * @param i La posición de la carretera, en orden de primera aparición.
+     * @return El identificador de la localidad especificada al añadir la carretera en primer lugar.
+     */
+    int localidadA(final int i) {
+        return a[i];
+    }
+
+    /**
+     * Obtiene el identificador de la otra localidad de una carretera acumulada.
+     * @param i La posición de la carretera, en orden de primera aparición.
+     * @return El identificador de la localidad especificada al añadir la carretera en segundo lugar.
+     */
+    int localidadB(final int i) {
+        return b[i];
+    }
+
+    /**
+     * Crea las carreteras correspondientes a las carreteras acumuladas. La información de cada
+     * carretera se sitúa en el punto medio entre sus localidades.
+     * @param localidades Las localidades del grafo, cada una en la posición de su identificador.
+     * @param x La coordenada X de cada localidad, o nulo si todas están en el origen.
+     * @param y La coordenada Y de cada localidad, o nulo si todas están en el origen.
+     * @return Las carreteras, cada una en la posición de su identificador.
+     */
+    Carretera[] carreteras(final Localidad[] localidades, final int[] x, final int[] y) {
+        final Carretera[] toret = new Carretera[n];
+
+        for (int i = 0; i < n; ++i) {
+            final int infoX = x == null ? 0 : (int) (((long) x[a[i]] + x[b[i]]) / 2);
+            final int infoY = y == null ? 0 : (int) (((long) y[a[i]] + y[b[i]]) / 2);
+            toret[i] = new Carretera(i, localidades[a[i]], localidades[b[i]], distancias[i], infoX, infoY);
+        }
+
+        return toret;
+    }
+}
@@ -2,39 +2,219 @@
 
 package esei.si.alejandrogg.busquedaACO.mapas;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.AbstractMap.SimpleEntry;
+import java.util.Set;
 
+import esei.si.alejandrogg.busquedaACO.AlmacenFeromona;
 import esei.si.alejandrogg.busquedaACO.GrafoCarreteras;
 import esei.si.alejandrogg.busquedaACO.Carretera;
 import esei.si.alejandrogg.busquedaACO.Localidad;
+import esei.si.alejandrogg.busquedaACO.util.ConjuntoArray;
+import esei.si.alejandrogg.busquedaACO.util.TablaLargoAEntero;
 
 /**
- * Implementa lógica de uso muy común por parte de grafos de carreteras.
+ * Implementa lógica de uso muy común por parte de grafos de carreteras. Las adyacencias
+ * del grafo se representan en formato CSR (compressed sparse row): las carreteras incidentes
+ * en la localidad i ocupan las posiciones [desplazamientos[i], desplazamientos[i + 1]) de los
+ * arrays de destinos y carreteras, de forma que recorrerlas tiene complejidad O(grado) y
+ * aprovecha la localidad de referencia de la memoria.
  * @author Alejandro González García
  */
 abstract class BaseMapa implements GrafoCarreteras {
     /**
-     * Relaciona pares de localidades con la carretera que las conecta en un grafo de carreteras.
-     * Es responsabilidad de la subclase la inserción de valores en este mapa, aunque la superclase
-     * se encarga de crearlo en su constructor. La subclase debe de insertar en este mapa dos
-     * entradas por cada carretera, cubriendo ambas permutaciones de localidades que la componen.
+     * Las localidades del grafo, indexadas por su identificador.
      */
-    protected final Map<SimpleEntry<Localidad, Localidad>, Carretera> carreterasLocalidades;
+    private final Localidad[] localidadesId;
+    /**
+     * Las carreteras del grafo, indexadas por su identificador.
+     */
+    private final Carretera[] carreterasId;
+    /**
+     * Las localidades del grafo, en un conjunto respaldado por {@link localidadesId}.
+     */
+    private final Set<Localidad> localidades;
+    /**
+     * Las carreteras del grafo, en un conjunto respaldado por {@link carreterasId}.
+     */
+    private final Set<Carretera> carreteras;
+    /**
+     * La posición de los arrays de adyacencia en la que empiezan las adyacencias de cada
+     * localidad. Tiene un elemento más que localidades, para marcar el final de la última.
+     */
+    private final int[] desplazamientos;
+    /**
+     * Los identificadores de las localidades adyacentes a cada localidad, consecutivos.
+     */
+    private final int[] destinos;
+    /**
+     * Los identificadores de las carreteras incidentes en cada localidad, en el mismo orden
+     * que {@link destinos}.
+     */
+    private final int[] carreterasAdyacencia;
+    /**
+     * Relaciona pares de localidades, empaquetados en una clave de tipo long a partir de sus
+     * identificadores, con el identificador de la carretera que las conecta en un grafo de carreteras.
+     */
+    private final TablaLargoAEntero carreterasLocalidades;
+    /**
+     * El almacén del nivel de feromona de las carreteras de este grafo.
+     */
+    private final AlmacenFeromona almacenFeromona;
 
     /**
-     * Crea un nuevo grafo de carreteras, con un número determinado de carreteras.
-     * Las implementaciones de esta clase deben de llamar a este constructor en el suyo, y acto
-     * seguido rellenar los atributos protegidos de esta clase como corresponda.
-     * @param numeroCarreteras El número de carreteras presentes en el grafo de carreteras.
+     * Crea un nuevo grafo de carreteras, a partir de sus localidades y carreteras. Los arrays
+     * no se copian, así que no deben de modificarse tras llamar a este constructor.
+     * @param localidades Las localidades del grafo, cada una en la posición de su identificador.
+     * @param carreteras Las carreteras del grafo, cada una en la posición de su identificador.
+     * @throws IllegalArgumentException Si algún array es nulo, algún elemento es nulo o no está en
+     * la posición de su identificador, alguna carretera une localidades que no pertenecen al grafo,
+     * o hay varias carreteras entre las mismas localidades.
      */
-    protected BaseMapa(final int numeroCarreteras) {
-        this.carreterasLocalidades = new HashMap<>((int) ((numeroCarreteras * 2) / 0.75f) + 1, 0.75f);
+    protected BaseMapa(final Localidad[] localidades, final Carretera[] carreteras) {
+        if (localidades == null || carreteras == null) {
+            throw new IllegalArgumentException("Las localidades y carreteras de un grafo no pueden ser nulas.");
+        }
+
+        this.localidadesId = localidades;
+        this.carreterasId = carreteras;
+        this.localidades = new ConjuntoArray<>(localidades, Localidad::getId);
+        this.carreteras = new ConjuntoArray<>(carreteras, Carretera::getId);
+        this.carreterasLocalidades = new TablaLargoAEntero(carreteras.length);
+        this.almacenFeromona = new AlmacenFeromona(carreteras.length);
+
+        // Contar el grado de cada localidad. Los bucles solo cuentan una vez
+        this.desplazamientos = new int[localidades.length + 1];
+        for (final Carretera c : carreteras) {
+            final int idA = c.getLocalidadA().getId();
+            final int idB = c.getLocalidadB().getId();
+
+            if (idA >= localidades.length || idB >= localidades.length || localidades[idA] != c.getLocalidadA() || localidades[idB] != c.getLocalidadB()) {
+                throw new IllegalArgumentException("La carretera " + c + " une localidades que no pertenecen al grafo.");
+            }
+            if (carreterasLocalidades.poner(clave(idA, idB), c.getId()) != TablaLargoAEntero.AUSENTE) {
+                throw new IllegalArgumentException("Ya existe una carretera entre las localidades de " + c + ".");
+            }
+
+            ++desplazamientos[idA + 1];
+            if (idA != idB) {
+                ++desplazamientos[idB + 1];
+            }
+        }
+
+        // Convertir los grados en desplazamientos mediante sumas de prefijos
+        for (int i = 0; i < localidades.length; ++i) {
+            desplazamientos[i + 1] += desplazamientos[i];
+        }
+
+        // Rellenar los arrays de adyacencia, usando un cursor por localidad
+        this.destinos = new int[desplazamientos[localidades.length]];
+        this.carreterasAdyacencia = new int[destinos.length];
+        final int[] cursores = new int[localidades.length];
+        System.arraycopy(desplazamientos, 0, cursores, 0, localidades.length);
+        for (final Carretera c : carreteras) {
+            final int idA = c.getLocalidadA().getId();
+            final int idB = c.getLocalidadB().getId();
+
+            destinos[cursores[idA]] = idB;
+            carreterasAdyacencia[cursores[idA]++] = c.getId();
+            if (idA != idB) {
+                destinos[cursores[idB]] = idA;
+                carreterasAdyacencia[cursores[idB]++] = c.getId();
+            }
+        }
+    }
+
+    @Override
+    public final Set<Carretera> carreteras() {
+        return carreteras;
+    }
+
+    @Override
+    public final Set<Localidad> localidades() {
+        return localidades;
+    }
+
+    @Override
+    public final int numeroLocalidades() {
+        return localidadesId.length;
+    }
+
+    @Override
+    public final int numeroCarreteras() {
+        return carreterasId.length;
+    }
+
+    @Override
+    public final Localidad localidad(final int id) {
+        return localidadesId[id];
+    }
+
+    @Override
+    public final Carretera carretera(final int id) {
+        return carreterasId[id];
+    }
+
+    @Override
+    public final int grado(final int idLocalidad) {
+        return desplazamientos[idLocalidad + 1] - desplazamientos[idLocalidad];
+    }
+
+    @Override
+    public final int vecino(final int idLocalidad, final int i) {
+        return destinos[posicionAdyacencia(idLocalidad, i)];
+    }
+
+    @Override
+    public final int carreteraIncidente(final int idLocalidad, final int i) {
+        return carreterasAdyacencia[posicionAdyacencia(idLocalidad, i)];
     }
 
     @Override
     public Carretera getCarretera(final Localidad a, final Localidad b) {
-        return carreterasLocalidades.get(new SimpleEntry<>(a, b));
+        Carretera toret = null;
+
+        if (a != null && b != null) {
+            final int id = carreterasLocalidades.get(clave(a.getId(), b.getId()));
+            if (id != TablaLargoAEntero.AUSENTE) {
+                toret = carreterasId[id];
+            }
+        }
+
+        return toret;
+    }
+
+    @Override
+    public AlmacenFeromona getAlmacenFeromona() {
+        return almacenFeromona;
+    }
+
+    /**
+     * Calcula la posición en los arrays de adyacencia de la i-ésima adyacencia de una localidad.
+     * @param idLocalidad El identificador de la localidad.
+     * @param i El índice de la adyacencia.
+     * @return La devandicha posición.
+     * @throws IndexOutOfBoundsException Si el índice está fuera de rango.
+     */
+    private int posicionAdyacencia(final int idLocalidad, final int i) {
+        final int inicio = desplazamientos[idLocalidad];
+
+        if (i < 0 || i >= desplazamientos[idLocalidad + 1] - inicio) {
+            throw new IndexOutOfBoundsException("La localidad " + idLocalidad + " no tiene una adyacencia con índice " + i + ".");
+        }
+
+        return inicio + i;
+    }
+
+    /**
+     * Empaqueta los identificadores de las dos localidades que une una carretera en una clave de
+     * tipo long, de manera independiente del orden en el que se especifiquen.
+     * @param idA El identificador de una de las localidades.
+     * @param idB El identificador de la otra localidad.
+     * @return La clave que identifica al par no ordenado de localidades.
+     */
+    private static long clave(final int idA, final int idB) {
+        final int menor = Math.min(idA, idB);
+        final int mayor = Math.max(idA, idB);
+
+        return ((long) menor << 32) | (mayor & 0xFFFFFFFFL);
     }
-}
\ No newline at end of file
+}
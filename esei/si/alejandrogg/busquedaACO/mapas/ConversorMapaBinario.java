@@ -0,0 +1,51 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO.mapas;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+
+import esei.si.alejandrogg.busquedaACO.GrafoCarreteras;
+
+/**
+ * Programa de línea de órdenes que convierte un mapa a una instantánea binaria, de forma que
+ * las siguientes ejecuciones del SMA no tengan que interpretar el mapa de nuevo. El mapa de
+ * origen puede ser cualquiera que acepte {@link FactoriaMapas}, incluyendo ficheros de texto.
+ * La instantánea resultante se usa especificando su ruta como nombre del mapa del mundo.
+ * @author Alejandro González García
+ */
+public final class ConversorMapaBinario {
+    /**
+     * Constructor privado para evitar instanciaciones de esta clase.
+     */
+    private ConversorMapaBinario() {}
+
+    /**
+     * Punto de entrada del conversor.
+     * @param args El nombre o ruta del mapa de origen, y la ruta del fichero de la instantánea
+     * a escribir. Si la ruta no tiene la extensión de las instantáneas, se le añade.
+     */
+    public static void main(final String[] args) {
+        if (args.length != 2) {
+            System.err.println("Uso: ConversorMapaBinario <mapa de origen> <instantánea destino" + MapaBinario.EXTENSION + ">");
+            System.exit(1);
+        }
+
+        final String destino = args[1].endsWith(MapaBinario.EXTENSION) ? args[1] : args[1] + MapaBinario.EXTENSION;
+        try {
+            final long inicio = System.nanoTime();
+            final GrafoCarreteras grafo = FactoriaMapas.grafoCarreteras(args[0]);
+            final long lectura = System.nanoTime();
+            MapaBinario.escribir(grafo, Paths.get(destino));
+            final long escritura = System.nanoTime();
+
+            System.out.println("Mapa " + grafo.getNombre() + " (" + grafo.numeroLocalidades() + " localidades, " + grafo.numeroCarreteras() + " carreteras) leído en " +
+                (lectura - inicio) / 1000000 + " ms y escrito en " + destino + " en " + (escritura - lectura) / 1000000 + " ms."
+            );
+        } catch (NoSuchElementException | IOException exc) {
+            System.err.println("No se ha podido convertir el mapa: " + exc.getMessage());
+            System.exit(1);
+        }
+    }
+}
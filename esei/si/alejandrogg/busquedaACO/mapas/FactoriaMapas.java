@@ -2,8 +2,13 @@
 
 package esei.si.alejandrogg.busquedaACO.mapas;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.NoSuchElementException;
@@ -38,14 +43,20 @@ public final class FactoriaMapas {
     }
 
     /**
-     * Crea el grafo de carreteras identificado por el nombre especificado.
-     * @param nombre El nombre identificativo del grafo.
+     * Crea el grafo de carreteras identificado por el nombre especificado. Si no hay ningún
+     * mapa con ese nombre en el sistema, pero el nombre es una especificación de un grafo
+     * sintético, se genera el grafo descrito por {@link MapaSintetico}. En otro caso, el nombre
+     * se interpreta como la ruta de un fichero del que leer el mapa: una instantánea binaria de
+     * {@link MapaBinario}, si tiene su extensión, o uno de los formatos de texto soportados por
+     * {@link MapaFichero} en caso contrario.
+     * @param nombre El nombre identificativo del grafo, la especificación del grafo sintético o la
+     * ruta del fichero que lo contiene.
      * @return El grafo de carreteras que se desea crear.
      * @throws NoSuchElementException Si el grafo de carreteras especificado no existe, o no se pudo crear.
      */
     public static GrafoCarreteras grafoCarreteras(final String nombre) {
         if (!constructores.containsKey(nombre)) {
-            throw new NoSuchElementException("El mapa " + nombre + " no está disponible en el sistema.");
+            return MapaSintetico.esEspecificacion(nombre) ? MapaSintetico.generar(nombre) : grafoCarreterasFichero(nombre);
         }
 
         try {
@@ -54,4 +65,29 @@ public final class FactoriaMapas {
             throw new NoSuchElementException("El mapa " + nombre + " existe, pero no se ha podido cargar. Mensaje de error: " + exc.getLocalizedMessage());
         }
     }
+
+    /**
+     * Lee un grafo de carreteras de un fichero.
+     * @param ruta La ruta del fichero.
+     * @return El grafo de carreteras leído.
+     * @throws NoSuchElementException Si el fichero no existe, o no se pudo leer el grafo de él.
+     */
+    private static GrafoCarreteras grafoCarreterasFichero(final String ruta) {
+        final Path fichero;
+
+        try {
+            fichero = Paths.get(ruta);
+        } catch (InvalidPathException exc) {
+            throw new NoSuchElementException("El mapa " + ruta + " no está disponible en el sistema.");
+        }
+        if (!Files.isRegularFile(fichero)) {
+            throw new NoSuchElementException("El mapa " + ruta + " no está disponible en el sistema, ni es un fichero.");
+        }
+
+        try {
+            return ruta.endsWith(MapaBinario.EXTENSION) ? MapaBinario.abrir(fichero) : MapaFichero.cargar(fichero);
+        } catch (IOException | IllegalArgumentException exc) {
+            throw new NoSuchElementException("El mapa " + ruta + " existe, pero no se ha podido cargar. Mensaje de error: " + exc.getLocalizedMessage());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,540 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO.mapas;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+import esei.si.alejandrogg.busquedaACO.AlmacenFeromona;
+import esei.si.alejandrogg.busquedaACO.Carretera;
+import esei.si.alejandrogg.busquedaACO.GrafoCarreteras;
+import esei.si.alejandrogg.busquedaACO.Localidad;
+
+/**
+ * Un grafo de carreteras leído de una instantánea binaria, proyectada en memoria mediante un
+ * {@link MappedByteBuffer}. Abrir la instantánea tiene un coste constante, independiente del
+ * tamaño del grafo: las adyacencias se consultan directamente sobre la proyección, y los objetos
+ * {@link Localidad} y {@link Carretera} se crean de manera perezosa la primera vez que se piden,
+ * conservándose después para que cada elemento del grafo tenga una única instancia.
+ * <p>
+ * Las instantáneas se escriben con {@link #escribir(GrafoCarreteras, Path)}, normalmente a través
+ * de {@link ConversorMapaBinario}. Todos los enteros se codifican en orden big-endian, y el fichero
+ * consta de las siguientes secciones consecutivas:
+ * <ol>
+ * <li>Cabecera: número mágico, versión del formato, número de localidades (n), número de
+ * carreteras (m), número de adyacencias (a) y longitud en bytes de la tabla de cadenas (c), todos
+ * ellos de tipo int.</li>
+ * <li>Desplazamientos de las adyacencias de cada localidad en formato CSR: n + 1 int.</li>
+ * <li>Localidad adyacente de cada adyacencia: a int.</li>
+ * <li>Carretera incidente de cada adyacencia: a int.</li>
+ * <li>Carreteras: para cada una, los identificadores de sus localidades (int), su distancia
+ * (double) y las coordenadas donde mostrar su información (int).</li>
+ * <li>Coordenadas de las localidades: para cada una, su X y su Y (int).</li>
+ * <li>Desplazamientos de la tabla de cadenas: n + 2 int. La cadena i-ésima es el nombre de la
+ * localidad i, y la cadena n-ésima es el nombre del grafo.</li>
+ * <li>Tabla de cadenas: c bytes, con las cadenas codificadas en UTF-8 y concatenadas.</li>
+ * </ol>
+ * @author Alejandro González García
+ */
+final class MapaBinario implements GrafoCarreteras {
+    /**
+     * La extensión de los ficheros que contienen instantáneas binarias de grafos de carreteras.
+     */
+    static final String EXTENSION = ".grafo";
+    /**
+     * El número mágico con el que empiezan las instantáneas binarias ("ACOG" en ASCII).
+     */
+    private static final int MAGICO = 0x41434F47;
+    /**
+     * La versión del formato de las instantáneas binarias que esta clase lee y escribe.
+     */
+    private static final int VERSION = 1;
+    /**
+     * El tamaño en bytes de la cabecera de una instantánea.
+     */
+    private static final int BYTES_CABECERA = 6 * Integer.BYTES;
+    /**
+     * El tamaño en bytes del registro de cada carretera de una instantánea.
+     */
+    private static final int BYTES_CARRETERA = 4 * Integer.BYTES + Double.BYTES;
+    /**
+     * El tamaño en bytes del registro de coordenadas de cada localidad de una instantánea.
+     */
+    private static final int BYTES_COORDENADAS = 2 * Integer.BYTES;
+
+    /**
+     * La proyección en memoria del fichero de la instantánea. Solo se realizan lecturas absolutas
+     * sobre ella, que no modifican su posición, así que es seguro que varios hilos la compartan.
+     */
+    private final ByteBuffer datos;
+    /**
+     * El número de localidades del grafo.
+     */
+    private final int nLocalidades;
+    /**
+     * El número de carreteras del grafo.
+     */
+    private final int nCarreteras;
+    /**
+     * La posición en la que empieza la sección de desplazamientos CSR.
+     */
+    private final int posDesplazamientos;
+    /**
+     * La posición en la que empieza la sección de localidades adyacentes.
+     */
+    private final int posDestinos;
+    /**
+     * La posición en la que empieza la sección de carreteras incidentes.
+     */
+    private final int posCarreterasAdyacencia;
+    /**
+     * La posición en la que empieza la sección de carreteras.
+     */
+    private final int posCarreteras;
+    /**
+     * La posición en la que empieza la sección de coordenadas de las localidades.
+     */
+    private final int posCoordenadas;
+    /**
+     * La posición en la que empieza la sección de desplazamientos de la tabla de cadenas.
+     */
+    private final int posDesplazamientosCadenas;
+    /**
+     * La posición en la que empieza la tabla de cadenas.
+     */
+    private final int posCadenas;
+    /**
+     * Las localidades del grafo ya creadas, indexadas por su identificador.
+     */
+    private final AtomicReferenceArray<Localidad> localidadesId;
+    /**
+     * Las carreteras del grafo ya creadas, indexadas por su identificador.
+     */
+    private final AtomicReferenceArray<Carretera> carreterasId;
+    /**
+     * Las localidades del grafo, en un conjunto que las crea según se necesiten.
+     */
+    private final Set<Localidad> localidades;
+    /**
+     * Las carreteras del grafo, en un conjunto que las crea según se necesiten.
+     */
+    private final Set<Carretera> carreteras;
+    /**
+     * El nombre identificativo del grafo de carreteras.
+     */
+    private final String nombre;
+    /**
+     * El almacén del nivel de feromona de las carreteras de este grafo.
+     */
+    private final AlmacenFeromona almacenFeromona;
+
+    /**
+     * Crea un nuevo grafo de carreteras respaldado por la proyección en memoria de una instantánea.
+     * @param datos La proyección en memoria de la instantánea.
+     * @throws IllegalArgumentException Si la instantánea no tiene un formato válido.
+     */
+    private MapaBinario(final ByteBuffer datos) {
+        if (datos.capacity() < BYTES_CABECERA || datos.getInt(0) != MAGICO) {
+            throw new IllegalArgumentException("El fichero no contiene una instantánea binaria de un grafo de carreteras.");
+        }
+        if (datos.getInt(Integer.BYTES) != VERSION) {
+            throw new IllegalArgumentException("La instantánea binaria usa una versión del formato no soportada: " + datos.getInt(Integer.BYTES) + ".");
+        }
+
+        this.datos = datos;
+        this.nLocalidades = datos.getInt(2 * Integer.BYTES);
+        this.nCarreteras = datos.getInt(3 * Integer.BYTES);
+        final int nAdyacencias = datos.getInt(4 * Integer.BYTES);
+        final int bytesCadenas = datos.getInt(5 * Integer.BYTES);
+        if (nLocalidades < 0 || nCarreteras < 0 || nAdyacencias < 0 || bytesCadenas < 0) {
+            throw new IllegalArgumentException("La cabecera de la instantánea binaria tiene tamaños negativos.");
+        }
+
+        // Calcular dónde empieza cada sección, comprobando que el tamaño del fichero concuerda
+        // con la cabecera. Usamos aritmética long para detectar desbordamientos
+        final long[] posiciones = new long[8];
+        posiciones[0] = BYTES_CABECERA;
+        posiciones[1] = posiciones[0] + (nLocalidades + 1L) * Integer.BYTES;
+        posiciones[2] = posiciones[1] + (long) nAdyacencias * Integer.BYTES;
+        posiciones[3] = posiciones[2] + (long) nAdyacencias * Integer.BYTES;
+        posiciones[4] = posiciones[3] + (long) nCarreteras * BYTES_CARRETERA;
+        posiciones[5] = posiciones[4] + (long) nLocalidades * BYTES_COORDENADAS;
+        posiciones[6] = posiciones[5] + (nLocalidades + 2L) * Integer.BYTES;
+        posiciones[7] = posiciones[6] + bytesCadenas;
+        if (posiciones[7] != datos.capacity()) {
+            throw new IllegalArgumentException("El tamaño de la instantánea binaria no concuerda con su cabecera.");
+        }
+
+        this.posDesplazamientos = (int) posiciones[0];
+        this.posDestinos = (int) posiciones[1];
+        this.posCarreterasAdyacencia = (int) posiciones[2];
+        this.posCarreteras = (int) posiciones[3];
+        this.posCoordenadas = (int) posiciones[4];
+        this.posDesplazamientosCadenas = (int) posiciones[5];
+        this.posCadenas = (int) posiciones[6];
+
+        if (datos.getInt(posDesplazamientos + nLocalidades * Integer.BYTES) != nAdyacencias || datos.getInt(posDesplazamientosCadenas + (nLocalidades + 1) * Integer.BYTES) != bytesCadenas) {
+            throw new IllegalArgumentException("Los desplazamientos de la instantánea binaria no concuerdan con su cabecera.");
+        }
+
+        this.localidadesId = new AtomicReferenceArray<>(nLocalidades);
+        this.carreterasId = new AtomicReferenceArray<>(nCarreteras);
+        this.localidades = new ConjuntoPerezoso<>(Localidad.class, nLocalidades, this::localidad, Localidad::getId);
+        this.carreteras = new ConjuntoPerezoso<>(Carretera.class, nCarreteras, this::carretera, Carretera::getId);
+        this.nombre = cadena(nLocalidades);
+        this.almacenFeromona = new AlmacenFeromona(nCarreteras);
+    }
+
+    /**
+     * Abre una instantánea binaria de un grafo de carreteras, proyectándola en memoria.
+     * @param fichero La ruta del fichero de la instantánea.
+     * @return El grafo de carreteras respaldado por la instantánea.
+     * @throws IOException Si ocurre un error de E/S abriendo o proyectando el fichero.
+     * @throws IllegalArgumentException Si el fichero no tiene un formato válido, o es demasiado
+     * grande como para proyectarlo en un único búfer.
+     */
+    static MapaBinario abrir(final Path fichero) throws IOException {
+        final MappedByteBuffer datos;
+
+        // La proyección sigue siendo válida tras cerrar el canal
+        try (final FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("La instantánea binaria " + fichero + " es demasiado grande.");
+            }
+            datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+
+        return new MapaBinario(datos);
+    }
+
+    /**
+     * Escribe una instantánea binaria de un grafo de carreteras, que después se podrá abrir con
+     * {@link #abrir(Path)}. Se escribe en una sola pasada secuencial sobre el grafo.
+     * @param grafo El grafo de carreteras a escribir.
+     * @param fichero La ruta del fichero donde escribir la instantánea. Si ya existe, se sobrescribe.
+     * @throws IOException Si ocurre un error de E/S escribiendo el fichero.
+     * @throws IllegalArgumentException Si algún parámetro es nulo.
+     */
+    static void escribir(final GrafoCarreteras grafo, final Path fichero) throws IOException {
+        if (grafo == null || fichero == null) {
+            throw new IllegalArgumentException("No se puede escribir una instantánea de un grafo nulo, o en un fichero nulo.");
+        }
+
+        final int n = grafo.numeroLocalidades();
+        final int m = grafo.numeroCarreteras();
+
+        // Calcular los desplazamientos de las adyacencias y de la tabla de cadenas, y codificar
+        // los nombres, antes de escribir nada, pues la cabecera depende de sus tamaños
+        final int[] desplazamientos = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            desplazamientos[i + 1] = desplazamientos[i] + grafo.grado(i);
+        }
+        final byte[][] cadenas = new byte[n + 1][];
+        final int[] desplazamientosCadenas = new int[n + 2];
+        for (int i = 0; i <= n; ++i) {
+            cadenas[i] = (i < n ? grafo.localidad(i).getNombre() : grafo.getNombre()).getBytes(StandardCharsets.UTF_8);
+            desplazamientosCadenas[i + 1] = desplazamientosCadenas[i] + cadenas[i].length;
+        }
+
+        try (final DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(fichero), 1 << 16))) {
+            salida.writeInt(MAGICO);
+            salida.writeInt(VERSION);
+            salida.writeInt(n);
+            salida.writeInt(m);
+            salida.writeInt(desplazamientos[n]);
+            salida.writeInt(desplazamientosCadenas[n + 1]);
+
+            for (final int d : desplazamientos) {
+                salida.writeInt(d);
+            }
+            for (int i = 0; i < n; ++i) {
+                for (int j = 0; j < grafo.grado(i); ++j) {
+                    salida.writeInt(grafo.vecino(i, j));
+                }
+            }
+            for (int i = 0; i < n; ++i) {
+                for (int j = 0; j < grafo.grado(i); ++j) {
+                    salida.writeInt(grafo.carreteraIncidente(i, j));
+                }
+            }
+            for (int i = 0; i < m; ++i) {
+                final Carretera c = grafo.carretera(i);
+                salida.writeInt(c.getLocalidadA().getId());
+                salida.writeInt(c.getLocalidadB().getId());
+                salida.writeDouble(c.getDistancia());
+                salida.writeInt(c.getInfoX());
+                salida.writeInt(c.getInfoY());
+            }
+            for (int i = 0; i < n; ++i) {
+                final Localidad l = grafo.localidad(i);
+                salida.writeInt(l.getX());
+                salida.writeInt(l.getY());
+            }
+            for (final int d : desplazamientosCadenas) {
+                salida.writeInt(d);
+            }
+            for (final byte[] cadena : cadenas) {
+                salida.write(cadena);
+            }
+        }
+    }
+
+    @Override
+    public Set<Carretera> carreteras() {
+        return carreteras;
+    }
+
+    @Override
+    public Set<Localidad> localidades() {
+        return localidades;
+    }
+
+    @Override
+    public int numeroLocalidades() {
+        return nLocalidades;
+    }
+
+    @Override
+    public int numeroCarreteras() {
+        return nCarreteras;
+    }
+
+    @Override
+    public Localidad localidad(final int id) {
+        Localidad toret = localidadesId.get(id);
+
+        if (toret == null) {
+            final int pos = posCoordenadas + id * BYTES_COORDENADAS;
+            final Localidad nueva = new Localidad(id, cadena(id), datos.getInt(pos), datos.getInt(pos + Integer.BYTES));
+
+            // Si otro hilo la creó antes, quedarnos con la suya, para que cada localidad
+            // tenga una única instancia
+            toret = localidadesId.compareAndSet(id, null, nueva) ? nueva : localidadesId.get(id);
+        }
+
+        return toret;
+    }
+
+    @Override
+    public Carretera carretera(final int id) {
+        Carretera toret = carreterasId.get(id);
+
+        if (toret == null) {
+            final int pos = posCarreteras + id * BYTES_CARRETERA;
+            final Carretera nueva = new Carretera(
+                id,
+                localidad(datos.getInt(pos)),
+                localidad(datos.getInt(pos + Integer.BYTES)),
+                datos.getDouble(pos + 2 * Integer.BYTES),
+                datos.getInt(pos + 2 * Integer.BYTES + Double.BYTES),
+                datos.getInt(pos + 3 * Integer.BYTES + Double.BYTES)
+            );
+
+            toret = carreterasId.compareAndSet(id, null, nueva) ? nueva : carreterasId.get(id);
+        }
+
+        return toret;
+    }
+
+    @Override
+    public int grado(final int idLocalidad) {
+        return desplazamiento(idLocalidad + 1) - desplazamiento(idLocalidad);
+    }
+
+    @Override
+    public int vecino(final int idLocalidad, final int i) {
+        return datos.getInt(posDestinos + posicionAdyacencia(idLocalidad, i) * Integer.BYTES);
+    }
+
+    @Override
+    public int carreteraIncidente(final int idLocalidad, final int i) {
+        return datos.getInt(posCarreterasAdyacencia + posicionAdyacencia(idLocalidad, i) * Integer.BYTES);
+    }
+
+    /**
+     * {@inheritDoc} Para no tener que mantener una tabla de dispersión con todas las carreteras,
+     * se recorren las adyacencias de la localidad de menor grado, lo que es eficiente en redes de
+     * carreteras, donde los grados son pequeños.
+     */
+    @Override
+    public Carretera getCarretera(final Localidad a, final Localidad b) {
+        Carretera toret = null;
+
+        if (a != null && b != null && contieneLocalidad(a) && contieneLocalidad(b)) {
+            final int idOrigen = grado(a.getId()) <= grado(b.getId()) ? a.getId() : b.getId();
+            final int idDestino = idOrigen == a.getId() ? b.getId() : a.getId();
+            final int inicio = desplazamiento(idOrigen);
+            final int fin = desplazamiento(idOrigen + 1);
+
+            for (int i = inicio; i < fin && toret == null; ++i) {
+                if (datos.getInt(posDestinos + i * Integer.BYTES) == idDestino) {
+                    toret = carretera(datos.getInt(posCarreterasAdyacencia + i * Integer.BYTES));
+                }
+            }
+        }
+
+        return toret;
+    }
+
+    @Override
+    public AlmacenFeromona getAlmacenFeromona() {
+        return almacenFeromona;
+    }
+
+    @Override
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Comprueba si una localidad pertenece a este grafo.
+     * @param l La localidad a comprobar.
+     * @return Verdadero si pertenece al grafo, falso en caso contrario.
+     */
+    private boolean contieneLocalidad(final Localidad l) {
+        return l.getId() < nLocalidades && localidad(l.getId()).equals(l);
+    }
+
+    /**
+     * Lee el desplazamiento CSR en el que empiezan las adyacencias de una localidad.
+     * @param i El identificador de la localidad, o el número de localidades para obtener el final
+     * de las adyacencias de la última.
+     * @return El devandicho desplazamiento.
+     * @throws IndexOutOfBoundsException Si el identificador está fuera de rango.
+     */
+    private int desplazamiento(final int i) {
+        if (i < 0 || i > nLocalidades) {
+            throw new IndexOutOfBoundsException("No existe la localidad " + i + ".");
+        }
+
+        return datos.getInt(posDesplazamientos + i * Integer.BYTES);
+    }
+
+    /**
+     * Calcula la posición en las secciones de adyacencias de la i-ésima adyacencia de una localidad.
+     * @param idLocalidad El identificador de la localidad.
+     * @param i El índice de la adyacencia.
+     * @return La devandicha posición.
+     * @throws IndexOutOfBoundsException Si el índice está fuera de rango.
+     */
+    private int posicionAdyacencia(final int idLocalidad, final int i) {
+        final int inicio = desplazamiento(idLocalidad);
+
+        if (i < 0 || i >= desplazamiento(idLocalidad + 1) - inicio) {
+            throw new IndexOutOfBoundsException("La localidad " + idLocalidad + " no tiene una adyacencia con índice " + i + ".");
+        }
+
+        return inicio + i;
+    }
+
+    /**
+     * Decodifica una cadena de la tabla de cadenas.
+     * @param i El índice de la cadena.
+     * @return La devandicha cadena.
+     */
+    private String cadena(final int i) {
+        final int inicio = datos.getInt(posDesplazamientosCadenas + i * Integer.BYTES);
+        final byte[] bytes = new byte[datos.getInt(posDesplazamientosCadenas + (i + 1) * Integer.BYTES) - inicio];
+
+        // Leer con un duplicado, pues las lecturas relativas modifican la posición del búfer
+        final ByteBuffer duplicado = datos.duplicate();
+        duplicado.position(posCadenas + inicio);
+        duplicado.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Un conjunto inmutable de elementos de un grafo identificados por índices consecutivos,
+     * que obtiene cada elemento de una función en vez de guardarlos todos.
+     * @author Alejandro González García
+     */
+    private static final class ConjuntoPerezoso<E> extends AbstractSet<E> {
+        /**
+         * El tipo de los elementos del conjunto.
+         */
+        private final Class<E> tipo;
+        /**
+         * El número de elementos del conjunto.
+         */
+        private final int tamano;
+        /**
+         * La función que obtiene el elemento de un índice.
+         */
+        private final IntFunction<E> elemento;
+        /**
+         * La función que obtiene el índice de un elemento.
+         */
+        private final ToIntFunction<E> indice;
+
+        /**
+         * Crea un nuevo conjunto perezoso.
+         * @param tipo El tipo de los elementos del conjunto.
+         * @param tamano El número de elementos del conjunto.
+         * @param elemento La función que obtiene el elemento de un índice.
+         * @param indice La función que obtiene el índice de un elemento.
+         */
+        ConjuntoPerezoso(final Class<E> tipo, final int tamano, final IntFunction<E> elemento, final ToIntFunction<E> indice) {
+            this.tipo = tipo;
+            this.tamano = tamano;
+            this.elemento = elemento;
+            this.indice = indice;
+        }
+
+        @Override
+        public boolean contains(final Object o) {
+            boolean toret = tipo.isInstance(o);
+
+            if (toret) {
+                final int i = indice.applyAsInt(tipo.cast(o));
+                toret = i >= 0 && i < tamano && elemento.apply(i).equals(o);
+            }
+
+            return toret;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                /**
+                 * El índice del siguiente elemento a devolver.
+                 */
+                private int siguiente = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return siguiente < tamano;
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    return elemento.apply(siguiente++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return tamano;
+        }
+    }
+}
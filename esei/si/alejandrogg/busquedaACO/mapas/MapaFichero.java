@@ -0,0 +1,314 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO.mapas;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import esei.si.alejandrogg.busquedaACO.Carretera;
+import esei.si.alejandrogg.busquedaACO.Localidad;
+
+/**
+ * Un grafo de carreteras leído de un fichero de texto, en una única pasada secuencial
+ * con lectura en búfer, de forma que se puedan usar redes de carreteras reales de cientos
+ * de miles de localidades sin escribir una clase por mapa. Se admiten dos formatos:
+ * <ul>
+ * <li>Lista de aristas CSV (extensión .csv): cada línea tiene la forma
+ * {@code origen,destino,distancia}, donde origen y destino son los nombres de las localidades.
+ * Las líneas en blanco y las que empiezan por # se ignoran.</li>
+ * <li>DIMACS (extensión .gr), el formato de la 9th DIMACS Implementation Challenge: las líneas
+ * {@code p sp n m} declaran el número de nodos y arcos, y las líneas {@code a u v w} declaran
+ * un arco de u a v con peso w. Si existe un fichero hermano con extensión .co, se leen las
+ * coordenadas de cada nodo de sus líneas {@code v id x y}. Las localidades se llaman "Nodo i".</li>
+ * </ul>
+ * Como el grafo se trata como no dirigido y no puede ser un multigrafo, cuando hay varios arcos
+ * entre las mismas localidades se conserva solo el de menor distancia.
+ * @author Alejandro González García
+ */
+final class MapaFichero extends BaseMapa {
+    /**
+     * El número estimado de bytes que ocupa cada línea de un fichero CSV, usado para estimar
+     * el número de carreteras que contiene a partir de su tamaño.
+     */
+    private static final int BYTES_ESTIMADOS_LINEA_CSV = 24;
+
+    /**
+     * El nombre identificativo del grafo de carreteras.
+     */
+    private final String nombre;
+
+    /**
+     * Crea un nuevo grafo de carreteras leído de un fichero.
+     * @param nombre El nombre identificativo del grafo.
+     * @param localidades Las localidades del grafo, cada una en la posición de su identificador.
+     * @param carreteras Las carreteras del grafo, cada una en la posición de su identificador.
+     */
+    private MapaFichero(final String nombre, final Localidad[] localidades, final Carretera[] carreteras) {
+        super(localidades, carreteras);
+        this.nombre = nombre;
+    }
+
+    /**
+     * Lee un grafo de carreteras de un fichero, interpretando su formato según su extensión.
+     * @param fichero La ruta del fichero a leer.
+     * @return El grafo de carreteras leído.
+     * @throws IOException Si ocurre un error de E/S leyendo el fichero.
+     * @throws IllegalArgumentException Si la extensión del fichero no se corresponde con un formato
+     * soportado, o el fichero no sigue el formato esperado.
+     */
+    static MapaFichero cargar(final Path fichero) throws IOException {
+        final String nombreFichero = fichero.getFileName().toString();
+        final int posPunto = nombreFichero.lastIndexOf('.');
+        final String extension = posPunto < 0 ? "" : nombreFichero.substring(posPunto + 1).toLowerCase();
+        final String nombre = posPunto < 0 ? nombreFichero : nombreFichero.substring(0, posPunto);
+
+        final MapaFichero toret;
+        switch (extension) {
+            case "csv":
+                toret = cargarCSV(fichero, nombre);
+                break;
+            case "gr":
+                toret = cargarDIMACS(fichero, fichero.resolveSibling(nombre + ".co"), nombre);
+                break;
+            default:
+                throw new IllegalArgumentException("El formato del fichero " + nombreFichero + " no está soportado.");
+        }
+
+        return toret;
+    }
+
+    /**
+     * Lee un grafo de carreteras de un fichero CSV con una carretera por línea.
+     * @param fichero La ruta del fichero CSV.
+     * @param nombre El nombre identificativo del grafo.
+     * @return El grafo de carreteras leído.
+     * @throws IOException Si ocurre un error de E/S leyendo el fichero.
+     * @throws IllegalArgumentException Si alguna línea no sigue el formato esperado.
+     */
+    private static MapaFichero cargarCSV(final Path fichero, final String nombre) throws IOException {
+        final int carreterasEstimadas = (int) Math.min(Integer.MAX_VALUE / 2, Files.size(fichero) / BYTES_ESTIMADOS_LINEA_CSV + 1);
+        final Map<String, Integer> idsLocalidades = new HashMap<>((int) (carreterasEstimadas / 0.75) + 1, 0.75f);
+        final List<String> nombresLocalidades = new ArrayList<>(carreterasEstimadas);
+        final AcumuladorCarreteras carreteras = new AcumuladorCarreteras(carreterasEstimadas);
+
+        try (final BufferedReader lector = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            String linea;
+            int numLinea = 0;
+
+            while ((linea = lector.readLine()) != null) {
+                ++numLinea;
+                linea = linea.trim();
+
+                if (!linea.isEmpty() && linea.charAt(0) != '#') {
+                    final int coma1 = linea.indexOf(',');
+                    final int coma2 = coma1 < 0 ? -1 : linea.indexOf(',', coma1 + 1);
+                    if (coma2 < 0) {
+                        throw new IllegalArgumentException("La línea " + numLinea + " de " + fichero + " no tiene la forma origen,destino,distancia.");
+                    }
+
+                    final int a = idLocalidad(linea.substring(0, coma1).trim(), idsLocalidades, nombresLocalidades);
+                    final int b = idLocalidad(linea.substring(coma1 + 1, coma2).trim(), idsLocalidades, nombresLocalidades);
+                    carreteras.anadir(a, b, interpretarDistancia(linea.substring(coma2 + 1).trim(), numLinea, fichero));
+                }
+            }
+        }
+
+        final Localidad[] localidades = new Localidad[nombresLocalidades.size()];
+        for (int i = 0; i < localidades.length; ++i) {
+            localidades[i] = new Localidad(i, nombresLocalidades.get(i), 0, 0);
+        }
+
+        return new MapaFichero(nombre, localidades, carreteras.carreteras(localidades, null, null));
+    }
+
+    /**
+     * Lee un grafo de carreteras de un fichero en formato DIMACS, y opcionalmente las coordenadas
+     * de sus nodos de un fichero de coordenadas DIMACS.
+     * @param fichero La ruta del fichero DIMACS con los arcos.
+     * @param ficheroCoordenadas La ruta del fichero DIMACS con las coordenadas. Si no existe, todas
+     * las localidades se situarán en el origen.
+     * @param nombre El nombre identificativo del grafo.
+     * @return El grafo de carreteras leído.
+     * @throws IOException Si ocurre un error de E/S leyendo los ficheros.
+     * @throws IllegalArgumentException Si algún fichero no sigue el formato esperado.
+     */
+    private static MapaFichero cargarDIMACS(final Path fichero, final Path ficheroCoordenadas, final String nombre) throws IOException {
+        AcumuladorCarreteras carreteras = null;
+        int numLocalidades = -1;
+
+        try (final BufferedReader lector = Files.newBufferedReader(fichero, StandardCharsets.US_ASCII)) {
+            String linea;
+            int numLinea = 0;
+
+            while ((linea = lector.readLine()) != null) {
+                ++numLinea;
+
+                if (linea.startsWith("a ")) {
+                    if (carreteras == null) {
+                        throw new IllegalArgumentException("La línea " + numLinea + " de " + fichero + " declara un arco antes de la línea de problema.");
+                    }
+
+                    final StringTokenizer campos = new StringTokenizer(linea);
+                    campos.nextToken();
+                    final int a = interpretarNodo(campos, numLocalidades, numLinea, fichero);
+                    final int b = interpretarNodo(campos, numLocalidades, numLinea, fichero);
+                    carreteras.anadir(a, b, interpretarDistancia(campos.hasMoreTokens() ? campos.nextToken() : "", numLinea, fichero));
+                } else if (linea.startsWith("p ")) {
+                    // Dimensionar las estructuras de datos a partir de los tamaños declarados.
+                    // Las redes de carreteras suelen declarar cada arco en ambos sentidos
+                    final StringTokenizer campos = new StringTokenizer(linea);
+                    try {
+                        campos.nextToken();
+                        campos.nextToken();
+                        numLocalidades = Integer.parseInt(campos.nextToken());
+                        carreteras = new AcumuladorCarreteras(Integer.parseInt(campos.nextToken()) / 2 + 1);
+                    } catch (RuntimeException exc) {
+                        throw new IllegalArgumentException("La línea de problema " + numLinea + " de " + fichero + " no tiene la forma p sp n m.");
+                    }
+                }
+            }
+        }
+
+        if (carreteras == null) {
+            throw new IllegalArgumentException("El fichero " + fichero + " no tiene una línea de problema.");
+        }
+
+        final int[] x = new int[numLocalidades];
+        final int[] y = new int[numLocalidades];
+        if (Files.isRegularFile(ficheroCoordenadas)) {
+            leerCoordenadasDIMACS(ficheroCoordenadas, x, y);
+        }
+
+        final Localidad[] localidades = new Localidad[numLocalidades];
+        for (int i = 0; i < localidades.length; ++i) {
+            localidades[i] = new Localidad(i, "Nodo " + (i + 1), x[i], y[i]);
+        }
+
+        return new MapaFichero(nombre, localidades, carreteras.carreteras(localidades, x, y));
+    }
+
+    /**
+     * Lee las coordenadas de los nodos de un fichero de coordenadas DIMACS, trasladándolas de forma
+     * que ninguna sea negativa.
+     * @param fichero La ruta del fichero de coordenadas.
+     * @param x El array donde guardar la coordenada X de cada nodo.
+     * @param y El array donde guardar la coordenada Y de cada nodo.
+     * @throws IOException Si ocurre un error de E/S leyendo el fichero.
+     * @throws IllegalArgumentException Si el fichero no sigue el formato esperado.
+     */
+    private static void leerCoordenadasDIMACS(final Path fichero, final int[] x, final int[] y) throws IOException {
+        final long[] xLeidas = new long[x.length];
+        final long[] yLeidas = new long[y.length];
+        long minX = Long.MAX_VALUE;
+        long minY = Long.MAX_VALUE;
+
+        try (final BufferedReader lector = Files.newBufferedReader(fichero, StandardCharsets.US_ASCII)) {
+            String linea;
+            int numLinea = 0;
+
+            while ((linea = lector.readLine()) != null) {
+                ++numLinea;
+
+                if (linea.startsWith("v ")) {
+                    final StringTokenizer campos = new StringTokenizer(linea);
+                    campos.nextToken();
+                    final int nodo = interpretarNodo(campos, x.length, numLinea, fichero);
+                    try {
+                        xLeidas[nodo] = Long.parseLong(campos.nextToken());
+                        yLeidas[nodo] = Long.parseLong(campos.nextToken());
+                    } catch (RuntimeException exc) {
+                        throw new IllegalArgumentException("La línea " + numLinea + " de " + fichero + " no tiene la forma v id x y.");
+                    }
+
+                    minX = Math.min(minX, xLeidas[nodo]);
+                    minY = Math.min(minY, yLeidas[nodo]);
+                }
+            }
+        }
+
+        // Trasladar las coordenadas para que la mínima sea 0, pues las localidades no admiten
+        // coordenadas negativas (las longitudes y latitudes suelen serlo)
+        for (int i = 0; i < x.length; ++i) {
+            x[i] = (int) Math.min(Integer.MAX_VALUE, xLeidas[i] - Math.min(0, minX));
+            y[i] = (int) Math.min(Integer.MAX_VALUE, yLeidas[i] - Math.min(0, minY));
+        }
+    }
+
+    /**
+     * Interpreta el siguiente campo de una línea DIMACS como un identificador de nodo, que en el
+     * fichero empieza a contar desde 1.
+     * @param campos Los campos de la línea.
+     * @param numLocalidades El número de nodos declarado.
+     * @param numLinea El número de línea, para los mensajes de error.
+     * @param fichero El fichero leído, para los mensajes de error.
+     * @return El identificador de la localidad correspondiente, que empieza a contar desde 0.
+     * @throws IllegalArgumentException Si el campo no existe o no es un nodo válido.
+     */
+    private static int interpretarNodo(final StringTokenizer campos, final int numLocalidades, final int numLinea, final Path fichero) {
+        final int toret;
+
+        try {
+            toret = Integer.parseInt(campos.nextToken()) - 1;
+        } catch (RuntimeException exc) {
+            throw new IllegalArgumentException("La línea " + numLinea + " de " + fichero + " no tiene un identificador de nodo válido.");
+        }
+        if (toret < 0 || toret >= numLocalidades) {
+            throw new IllegalArgumentException("La línea " + numLinea + " de " + fichero + " hace referencia a un nodo no declarado.");
+        }
+
+        return toret;
+    }
+
+    /**
+     * Interpreta una distancia leída de un fichero.
+     * @param campo El texto de la distancia.
+     * @param numLinea El número de línea, para los mensajes de error.
+     * @param fichero El fichero leído, para los mensajes de error.
+     * @return La distancia interpretada.
+     * @throws IllegalArgumentException Si la distancia no es un número real finito y positivo. Las
+     * distancias nulas no se admiten, pues la heurística de elección de carreteras y el depósito de
+     * feromona dividen entre ellas.
+     */
+    private static double interpretarDistancia(final String campo, final int numLinea, final Path fichero) {
+        final double toret;
+
+        try {
+            toret = Double.parseDouble(campo);
+        } catch (NumberFormatException exc) {
+            throw new IllegalArgumentException("La línea " + numLinea + " de " + fichero + " no tiene una distancia numérica.");
+        }
+        if (!(toret > 0) || Double.isInfinite(toret)) {
+            throw new IllegalArgumentException("La línea " + numLinea + " de " + fichero + " tiene una distancia nula, negativa o inválida.");
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene el identificador de una localidad a partir de su nombre, asignándole el siguiente
+     * identificador libre si es la primera vez que aparece.
+     * @param nombre El nombre de la localidad.
+     * @param ids Relaciona los nombres de las localidades ya vistas con su identificador.
+     * @param nombres Los nombres de las localidades ya vistas, en orden de identificador.
+     * @return El identificador de la localidad.
+     */
+    private static int idLocalidad(final String nombre, final Map<String, Integer> ids, final List<String> nombres) {
+        return ids.computeIfAbsent(nombre, (final String n) -> {
+            nombres.add(n);
+            return nombres.size() - 1;
+        });
+    }
+
+    @Override
+    public String getNombre() {
+        return nombre;
+    }
+}
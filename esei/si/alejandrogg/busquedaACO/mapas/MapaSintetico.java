@@ -0,0 +1,462 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO.mapas;
+
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import esei.si.alejandrogg.busquedaACO.Localidad;
+
+/**
+ * Un grafo de carreteras sintético, generado aleatoriamente a partir de una semilla para medir
+ * cómo escala el sistema con el tamaño del grafo. La generación es determinista: la misma
+ * especificación produce siempre el mismo grafo, de forma que las mediciones de rendimiento
+ * sean comparables entre ejecuciones. Todos los grafos generados son conexos, sus localidades
+ * se llaman "L0", "L1"... y la distancia de cada carretera es la distancia euclídea entre las
+ * coordenadas de sus localidades, redondeada y como mínimo 1.
+ * <p>
+ * Los grafos se especifican mediante un nombre de la forma {@code tipo:localidades[:semilla]},
+ * donde el tipo es uno de los siguientes:
+ * <ul>
+ * <li>{@value #GEOMETRICO}: grafo geométrico aleatorio. Las localidades se distribuyen
+ * uniformemente en un cuadrado, y se une cada par de localidades más cercanas que un radio
+ * escogido para que el grado medio sea aproximadamente {@value #GRADO_MEDIO_GEOMETRICO}.</li>
+ * <li>{@value #REJILLA}: rejilla con carreteras eliminadas aleatoriamente. Las localidades se
+ * disponen en una rejilla cuadrada con algo de ruido en sus coordenadas, y se conserva cada
+ * carretera entre localidades vecinas con probabilidad {@value #PROBABILIDAD_CONSERVAR_REJILLA},
+ * además de las de un árbol de expansión aleatorio.</li>
+ * <li>{@value #LIBRE_ESCALA}: grafo libre de escala según el modelo de Barabási-Albert, donde cada
+ * localidad nueva se une a {@value #CARRETERAS_NUEVA_LOCALIDAD} localidades existentes con
+ * probabilidad proporcional a su grado, y se sitúa cerca de una de ellas.</li>
+ * </ul>
+ * @author Alejandro González García
+ */
+final class MapaSintetico extends BaseMapa {
+    /**
+     * El tipo de los grafos geométricos aleatorios.
+     */
+    static final String GEOMETRICO = "geometrico";
+    /**
+     * El tipo de las rejillas con carreteras eliminadas aleatoriamente.
+     */
+    static final String REJILLA = "rejilla";
+    /**
+     * El tipo de los grafos libres de escala.
+     */
+    static final String LIBRE_ESCALA = "libreEscala";
+    /**
+     * El separador de los campos de la especificación de un grafo sintético.
+     */
+    private static final char SEPARADOR = ':';
+    /**
+     * La separación media entre localidades vecinas, en unidades de coordenadas.
+     */
+    private static final int SEPARACION = 100;
+    /**
+     * El grado medio aproximado de los grafos geométricos aleatorios.
+     */
+    private static final double GRADO_MEDIO_GEOMETRICO = 6;
+    /**
+     * La probabilidad de conservar cada carretera de una rejilla que no pertenece a su árbol
+     * de expansión aleatorio.
+     */
+    private static final double PROBABILIDAD_CONSERVAR_REJILLA = 0.7;
+    /**
+     * El número de carreteras con las que cada nueva localidad se une al resto en un grafo libre
+     * de escala. Las primeras localidades forman un grafo completo de este tamaño más uno.
+     */
+    private static final int CARRETERAS_NUEVA_LOCALIDAD = 2;
+
+    /**
+     * La especificación que identifica al grafo de carreteras.
+     */
+    private final String nombre;
+
+    /**
+     * Crea un nuevo grafo de carreteras sintético.
+     * @param nombre La especificación que identifica al grafo.
+     * @param localidades Las localidades del grafo, cada una en la posición de su identificador.
+     * @param x La coordenada X de cada localidad.
+     * @param y La coordenada Y de cada localidad.
+     * @param carreteras Las carreteras acumuladas del grafo.
+     */
+    private MapaSintetico(final String nombre, final Localidad[] localidades, final int[] x, final int[] y, final AcumuladorCarreteras carreteras) {
+        super(localidades, carreteras.carreteras(localidades, x, y));
+        this.nombre = nombre;
+    }
+
+    /**
+     * Comprueba si un nombre de mapa especifica un grafo sintético.
+     * @param nombre El nombre del mapa.
+     * @return Verdadero si el nombre empieza por un tipo de grafo sintético seguido del separador,
+     * falso en caso contrario.
+     */
+    static boolean esEspecificacion(final String nombre) {
+        final int posSeparador = nombre.indexOf(SEPARADOR);
+        final String tipo = posSeparador < 0 ? nombre : nombre.substring(0, posSeparador);
+
+        return posSeparador >= 0 && (tipo.equals(GEOMETRICO) || tipo.equals(REJILLA) || tipo.equals(LIBRE_ESCALA));
+    }
+
+    /**
+     * Genera el grafo de carreteras sintético descrito por una especificación.
+     * @param especificacion La especificación, de la forma {@code tipo:localidades[:semilla]}.
+     * Si no se indica una semilla, se usa 0.
+     * @return El grafo generado.
+     * @throws NoSuchElementException Si la especificación no es válida.
+     */
+    static MapaSintetico generar(final String especificacion) {
+        final String[] campos = especificacion.split(String.valueOf(SEPARADOR), -1);
+        final int nLocalidades;
+        final long semilla;
+
+        if (campos.length < 2 || campos.length > 3) {
+            throw new NoSuchElementException("La especificación de grafo sintético " + especificacion + " no tiene la forma tipo:localidades[:semilla].");
+        }
+        try {
+            nLocalidades = Integer.parseInt(campos[1]);
+            semilla = campos.length > 2 ? Long.parseLong(campos[2]) : 0;
+        } catch (NumberFormatException exc) {
+            throw new NoSuchElementException("El número de localidades o la semilla de " + especificacion + " no son números enteros.");
+        }
+        if (nLocalidades <= CARRETERAS_NUEVA_LOCALIDAD) {
+            throw new NoSuchElementException("Un grafo sintético debe de tener más de " + CARRETERAS_NUEVA_LOCALIDAD + " localidades.");
+        }
+
+        final SplittableRandom aleatorio = new SplittableRandom(semilla);
+        final MapaSintetico toret;
+        switch (campos[0]) {
+            case GEOMETRICO:
+                toret = geometrico(especificacion, nLocalidades, aleatorio);
+                break;
+            case REJILLA:
+                toret = rejilla(especificacion, nLocalidades, aleatorio);
+                break;
+            case LIBRE_ESCALA:
+                toret = libreEscala(especificacion, nLocalidades, aleatorio);
+                break;
+            default:
+                throw new NoSuchElementException("El tipo de grafo sintético " + campos[0] + " no existe.");
+        }
+
+        return toret;
+    }
+
+    /**
+     * Genera un grafo geométrico aleatorio. Para no comparar todos los pares de localidades,
+     * estas se agrupan en celdas de lado igual al radio de conexión, ordenándolas por celda
+     * mediante conteo, y cada localidad solo se compara con las de su celda y las ocho vecinas.
+     * @param nombre La especificación del grafo.
+     * @param n El número de localidades.
+     * @param aleatorio El generador de números aleatorios a usar.
+     * @return El grafo generado.
+     */
+    private static MapaSintetico geometrico(final String nombre, final int n, final SplittableRandom aleatorio) {
+        final int lado = (int) Math.ceil(Math.sqrt(n)) * SEPARACION;
+        final int[] x = new int[n];
+        final int[] y = new int[n];
+        for (int i = 0; i < n; ++i) {
+            x[i] = aleatorio.nextInt(lado);
+            y[i] = aleatorio.nextInt(lado);
+        }
+
+        // Hay una localidad por cada cuadrado de lado SEPARACION, en media, así que este radio
+        // hace que el número esperado de localidades en el círculo de conexión sea el grado medio
+        final int radio = (int) Math.ceil(SEPARACION * Math.sqrt(GRADO_MEDIO_GEOMETRICO / Math.PI));
+        final int celdasLado = lado / radio + 1;
+        final int[] inicioCelda = new int[celdasLado * celdasLado + 1];
+        final int[] celda = new int[n];
+        for (int i = 0; i < n; ++i) {
+            celda[i] = (y[i] / radio) * celdasLado + x[i] / radio;
+            ++inicioCelda[celda[i] + 1];
+        }
+        for (int i = 0; i < celdasLado * celdasLado; ++i) {
+            inicioCelda[i + 1] += inicioCelda[i];
+        }
+        final int[] ordenadas = new int[n];
+        final int[] cursores = new int[celdasLado * celdasLado];
+        System.arraycopy(inicioCelda, 0, cursores, 0, cursores.length);
+        for (int i = 0; i < n; ++i) {
+            ordenadas[cursores[celda[i]]++] = i;
+        }
+
+        final AcumuladorCarreteras carreteras = new AcumuladorCarreteras((int) (n * GRADO_MEDIO_GEOMETRICO / 2));
+        final long radioCuadrado = (long) radio * radio;
+        for (int i = 0; i < n; ++i) {
+            final int cx = x[i] / radio;
+            final int cy = y[i] / radio;
+
+            for (int vy = Math.max(0, cy - 1); vy <= Math.min(celdasLado - 1, cy + 1); ++vy) {
+                for (int vx = Math.max(0, cx - 1); vx <= Math.min(celdasLado - 1, cx + 1); ++vx) {
+                    final int c = vy * celdasLado + vx;
+
+                    for (int k = inicioCelda[c]; k < inicioCelda[c + 1]; ++k) {
+                        final int j = ordenadas[k];
+                        final long dx = x[i] - x[j];
+                        final long dy = y[i] - y[j];
+
+                        // Considerar cada par una sola vez
+                        if (j > i && dx * dx + dy * dy <= radioCuadrado) {
+                            carreteras.anadir(i, j, distancia(x, y, i, j));
+                        }
+                    }
+                }
+            }
+        }
+
+        conectar(n, x, y, carreteras);
+
+        return new MapaSintetico(nombre, localidades(n, x, y), x, y, carreteras);
+    }
+
+    /**
+     * Genera una rejilla con carreteras eliminadas aleatoriamente. Para que la rejilla siga siendo
+     * conexa, primero se escoge un árbol de expansión aleatorio mediante el algoritmo de Kruskal
+     * sobre las carreteras barajadas, cuyas carreteras se conservan siempre.
+     * @param nombre La especificación del grafo.
+     * @param n El número de localidades.
+     * @param aleatorio El generador de números aleatorios a usar.
+     * @return El grafo generado.
+     */
+    private static MapaSintetico rejilla(final String nombre, final int n, final SplittableRandom aleatorio) {
+        final int columnas = (int) Math.ceil(Math.sqrt(n));
+        final int ruido = SEPARACION / 4;
+        final int[] x = new int[n];
+        final int[] y = new int[n];
+        for (int i = 0; i < n; ++i) {
+            x[i] = (i % columnas) * SEPARACION + ruido + aleatorio.nextInt(-ruido, ruido + 1);
+            y[i] = (i / columnas) * SEPARACION + ruido + aleatorio.nextInt(-ruido, ruido + 1);
+        }
+
+        // Enumerar las carreteras candidatas: con la vecina de la derecha y con la de abajo
+        final long[] candidatas = new long[2 * n];
+        int nCandidatas = 0;
+        for (int i = 0; i < n; ++i) {
+            if ((i + 1) % columnas != 0 && i + 1 < n) {
+                candidatas[nCandidatas++] = ((long) i << 32) | (i + 1);
+            }
+            if (i + columnas < n) {
+                candidatas[nCandidatas++] = ((long) i << 32) | (i + columnas);
+            }
+        }
+
+        // Barajar las candidatas (Fisher-Yates) y recorrerlas, conservando las que unen
+        // componentes distintas y, con cierta probabilidad, el resto
+        for (int i = nCandidatas - 1; i > 0; --i) {
+            final int j = aleatorio.nextInt(i + 1);
+            final long t = candidatas[i];
+            candidatas[i] = candidatas[j];
+            candidatas[j] = t;
+        }
+        final int[] padres = nuevosConjuntosDisjuntos(n);
+        final AcumuladorCarreteras carreteras = new AcumuladorCarreteras((int) (nCandidatas * PROBABILIDAD_CONSERVAR_REJILLA) + n);
+        for (int i = 0; i < nCandidatas; ++i) {
+            final int a = (int) (candidatas[i] >>> 32);
+            final int b = (int) candidatas[i];
+
+            if (unir(padres, a, b) || aleatorio.nextDouble() < PROBABILIDAD_CONSERVAR_REJILLA) {
+                carreteras.anadir(a, b, distancia(x, y, a, b));
+            }
+        }
+
+        return new MapaSintetico(nombre, localidades(n, x, y), x, y, carreteras);
+    }
+
+    /**
+     * Genera un grafo libre de escala según el modelo de Barabási-Albert. La probabilidad de unirse
+     * a una localidad proporcionalmente a su grado se implementa escogiendo uniformemente un extremo
+     * de las carreteras ya creadas, guardados en un array.
+     * @param nombre La especificación del grafo.
+     * @param n El número de localidades.
+     * @param aleatorio El generador de números aleatorios a usar.
+     * @return El grafo generado.
+     */
+    private static MapaSintetico libreEscala(final String nombre, final int n, final SplittableRandom aleatorio) {
+        final int m = CARRETERAS_NUEVA_LOCALIDAD;
+        final int inicial = m + 1;
+        final int nCarreteras = inicial * m / 2 + (n - inicial) * m;
+        final int[] extremos = new int[2 * nCarreteras];
+        int nExtremos = 0;
+        // Las coordenadas pueden ser negativas mientras se generan; se trasladan al final,
+        // pues la localidad de referencia de cada nueva localidad puede estar en cualquier dirección
+        final long[] xGeneradas = new long[n];
+        final long[] yGeneradas = new long[n];
+        final int[] escogidas = new int[m];
+        final AcumuladorCarreteras carreteras = new AcumuladorCarreteras(nCarreteras);
+
+        // Grafo completo inicial, con las localidades en un polígono regular
+        for (int i = 0; i < inicial; ++i) {
+            xGeneradas[i] = Math.round(SEPARACION * Math.cos(2 * Math.PI * i / inicial));
+            yGeneradas[i] = Math.round(SEPARACION * Math.sin(2 * Math.PI * i / inicial));
+            for (int j = 0; j < i; ++j) {
+                carreteras.anadir(j, i, distancia(xGeneradas[j] - xGeneradas[i], yGeneradas[j] - yGeneradas[i]));
+                extremos[nExtremos++] = i;
+                extremos[nExtremos++] = j;
+            }
+        }
+
+        for (int i = inicial; i < n; ++i) {
+            // Escoger m localidades distintas con probabilidad proporcional a su grado
+            for (int k = 0; k < m; ++k) {
+                int candidata;
+                boolean repetida;
+                do {
+                    candidata = extremos[aleatorio.nextInt(nExtremos)];
+                    repetida = false;
+                    for (int l = 0; l < k && !repetida; ++l) {
+                        repetida = escogidas[l] == candidata;
+                    }
+                } while (repetida);
+                escogidas[k] = candidata;
+            }
+
+            // Situar la nueva localidad cerca de la primera escogida, como si la carretera
+            // principal que la une al resto partiese de ella
+            final double angulo = aleatorio.nextDouble(2 * Math.PI);
+            final double separacion = SEPARACION * (0.5 + aleatorio.nextDouble());
+            xGeneradas[i] = xGeneradas[escogidas[0]] + Math.round(separacion * Math.cos(angulo));
+            yGeneradas[i] = yGeneradas[escogidas[0]] + Math.round(separacion * Math.sin(angulo));
+
+            for (int k = 0; k < m; ++k) {
+                carreteras.anadir(escogidas[k], i, distancia(xGeneradas[escogidas[k]] - xGeneradas[i], yGeneradas[escogidas[k]] - yGeneradas[i]));
+                extremos[nExtremos++] = i;
+                extremos[nExtremos++] = escogidas[k];
+            }
+        }
+
+        // Las distancias no cambian al trasladar las coordenadas
+        final int[] x = trasladar(xGeneradas);
+        final int[] y = trasladar(yGeneradas);
+
+        return new MapaSintetico(nombre, localidades(n, x, y), x, y, carreteras);
+    }
+
+    /**
+     * Une las componentes conexas de un grafo para que sea conexo, añadiendo una carretera entre
+     * la primera localidad de cada componente y la primera de la siguiente, en orden de identificador.
+     * @param n El número de localidades.
+     * @param x La coordenada X de cada localidad.
+     * @param y La coordenada Y de cada localidad.
+     * @param carreteras Las carreteras del grafo, a las que añadir las de unión.
+     */
+    private static void conectar(final int n, final int[] x, final int[] y, final AcumuladorCarreteras carreteras) {
+        final int[] padres = nuevosConjuntosDisjuntos(n);
+        for (int i = 0; i < carreteras.numero(); ++i) {
+            unir(padres, carreteras.localidadA(i), carreteras.localidadB(i));
+        }
+
+        int anterior = 0;
+        for (int i = 1; i < n; ++i) {
+            if (unir(padres, anterior, i)) {
+                carreteras.anadir(anterior, i, distancia(x, y, anterior, i));
+                anterior = i;
+            }
+        }
+    }
+
+    /**
+     * Crea las localidades de un grafo sintético.
+     * @param n El número de localidades.
+     * @param x La coordenada X de cada localidad.
+     * @param y La coordenada Y de cada localidad.
+     * @return Las localidades, cada una en la posición de su identificador.
+     */
+    private static Localidad[] localidades(final int n, final int[] x, final int[] y) {
+        final Localidad[] toret = new Localidad[n];
+
+        for (int i = 0; i < n; ++i) {
+            toret[i] = new Localidad(i, "L" + i, x[i], y[i]);
+        }
+
+        return toret;
+    }
+
+    /**
+     * Calcula la distancia de la carretera entre dos localidades.
+     * @param x La coordenada X de cada localidad.
+     * @param y La coordenada Y de cada localidad.
+     * @param a El identificador de una de las localidades.
+     * @param b El identificador de la otra localidad.
+     * @return La distancia euclídea entre las localidades, redondeada y como mínimo 1.
+     */
+    private static double distancia(final int[] x, final int[] y, final int a, final int b) {
+        return distancia((long) x[a] - x[b], (long) y[a] - y[b]);
+    }
+
+    /**
+     * Calcula la distancia de una carretera a partir de la diferencia de coordenadas entre
+     * sus localidades.
+     * @param dx La diferencia entre las coordenadas X de las localidades.
+     * @param dy La diferencia entre las coordenadas Y de las localidades.
+     * @return La distancia euclídea correspondiente, redondeada y como mínimo 1.
+     */
+    private static double distancia(final long dx, final long dy) {
+        return Math.max(1, Math.rint(Math.hypot(dx, dy)));
+    }
+
+    /**
+     * Traslada unas coordenadas para que la mínima sea 0.
+     * @param coordenadas Las coordenadas a trasladar.
+     * @return Las coordenadas trasladadas.
+     */
+    private static int[] trasladar(final long[] coordenadas) {
+        final int[] toret = new int[coordenadas.length];
+        long minimo = Long.MAX_VALUE;
+
+        for (final long c : coordenadas) {
+            minimo = Math.min(minimo, c);
+        }
+        for (int i = 0; i < coordenadas.length; ++i) {
+            toret[i] = (int) (coordenadas[i] - minimo);
+        }
+
+        return toret;
+    }
+
+    /**
+     * Crea una estructura de conjuntos disjuntos donde cada elemento está en su propio conjunto.
+     * @param n El número de elementos.
+     * @return El array con el padre de cada elemento.
+     */
+    private static int[] nuevosConjuntosDisjuntos(final int n) {
+        final int[] toret = new int[n];
+
+        for (int i = 0; i < n; ++i) {
+            toret[i] = i;
+        }
+
+        return toret;
+    }
+
+    /**
+     * Une los conjuntos disjuntos de dos elementos, comprimiendo los caminos por división a la mitad.
+     * @param padres El array con el padre de cada elemento.
+     * @param a Uno de los elementos.
+     * @param b El otro elemento.
+     * @return Verdadero si los elementos estaban en conjuntos distintos, falso en caso contrario.
+     */
+    private static boolean unir(final int[] padres, final int a, final int b) {
+        int raizA = a;
+        while (padres[raizA] != raizA) {
+            padres[raizA] = padres[padres[raizA]];
+            raizA = padres[raizA];
+        }
+        int raizB = b;
+        while (padres[raizB] != raizB) {
+            padres[raizB] = padres[padres[raizB]];
+            raizB = padres[raizB];
+        }
+
+        final boolean toret = raizA != raizB;
+        if (toret) {
+            padres[Math.max(raizA, raizB)] = Math.min(raizA, raizB);
+        }
+
+        return toret;
+    }
+
+    @Override
+    public String getNombre() {
+        return nombre;
+    }
+}
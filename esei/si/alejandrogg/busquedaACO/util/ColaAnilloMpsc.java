@@ -0,0 +1,117 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cola acotada de múltiples productores y un único consumidor, implementada sobre un búfer
+ * circular. Los productores reservan una posición del búfer incrementando atómicamente el
+ * contador de elementos encolados, y publican el elemento en ella; el consumidor los retira en
+ * el orden en que se reservaron sus posiciones, sin ninguna operación atómica de lectura y
+ * escritura. Ninguna operación bloquea ni reserva memoria.
+ *
+ * Es seguro que varios hilos de ejecución encolen elementos concurrentemente, pero solo un hilo
+ * de ejecución, el consumidor, puede desencolarlos.
+ * @param <E> El tipo de los elementos de la cola.
+ * @author Alejandro González García
+ */
+public final class ColaAnilloMpsc<E> {
+    /**
+     * Los elementos de la cola. Una posición nula está libre, o reservada por un productor que
+     * todavía no ha publicado su elemento.
+     */
+    private final AtomicReferenceArray<E> elementos;
+    /**
+     * La máscara de bits que, aplicada a un número de secuencia, obtiene su posición en el búfer.
+     */
+    private final int mascara;
+    /**
+     * El número de elementos encolados desde la creación de la cola, que es también el número de
+     * secuencia de la siguiente posición a reservar.
+     */
+    private final AtomicLong encolados = new AtomicLong();
+    /**
+     * El número de elementos desencolados desde la creación de la cola. Solo lo escribe el
+     * consumidor.
+     */
+    private volatile long desencolados = 0;
+
+    /**
+     * Crea una nueva cola vacía.
+     * @param capacidad El número máximo de elementos que la cola puede contener a la vez, que
+     * se redondea a la siguiente potencia de 2.
+     * @throws IllegalArgumentException Si la capacidad es menor que 1 o mayor que 2^30.
+     */
+    public ColaAnilloMpsc(final int capacidad) {
+        if (capacidad < 1 || capacidad > 1 << 30) {
+            throw new IllegalArgumentException("La capacidad de una cola circular debe de estar en el intervalo [1, 2^30].");
+        }
+
+        final int capacidadReal = capacidad == 1 ? 1 : Integer.highestOneBit(capacidad - 1) << 1;
+        this.elementos = new AtomicReferenceArray<>(capacidadReal);
+        this.mascara = capacidadReal - 1;
+    }
+
+    /**
+     * Encola un elemento, si la cola no está llena.
+     * @param elemento El elemento a encolar.
+     * @return Verdadero si se ha encolado el elemento, falso si la cola estaba llena.
+     * @throws IllegalArgumentException Si el elemento es nulo.
+     */
+    public boolean offer(final E elemento) {
+        if (elemento == null) {
+            throw new IllegalArgumentException("No se puede encolar un elemento nulo.");
+        }
+
+        long secuencia;
+        boolean toret;
+
+        do {
+            secuencia = encolados.get();
+            toret = secuencia - desencolados <= mascara;
+        } while (toret && !encolados.compareAndSet(secuencia, secuencia + 1));
+
+        if (toret) {
+            elementos.set((int) secuencia & mascara, elemento);
+        }
+
+        return toret;
+    }
+
+    /**
+     * Desencola el siguiente elemento de la cola. Solo el consumidor puede invocar este método.
+     * @return El elemento desencolado, o nulo si la cola está vacía o el productor del siguiente
+     * elemento todavía no lo ha terminado de publicar.
+     */
+    public E poll() {
+        final long secuencia = desencolados;
+        final int posicion = (int) secuencia & mascara;
+        final E toret = elementos.get(posicion);
+
+        if (toret != null) {
+            // Liberar la posición antes de anunciarla como libre a los productores
+            elementos.lazySet(posicion, null);
+            desencolados = secuencia + 1;
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene el número de elementos encolados desde la creación de la cola.
+     * @return El devandicho número.
+     */
+    public long encolados() {
+        return encolados.get();
+    }
+
+    /**
+     * Obtiene el número de elementos desencolados desde la creación de la cola.
+     * @return El devandicho número.
+     */
+    public long desencolados() {
+        return desencolados;
+    }
+}
@@ -0,0 +1,82 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.ToIntFunction;
+
+/**
+ * Implementa un conjunto inmutable respaldado por un array de elementos distintos, donde cada
+ * elemento ocupa la posición indicada por su índice. Gracias a ello, comprobar si un elemento
+ * pertenece al conjunto tiene complejidad O(1), y el conjunto no ocupa más memoria que el
+ * propio array, a diferencia de un {@link java.util.HashSet}.
+ * @author Alejandro González García
+ */
+public final class ConjuntoArray<E> extends AbstractSet<E> {
+    /**
+     * Los elementos del conjunto, cada uno en la posición de su índice.
+     */
+    private final E[] elementos;
+    /**
+     * La función que obtiene el índice de un elemento del conjunto.
+     */
+    private final ToIntFunction<? super E> indice;
+
+    /**
+     * Crea un nuevo conjunto respaldado por un array. El array no se copia, así que no debe de
+     * modificarse tras crear el conjunto.
+     * @param elementos Los elementos del conjunto. Ningún elemento puede ser nulo, y cada uno debe
+     * de ocupar la posición indicada por su índice.
+     * @param indice La función que obtiene el índice de un elemento del conjunto.
+     * @throws IllegalArgumentException Si algún parámetro es nulo, o algún elemento es nulo o no ocupa
+     * la posición indicada por su índice.
+     */
+    public ConjuntoArray(final E[] elementos, final ToIntFunction<? super E> indice) {
+        if (elementos == null || indice == null) {
+            throw new IllegalArgumentException("Un conjunto respaldado por un array no puede tener un array o una función de índice nulos.");
+        }
+
+        for (int i = 0; i < elementos.length; ++i) {
+            if (elementos[i] == null || indice.applyAsInt(elementos[i]) != i) {
+                throw new IllegalArgumentException("El elemento de la posición " + i + " es nulo o no tiene ese índice.");
+            }
+        }
+
+        this.elementos = elementos;
+        this.indice = indice;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        boolean toret = elementos.getClass().getComponentType().isInstance(o);
+
+        if (toret) {
+            // La conversión es segura, pues hemos comprobado que o es una instancia del tipo de
+            // los elementos del array
+            @SuppressWarnings("unchecked")
+            final int i = indice.applyAsInt((E) o);
+            toret = i >= 0 && i < elementos.length && elementos[i].equals(o);
+        }
+
+        return toret;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new IteradorSoloLectura<>(Arrays.asList(elementos).iterator());
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(elementos, Spliterator.DISTINCT | Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.ORDERED);
+    }
+
+    @Override
+    public int size() {
+        return elementos.length;
+    }
+}
@@ -0,0 +1,98 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Proporciona factorías de hilos virtuales, que se multiplexan sobre un pequeño conjunto de
+ * hilos de plataforma portadores y se aparcan sin ocuparlos mientras esperan. Como el proyecto
+ * se compila para Java 11, donde no existen, la factoría se obtiene mediante reflexión cuando
+ * la JVM en uso los soporta (Java 21 o superior). En otro caso, se recurre a hilos de plataforma
+ * demonio, que funcionan igual, pero cuyo número está limitado por la memoria de sus pilas y el
+ * coste de conmutar entre ellos.
+ * @author Alejandro González García
+ */
+public final class HilosVirtuales {
+    /**
+     * El método Thread.Builder#factory() del constructor de hilos virtuales, o nulo si la JVM
+     * no soporta hilos virtuales.
+     */
+    private static final Method metodoFactoria;
+    /**
+     * El constructor de hilos virtuales, devuelto por Thread.ofVirtual(), o nulo si la JVM no
+     * soporta hilos virtuales.
+     */
+    private static final Object constructorHilos;
+
+    static {
+        Method factoria = null;
+        Object constructor = null;
+
+        try {
+            final Class<?> claseConstructor = Class.forName("java.lang.Thread$Builder");
+            constructor = Thread.class.getMethod("ofVirtual").invoke(null);
+            factoria = claseConstructor.getMethod("factory");
+        } catch (final ReflectiveOperationException | LinkageError exc) {
+            // La JVM no soporta hilos virtuales
+            factoria = null;
+            constructor = null;
+        }
+
+        metodoFactoria = factoria;
+        constructorHilos = constructor;
+    }
+
+    /**
+     * Constructor privado para evitar la instanciación de esta clase.
+     */
+    private HilosVirtuales() {}
+
+    /**
+     * Comprueba si la JVM en uso soporta hilos virtuales.
+     * @return Verdadero si los soporta, falso en caso contrario.
+     */
+    public static boolean disponibles() {
+        return metodoFactoria != null;
+    }
+
+    /**
+     * Obtiene una factoría de hilos virtuales o, si la JVM no los soporta, de hilos de plataforma
+     * demonio. Los hilos creados por la factoría se nombran con un prefijo seguido de un número.
+     * @param prefijo El prefijo de los nombres de los hilos.
+     * @return La devandicha factoría.
+     * @throws IllegalArgumentException Si el prefijo es nulo.
+     */
+    public static ThreadFactory factoria(final String prefijo) {
+        if (prefijo == null) {
+            throw new IllegalArgumentException("El prefijo de los nombres de los hilos no puede ser nulo.");
+        }
+
+        ThreadFactory factoriaInterna = null;
+        if (metodoFactoria != null) {
+            try {
+                factoriaInterna = (ThreadFactory) metodoFactoria.invoke(constructorHilos);
+            } catch (final ReflectiveOperationException exc) {
+                factoriaInterna = null;
+            }
+        }
+
+        final ThreadFactory factoriaHilos = factoriaInterna;
+        final AtomicLong numeroHilo = new AtomicLong();
+        return (final Runnable tarea) -> {
+            final Thread toret;
+
+            if (factoriaHilos != null) {
+                toret = factoriaHilos.newThread(tarea);
+            } else {
+                toret = new Thread(tarea);
+                toret.setDaemon(true);
+            }
+            toret.setName(prefijo + numeroHilo.getAndIncrement());
+
+            return toret;
+        };
+    }
+}
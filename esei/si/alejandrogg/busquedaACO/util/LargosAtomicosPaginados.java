@@ -0,0 +1,158 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Array de números enteros largos que se pueden leer y modificar atómicamente, indexado por
+ * enteros densos que empiezan en 0, y cuya capacidad crece según se necesita. Los elementos se
+ * guardan en páginas de tamaño fijo que nunca se mueven, de modo que, al crecer, solo se copia
+ * el directorio de páginas, y ninguna modificación concurrente de los elementos se pierde.
+ *
+ * Es seguro que varios hilos de ejecución usen los objetos de esta clase concurrentemente. Las
+ * operaciones sobre elementos no bloquean; solo el crecimiento de la capacidad se sincroniza.
+ * @author Alejandro González García
+ */
+public final class LargosAtomicosPaginados {
+    /**
+     * El logaritmo en base 2 del número de elementos de cada página.
+     */
+    private static final int BITS_PAGINA = 10;
+    /**
+     * El número de elementos de cada página.
+     */
+    private static final int TAMANO_PAGINA = 1 << BITS_PAGINA;
+    /**
+     * La máscara de bits que, aplicada a un índice, obtiene su posición dentro de su página.
+     */
+    private static final int MASCARA_PAGINA = TAMANO_PAGINA - 1;
+
+    /**
+     * El valor que tienen los elementos que todavía no se han modificado.
+     */
+    private final long valorInicial;
+    /**
+     * Las páginas de elementos. Solo se reemplaza, por una copia más grande, al crecer.
+     */
+    private volatile AtomicLongArray[] paginas = new AtomicLongArray[0];
+
+    /**
+     * Crea un nuevo array de enteros largos atómicos, inicialmente sin capacidad.
+     * @param valorInicial El valor que tienen los elementos que todavía no se han modificado.
+     */
+    public LargosAtomicosPaginados(final long valorInicial) {
+        this.valorInicial = valorInicial;
+    }
+
+    /**
+     * Asegura que el array tenga capacidad para, al menos, un número de elementos.
+     * @param elementos El número de elementos.
+     */
+    public void asegurarCapacidad(final int elementos) {
+        final int paginasNecesarias = (elementos + MASCARA_PAGINA) >>> BITS_PAGINA;
+
+        if (paginasNecesarias > paginas.length) {
+            crecer(paginasNecesarias);
+        }
+    }
+
+    /**
+     * Obtiene el número de elementos para los que el array tiene capacidad.
+     * @return El devandicho número.
+     */
+    public int capacidad() {
+        return paginas.length << BITS_PAGINA;
+    }
+
+    /**
+     * Obtiene el valor de un elemento.
+     * @param i El índice del elemento.
+     * @return El valor del elemento, o el valor inicial si el índice está fuera de la capacidad.
+     */
+    public long get(final int i) {
+        final AtomicLongArray[] paginas = this.paginas;
+        final int pagina = i >>> BITS_PAGINA;
+
+        return pagina < paginas.length ? paginas[pagina].get(i & MASCARA_PAGINA) : valorInicial;
+    }
+
+    /**
+     * Establece el valor de un elemento, ampliando la capacidad si es necesario.
+     * @param i El índice del elemento, que no debe de ser negativo.
+     * @param valor El nuevo valor del elemento.
+     */
+    public void set(final int i, final long valor) {
+        pagina(i).set(i & MASCARA_PAGINA, valor);
+    }
+
+    /**
+     * Establece el valor de un elemento, devolviendo el que tenía, ampliando la capacidad si
+     * es necesario.
+     * @param i El índice del elemento, que no debe de ser negativo.
+     * @param valor El nuevo valor del elemento.
+     * @return El valor anterior del elemento.
+     */
+    public long getAndSet(final int i, final long valor) {
+        return pagina(i).getAndSet(i & MASCARA_PAGINA, valor);
+    }
+
+    /**
+     * Establece el valor de un elemento si su valor actual es el esperado, ampliando la
+     * capacidad si es necesario.
+     * @param i El índice del elemento, que no debe de ser negativo.
+     * @param esperado El valor que se espera que tenga el elemento.
+     * @param valor El nuevo valor del elemento.
+     * @return Verdadero si el elemento tenía el valor esperado y se ha modificado, falso en
+     * caso contrario.
+     */
+    public boolean compareAndSet(final int i, final long esperado, final long valor) {
+        return pagina(i).compareAndSet(i & MASCARA_PAGINA, esperado, valor);
+    }
+
+    /**
+     * Obtiene la página que contiene un elemento, ampliando la capacidad si es necesario.
+     * @param i El índice del elemento, que no debe de ser negativo.
+     * @return La devandicha página.
+     */
+    private AtomicLongArray pagina(final int i) {
+        final int pagina = i >>> BITS_PAGINA;
+        AtomicLongArray[] paginas = this.paginas;
+
+        if (pagina >= paginas.length) {
+            paginas = crecer(pagina + 1);
+        }
+
+        return paginas[pagina];
+    }
+
+    /**
+     * Amplía el directorio de páginas hasta tener, al menos, un número de páginas, creando las
+     * páginas nuevas con el valor inicial.
+     * @param paginasNecesarias El número de páginas.
+     * @return El directorio de páginas resultante.
+     */
+    private synchronized AtomicLongArray[] crecer(final int paginasNecesarias) {
+        AtomicLongArray[] toret = paginas;
+
+        // Otro hilo puede haberlo ampliado mientras esperábamos
+        if (paginasNecesarias > toret.length) {
+            final int paginasAnteriores = toret.length;
+
+            toret = Arrays.copyOf(toret, Math.max(paginasNecesarias, paginasAnteriores * 2));
+            for (int i = paginasAnteriores; i < toret.length; ++i) {
+                toret[i] = new AtomicLongArray(TAMANO_PAGINA);
+                if (valorInicial != 0) {
+                    for (int j = 0; j < TAMANO_PAGINA; ++j) {
+                        toret[i].set(j, valorInicial);
+                    }
+                }
+            }
+
+            paginas = toret;
+        }
+
+        return toret;
+    }
+}
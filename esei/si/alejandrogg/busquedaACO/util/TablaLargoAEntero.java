@@ -0,0 +1,167 @@
+// Entorno para el proyecto BusquedaACO.mas2j
+
+package esei.si.alejandrogg.busquedaACO.util;
+
+import java.util.Arrays;
+
+/**
+ * Tabla de dispersión que relaciona claves de tipo long con valores enteros no negativos,
+ * implementada con direccionamiento abierto y sondeo lineal sobre arrays de tipos primitivos.
+ * A diferencia de un {@link java.util.HashMap}, ni las consultas ni las inserciones de claves
+ * existentes reservan memoria, pues no se crean objetos envoltorio ni entradas.
+ *
+ * Esta clase no es segura para ser usada por varios hilos de ejecución concurrentemente si alguno
+ * de ellos la modifica. Si solo se realizan consultas tras publicarla de manera segura, sí lo es.
+ * @author Alejandro González García
+ */
+public final class TablaLargoAEntero {
+    /**
+     * El valor que devuelven las consultas de claves que no están presentes en la tabla.
+     * También marca las celdas vacías.
+     */
+    public static final int AUSENTE = -1;
+    /**
+     * El factor de carga máximo de la tabla, a partir del cual se duplica su capacidad.
+     * Con sondeo lineal, conviene que sea bajo para que las secuencias de sondeo sean cortas.
+     */
+    private static final double FACTOR_CARGA = 0.5;
+
+    /**
+     * Las claves almacenadas en cada celda de la tabla.
+     */
+    private long[] claves;
+    /**
+     * Los valores almacenados en cada celda de la tabla, o {@link AUSENTE} si la celda está vacía.
+     */
+    private int[] valores;
+    /**
+     * La máscara de bits que, aplicada a un código de dispersión, lo convierte en una celda.
+     */
+    private int mascara;
+    /**
+     * El número de claves presentes en la tabla.
+     */
+    private int tamano = 0;
+
+    /**
+     * Crea una nueva tabla vacía, con capacidad para un número de claves esperado sin que
+     * sea necesario redimensionarla.
+     * @param clavesEsperadas El número de claves que se espera almacenar.
+     * @throws IllegalArgumentException Si el número de claves esperadas es negativo.
+     */
+    public TablaLargoAEntero(final int clavesEsperadas) {
+        if (clavesEsperadas < 0) {
+            throw new IllegalArgumentException("El número de claves esperadas de una tabla no puede ser negativo.");
+        }
+
+        inicializar(Integer.highestOneBit(Math.max(2, (int) Math.ceil(clavesEsperadas / FACTOR_CARGA)) * 2 - 1));
+    }
+
+    /**
+     * Obtiene el valor asociado a una clave.
+     * @param clave La clave a consultar.
+     * @return El valor asociado a la clave, o {@link AUSENTE} si la clave no está en la tabla.
+     */
+    public int get(final long clave) {
+        int celda = celda(clave);
+        int toret = AUSENTE;
+
+        while (valores[celda] != AUSENTE && toret == AUSENTE) {
+            if (claves[celda] == clave) {
+                toret = valores[celda];
+            } else {
+                celda = (celda + 1) & mascara;
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Asocia un valor a una clave, reemplazando el valor anterior si lo hubiese.
+     * @param clave La clave.
+     * @param valor El valor a asociar a la clave.
+     * @return El valor asociado anteriormente a la clave, o {@link AUSENTE} si no estaba en la tabla.
+     * @throws IllegalArgumentException Si el valor es negativo.
+     */
+    public int poner(final long clave, final int valor) {
+        if (valor < 0) {
+            throw new IllegalArgumentException("Los valores de una tabla de largos a enteros no pueden ser negativos.");
+        }
+
+        int celda = celda(clave);
+        while (valores[celda] != AUSENTE && claves[celda] != clave) {
+            celda = (celda + 1) & mascara;
+        }
+
+        final int toret = valores[celda];
+        claves[celda] = clave;
+        valores[celda] = valor;
+
+        if (toret == AUSENTE && ++tamano > FACTOR_CARGA * valores.length) {
+            redimensionar();
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene el número de claves presentes en la tabla.
+     * @return El devandicho número.
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Elimina todas las claves de la tabla, conservando su capacidad.
+     */
+    public void vaciar() {
+        if (tamano > 0) {
+            Arrays.fill(valores, AUSENTE);
+            tamano = 0;
+        }
+    }
+
+    /**
+     * Calcula la celda inicial de la secuencia de sondeo de una clave, dispersando sus bits
+     * mediante el método multiplicativo de Fibonacci.
+     * @param clave La clave.
+     * @return La celda inicial de la clave.
+     */
+    private int celda(final long clave) {
+        final long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    /**
+     * Crea los arrays de la tabla, vacíos, con la capacidad especificada.
+     * @param capacidad El número de celdas de la tabla. Debe de ser una potencia de dos.
+     */
+    private void inicializar(final int capacidad) {
+        claves = new long[capacidad];
+        valores = new int[capacidad];
+        Arrays.fill(valores, AUSENTE);
+        mascara = capacidad - 1;
+    }
+
+    /**
+     * Duplica la capacidad de la tabla, volviendo a insertar todas las claves presentes.
+     */
+    private void redimensionar() {
+        final long[] clavesAnteriores = claves;
+        final int[] valoresAnteriores = valores;
+
+        inicializar(valoresAnteriores.length * 2);
+        for (int i = 0; i < valoresAnteriores.length; ++i) {
+            if (valoresAnteriores[i] != AUSENTE) {
+                int celda = celda(clavesAnteriores[i]);
+                while (valores[celda] != AUSENTE) {
+                    celda = (celda + 1) & mascara;
+                }
+                claves[celda] = clavesAnteriores[i];
+                valores[celda] = valoresAnteriores[i];
+            }
+        }
+    }
+}